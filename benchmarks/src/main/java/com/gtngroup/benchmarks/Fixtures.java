@@ -0,0 +1,73 @@
+package com.gtngroup.benchmarks;
+
+import com.gtngroup.util.Params;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * Payloads of the benchmarks, shaped like the production messages
+ */
+public class Fixtures {
+
+    /**
+     * Market data price message, as received on the websocket
+     */
+    public static final String MARKET_DATA = load("market-data.json");
+
+    /**
+     * Order event line, as received on the trade SSE stream
+     */
+    public static final String ORDER_EVENT = load("order-event.txt");
+
+    /**
+     * Response of the customer account endpoint
+     */
+    public static final String CUSTOMER_ACCOUNT = load("customer-account.json");
+
+    private Fixtures() {
+    }
+
+    /**
+     * @return payload of a new order request
+     */
+    public static Params orderParams() {
+        return new Params()
+                .add("customerNumber", "1000045871")
+                .add("accountNumber", "1000045871-01")
+                .add("clOrdId", "SDK-20241220-000184")
+                .add("symbol", "EMAAR")
+                .add("exchange", "DFM")
+                .add("side", "BUY")
+                .add("orderType", "LIMIT")
+                .add("timeInForce", "DAY")
+                .add("price", 14.35)
+                .add("quantity", 10000)
+                .add("channel", "API")
+                .add("remarks", "rebalance / Q4 \"core\" allocation");
+    }
+
+    /**
+     * @return query of a market data request
+     */
+    public static Params marketDataParams() {
+        return new Params()
+                .add("source-id", "DFM")
+                .add("keys", "DFM~EMAAR,DFM~DIB,ADX~ADCB,ADX~FAB,NSDQ~AAPL");
+    }
+
+    private static String load(String name) {
+        try (InputStream in = Fixtures.class.getResourceAsStream("/fixtures/" + name)) {
+            if (in == null) {
+                throw new IllegalStateException("Fixture not found " + name);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8).trim();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
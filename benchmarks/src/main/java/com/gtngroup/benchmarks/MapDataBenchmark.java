@@ -0,0 +1,53 @@
+package com.gtngroup.benchmarks;
+
+import com.gtngroup.util.Utils;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * Path lookups in responses with Utils.getMapData() and Utils.hasMapKey()
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapDataBenchmark {
+
+    private JSONObject account;
+
+    @Setup
+    public void setUp() {
+        account = new JSONObject().put("response", new JSONObject(Fixtures.CUSTOMER_ACCOUNT));
+    }
+
+    @Benchmark
+    public Object status() {
+        return Utils.getMapData("response/status", account);
+    }
+
+    @Benchmark
+    public Object nested() {
+        return Utils.getMapData("response/customer/address/city", account);
+    }
+
+    @Benchmark
+    public Object listMatch() {
+        return Utils.getMapData("response/customer/accounts/accountNumber:1000045871-02:buyingPower", account);
+    }
+
+    @Benchmark
+    public boolean hasMapKey() {
+        return Utils.hasMapKey("response/customer/kycStatus", account);
+    }
+}
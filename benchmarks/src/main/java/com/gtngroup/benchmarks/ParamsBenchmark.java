@@ -0,0 +1,56 @@
+package com.gtngroup.benchmarks;
+
+import com.gtngroup.codec.JsonCodecs;
+import com.gtngroup.util.Params;
+import com.gtngroup.util.Utils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * Encoding of request payloads and query strings
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParamsBenchmark {
+
+    @Param({"org.json", "jackson"})
+    public String codec;
+
+    private Params order;
+    private Params query;
+
+    @Setup
+    public void setUp() {
+        JsonCodecs.setDefault(JsonCodecs.of(codec));
+        order = Fixtures.orderParams();
+        query = Fixtures.marketDataParams();
+    }
+
+    @Benchmark
+    public String orderToString() {
+        return order.toString();
+    }
+
+    @Benchmark
+    public String queryString() {
+        return Utils.toQueryString(query);
+    }
+
+    @Benchmark
+    public String getPath() {
+        return "/market-data/realtime/keys/data" + Utils.toQueryString(query);
+    }
+}
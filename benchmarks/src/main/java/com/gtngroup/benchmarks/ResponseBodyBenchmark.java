@@ -0,0 +1,122 @@
+package com.gtngroup.benchmarks;
+
+import com.gtngroup.JsonBodyHandler;
+import com.gtngroup.codec.JsonCodec;
+import com.gtngroup.codec.JsonCodecs;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Flow;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * Receiving and parsing of a REST response body, through BodyHandlers.ofString() and a String as before,
+ * and through the JsonBodyHandler straight from the received buffers. The body is fed to the body
+ * subscriber in buffers of the size used by the HTTP client
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseBodyBenchmark {
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    @Param({"org.json", "jackson"})
+    public String codec;
+
+    @Param({"1", "100"})
+    public int entries;
+
+    private JsonCodec jsonCodec;
+    private byte[] body;
+    private HttpResponse.ResponseInfo responseInfo;
+    private HttpResponse.BodyHandler<String> stringHandler;
+    private JsonBodyHandler jsonHandler;
+
+    @Setup
+    public void setUp() {
+        jsonCodec = JsonCodecs.of(codec);
+        StringBuilder json = new StringBuilder("{\"data\":[");
+        for (int i = 0; i < entries; i++) {
+            json.append(i == 0 ? "" : ",").append(Fixtures.MARKET_DATA);
+        }
+        body = json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+        responseInfo = new ResponseInfo();
+        stringHandler = HttpResponse.BodyHandlers.ofString();
+        jsonHandler = new JsonBodyHandler();
+    }
+
+    @Benchmark
+    public JSONObject ofString() {
+        return jsonCodec.decode(receive(stringHandler.apply(responseInfo)));
+    }
+
+    @Benchmark
+    public JSONObject jsonBody() {
+        return receive(jsonHandler.apply(responseInfo)).toJSONObject(jsonCodec);
+    }
+
+    /**
+     * Deliver the body to the subscriber as the HTTP client does, in buffers of up to 16 KB
+     */
+    private <T> T receive(HttpResponse.BodySubscriber<T> subscriber) {
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+            }
+
+            @Override
+            public void cancel() {
+            }
+        });
+        for (int offset = 0; offset < body.length; offset += BUFFER_SIZE) {
+            int length = Math.min(BUFFER_SIZE, body.length - offset);
+            List<ByteBuffer> buffers = new ArrayList<>(1);
+            buffers.add(ByteBuffer.allocate(length).put(body, offset, length).flip());
+            subscriber.onNext(buffers);
+        }
+        subscriber.onComplete();
+        return subscriber.getBody().toCompletableFuture().join();
+    }
+
+    private static class ResponseInfo implements HttpResponse.ResponseInfo {
+
+        private final HttpHeaders headers = HttpHeaders.of(
+                Map.of("Content-Type", List.of("application/json;charset=UTF-8")), (name, value) -> true);
+
+        @Override
+        public int statusCode() {
+            return 200;
+        }
+
+        @Override
+        public HttpHeaders headers() {
+            return headers;
+        }
+
+        @Override
+        public HttpClient.Version version() {
+            return HttpClient.Version.HTTP_2;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.gtngroup.benchmarks;
+
+import com.gtngroup.util.Params;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * REST requests end to end, against the in-process stub server
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class RoundTripBenchmark {
+
+    @State(Scope.Thread)
+    public static class Payloads {
+        final Params query = Fixtures.marketDataParams();
+        final Params order = Fixtures.orderParams();
+        int next;
+    }
+
+    @Benchmark
+    public JSONObject getMarketData(Session session, Payloads payloads) throws Exception {
+        return session.api.get("/market-data/realtime/keys/data", payloads.query);
+    }
+
+    @Benchmark
+    public JSONObject getCustomerAccount(Session session, Payloads payloads) throws Exception {
+        return session.api.get("/trade/bo/v1.2.1/customer/account", session.customers[payloads.next++ % Session.CUSTOMERS]);
+    }
+
+    @Benchmark
+    public JSONObject postOrder(Session session, Payloads payloads) throws Exception {
+        return session.api.post("/trade/oms/v1.2.1/order", payloads.order);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public JSONObject getMarketDataConcurrent(Session session, Payloads payloads) throws Exception {
+        return session.api.get("/market-data/realtime/keys/data", payloads.query);
+    }
+}
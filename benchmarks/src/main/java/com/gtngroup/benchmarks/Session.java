@@ -0,0 +1,66 @@
+package com.gtngroup.benchmarks;
+
+import com.gtngroup.GTNAPI;
+import com.gtngroup.util.Params;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.security.KeyPairGenerator;
+import java.util.Base64;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * SDK session against the stub server, with the server token and logged in customers
+ */
+@State(Scope.Benchmark)
+public class Session {
+
+    public static final int CUSTOMERS = 100;
+
+    public GTNAPI api;
+    public String[] customers;
+    private StubServer server;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        server = new StubServer().start();
+        api = new GTNAPI(params(server.getURL()));
+        if (api.init().getInt("http_status") != 200) {
+            throw new IllegalStateException("Login to the stub server failed");
+        }
+
+        customers = new String[CUSTOMERS];
+        for (int i = 0; i < CUSTOMERS; i++) {
+            customers[i] = Long.toString(1_000_000_000L + i);
+            api.initCustomer(customers[i]);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        api.stop();
+        server.stop();
+    }
+
+    /**
+     * @param url of the server
+     * @return session params with a generated private key
+     * @throws Exception if no RSA support
+     */
+    public static Params params(String url) throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        String privateKey = Base64.getEncoder().encodeToString(generator.generateKeyPair().getPrivate().getEncoded());
+        return new Params()
+                .setURL(url)
+                .setAppKey("benchmark-app-key")
+                .setAppSecret("benchmark-app-secret")
+                .setInstitution("GTN")
+                .setUserId("benchmark")
+                .setPrivateKey(privateKey);
+    }
+}
@@ -0,0 +1,85 @@
+package com.gtngroup.benchmarks;
+
+import com.gtngroup.GTNAPI;
+import com.gtngroup.MarketDataStreaming;
+import com.gtngroup.MessageListener;
+import com.gtngroup.StreamingService;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * Decoding and dispatch of streaming messages to the listener, as done by the onMessage()
+ * methods of the market data and trade streaming services
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StreamingBenchmark {
+
+    @Param({"org.json", "jackson"})
+    public String codec;
+
+    private MarketDataStreaming marketData;
+    private MethodHandle tradeOnMessage;
+    private JSONObject last;
+
+    @Setup
+    public void setUp() throws Throwable {
+        GTNAPI api = new GTNAPI(Session.params("https://localhost").setJsonCodec(codec));
+        MessageListener listener = new MessageListener() {
+            @Override
+            public void onOpen() {
+            }
+
+            @Override
+            public void onMessage(JSONObject message) {
+                last = message;
+            }
+
+            @Override
+            public void onError(JSONObject message) {
+                last = message;
+            }
+
+            @Override
+            public void onClose(String closeMessage) {
+            }
+        };
+        marketData = (MarketDataStreaming) api.getMarketDataStreamingService(listener);
+        StreamingService trade = api.getTradeStreamingService(listener);
+
+        // the SSE line handler is private, as it is only called by the reader thread
+        tradeOnMessage = MethodHandles.privateLookupIn(trade.getClass(), MethodHandles.lookup())
+                .findVirtual(trade.getClass(), "onMessage", MethodType.methodType(void.class, String.class))
+                .bindTo(trade);
+    }
+
+    @Benchmark
+    public JSONObject marketDataMessage() {
+        marketData.onMessage(Fixtures.MARKET_DATA);
+        return last;
+    }
+
+    @Benchmark
+    public JSONObject orderEvent() throws Throwable {
+        tradeOnMessage.invokeExact(Fixtures.ORDER_EVENT);
+        return last;
+    }
+}
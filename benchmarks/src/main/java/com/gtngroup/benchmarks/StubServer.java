@@ -0,0 +1,79 @@
+package com.gtngroup.benchmarks;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * In-process HTTP server answering the auth endpoints and a few REST endpoints with the fixtures,
+ * for round trips without the network
+ */
+public class StubServer {
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    static {
+        // without it, small responses wait for the delayed ACK of the client, adding ~40 ms to each round trip
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    public StubServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/trade/auth/", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            send(exchange, token(exchange.getRequestURI().getPath().contains("customer") ? "customer" : "server"));
+        });
+        server.createContext("/trade/bo/v1.2.1/customer/account", exchange -> send(exchange, Fixtures.CUSTOMER_ACCOUNT));
+        server.createContext("/market-data/realtime/keys/data", exchange -> send(exchange, Fixtures.MARKET_DATA));
+        server.createContext("/trade/oms/v1.2.1/order", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            send(exchange, "{\"status\":\"SUCCESS\",\"orderId\":\"DFM-OR-8815402214\"}");
+        });
+        server.setExecutor(executor);
+    }
+
+    public StubServer start() {
+        server.start();
+        return this;
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * @return base url of the server
+     */
+    public String getURL() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    private static String token(String type) {
+        long now = System.currentTimeMillis();
+        return new JSONObject()
+                .put("status", "SUCCESS")
+                .put("accessToken", type + "-access-" + now)
+                .put("refreshToken", type + "-refresh-" + now)
+                .put("accessTokenExpiresAt", now + 3_600_000L)
+                .put("refreshTokenExpiresAt", now + 7_200_000L)
+                .toString();
+    }
+
+    private static void send(HttpExchange exchange, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+}
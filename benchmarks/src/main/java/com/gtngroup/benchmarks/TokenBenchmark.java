@@ -0,0 +1,41 @@
+package com.gtngroup.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * Access token lookup of logged in customers, done by every customer request
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenBenchmark {
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    public String customerAccessToken(Session session, Cursor cursor) {
+        String customer = session.customers[cursor.next++ % Session.CUSTOMERS];
+        return session.api.getCustomerAccessToken(customer);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String customerAccessTokenContended(Session session, Cursor cursor) {
+        String customer = session.customers[cursor.next++ % Session.CUSTOMERS];
+        return session.api.getCustomerAccessToken(customer);
+    }
+}
@@ -0,0 +1,179 @@
+package com.gtngroup.load;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * Settings of a load run, from key=value arguments
+ */
+public class LoadConfig {
+
+    private static final String DEFAULT_MIX = "GET /trade/bo/v1.2.1/customer/account:6,"
+            + "GET /trade/bo/v1.2.1/customer/holdings:3,"
+            + "POST /trade/oms/v1.2.1/order:1";
+
+    private final Map<String, String> values = new HashMap<>();
+
+    /**
+     * @param args as key=value, i.e. customers=10000 duration=120
+     */
+    public LoadConfig(String... args) {
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected key=value, got " + arg);
+            }
+            values.put(arg.substring(0, separator).trim(), arg.substring(separator + 1).trim());
+        }
+    }
+
+    /**
+     * @return number of customers to log in
+     */
+    public int getCustomers() {
+        return getInt("customers", 1000);
+    }
+
+    /**
+     * @return number of customer logins in parallel
+     */
+    public int getLoginConcurrency() {
+        return getInt("login_concurrency", 32);
+    }
+
+    /**
+     * @return seconds to drive the REST load, after the logins
+     */
+    public int getDuration() {
+        return getInt("duration", 60);
+    }
+
+    /**
+     * @return maximum REST requests in flight
+     */
+    public int getConcurrency() {
+        return getInt("concurrency", 64);
+    }
+
+    /**
+     * @return REST requests per second, or 0 for as many as the concurrency allows
+     */
+    public int getRate() {
+        return getInt("rate", 0);
+    }
+
+    /**
+     * @return trade SSE messages per second sent by the stub, or 0 to not subscribe
+     */
+    public int getTradeRate() {
+        return getInt("trade_rate", 1000);
+    }
+
+    /**
+     * @return market data messages per second sent by the stub, or 0 to not subscribe
+     */
+    public int getPriceRate() {
+        return getInt("price_rate", 10_000);
+    }
+
+    /**
+     * @return access token lifetime of the stub in millis. the refresh token lives 10 times longer
+     */
+    public long getTokenLifetime() {
+        return getInt("token_lifetime", 60_000);
+    }
+
+    /**
+     * @return minimum and maximum latency of the stub REST routes in millis
+     */
+    public long[] getLatency() {
+        String[] range = values.getOrDefault("latency", "1-5").split("-");
+        long min = Long.parseLong(range[0]);
+        return new long[]{min, range.length > 1 ? Long.parseLong(range[1]) : min};
+    }
+
+    /**
+     * @return share of the stub REST requests failing with 503
+     */
+    public double getErrorRate() {
+        return Double.parseDouble(values.getOrDefault("error_rate", "0"));
+    }
+
+    /**
+     * @return seconds between the progress reports
+     */
+    public int getReportInterval() {
+        return getInt("report", 5);
+    }
+
+    /**
+     * @return execution mode of the SDK, PLATFORM or VIRTUAL
+     */
+    public String getExecutionMode() {
+        return values.getOrDefault("execution_mode", "PLATFORM");
+    }
+
+    /**
+     * @return the REST request mix, as METHOD path:weight entries separated by commas
+     */
+    public List<Operation> getMix() {
+        List<Operation> mix = new ArrayList<>();
+        for (String entry : values.getOrDefault("mix", DEFAULT_MIX).split(",")) {
+            int separator = entry.lastIndexOf(':');
+            String[] request = entry.substring(0, separator).trim().split("\\s+");
+            mix.add(new Operation(request[0].toUpperCase(), request[1], Integer.parseInt(entry.substring(separator + 1).trim())));
+        }
+        return mix;
+    }
+
+    private int getInt(String key, int defaultValue) {
+        String value = values.get(key);
+        return value == null ? defaultValue : Integer.parseInt(value.replace("_", ""));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("customers=%d login_concurrency=%d duration=%ds concurrency=%d rate=%s trade_rate=%d "
+                        + "price_rate=%d token_lifetime=%dms latency=%d-%dms error_rate=%s execution_mode=%s",
+                getCustomers(), getLoginConcurrency(), getDuration(), getConcurrency(),
+                getRate() == 0 ? "max" : Integer.toString(getRate()), getTradeRate(), getPriceRate(),
+                getTokenLifetime(), getLatency()[0], getLatency()[1], getErrorRate(), getExecutionMode());
+    }
+
+    /**
+     * A REST request of the mix
+     */
+    public static class Operation {
+
+        private final String method;
+        private final String path;
+        private final int weight;
+
+        public Operation(String method, String path, int weight) {
+            this.method = method;
+            this.path = path;
+            this.weight = weight;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public int getWeight() {
+            return weight;
+        }
+
+        @Override
+        public String toString() {
+            return method + " " + path;
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package com.gtngroup.load;
+
+import com.gtngroup.GTNAPI;
+import com.gtngroup.MessageListener;
+import com.gtngroup.StreamingService;
+import com.gtngroup.metrics.InMemoryMetrics;
+import com.gtngroup.stub.MessageScript;
+import com.gtngroup.stub.Route;
+import com.gtngroup.stub.StubHub;
+import com.gtngroup.util.Params;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.json.JSONObject;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.security.KeyPairGenerator;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * Logs in many customers against a local stub of the hub, drives a mix of customer REST requests while the
+ * trade and market data streams run, and reports throughput, latency percentiles, heap usage and token refresh lag
+ * <pre>
+ * mvn compile exec:java -Dexec.args="customers=10000 duration=120 concurrency=128 token_lifetime=30000"
+ * </pre>
+ */
+public class LoadHarness {
+
+    private final LoadConfig config;
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private final Recorder latency = new Recorder(3);
+    private final Histogram totalLatency = new Histogram(3);
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder tradeMessages = new LongAdder();
+    private final LongAdder priceMessages = new LongAdder();
+
+    private StubHub hub;
+    private GTNAPI api;
+    private String[] customers;
+    private RefreshLagTracker lagTracker;
+    private InMemoryMetrics metrics;
+
+    public LoadHarness(LoadConfig config) {
+        this.config = config;
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadConfig config = new LoadConfig(args);
+        System.out.println("Load run: " + config);
+        LoadHarness harness = new LoadHarness(config);
+        try {
+            harness.run();
+        } finally {
+            harness.stop();
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Run the logins, the streams and the REST load, then print the summary
+     *
+     * @throws Exception on error
+     */
+    public void run() throws Exception {
+        startHub();
+        startSession();
+        login();
+        startStreams();
+        drive();
+        summary();
+    }
+
+    private void startHub() throws Exception {
+        long[] range = config.getLatency();
+        hub = new StubHub()
+                .setTokenLifetime(config.getTokenLifetime(), config.getTokenLifetime() * 10)
+                .setTradeStream("/trade/sse/v1.2.1", MessageScript.orders("LOAD").setRate(config.getTradeRate()))
+                .setPriceStream("/market-data/websocket/price", MessageScript.prices("DFM~EMAAR", "ADX~ADCB", "NSDQ~AAPL")
+                        .setRate(config.getPriceRate()));
+        for (LoadConfig.Operation operation : config.getMix()) {
+            hub.route(operation.getMethod(), operation.getPath(), Route.json("{\"status\":\"SUCCESS\",\"data\":{}}")
+                    .setLatency(range[0], range[1])
+                    .setErrorRate(config.getErrorRate(), 503));
+        }
+        hub.start();
+    }
+
+    private void startSession() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        metrics = new InMemoryMetrics();
+        api = new GTNAPI(new Params()
+                .setURL(hub.getURL())
+                .setMarketDataURL(hub.getMarketDataURL())
+                .setAppKey("load-app-key")
+                .setAppSecret("load-app-secret")
+                .setInstitution("GTN")
+                .setUserId("load")
+                .setPrivateKey(Base64.getEncoder().encodeToString(generator.generateKeyPair().getPrivate().getEncoded()))
+                .setExecutionMode(config.getExecutionMode())
+                .setMetrics(metrics));
+        JSONObject status = api.init();
+        if (status.getInt("http_status") != 200) {
+            throw new IllegalStateException("Server login failed " + status);
+        }
+    }
+
+    private void login() throws Exception {
+        int count = config.getCustomers();
+        customers = new String[count];
+        for (int i = 0; i < count; i++) {
+            customers[i] = Long.toString(2_000_000_000L + i);
+        }
+
+        long heapBefore = usedHeapAfterGC();
+        AtomicInteger failures = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(config.getLoginConcurrency());
+        long start = System.nanoTime();
+        for (String customer : customers) {
+            executor.execute(() -> {
+                if (api.initCustomer(customer).getInt("http_status") != 200) {
+                    failures.incrementAndGet();
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.HOURS);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long heapAfter = usedHeapAfterGC();
+
+        System.out.printf("Logged in %,d customers in %.1fs (%,.0f/s), %d failed. heap %s, %,d bytes per customer%n",
+                count - failures.get(), seconds, count / seconds, failures.get(), megabytes(heapAfter),
+                (heapAfter - heapBefore) / Math.max(1, count));
+        lagTracker = new RefreshLagTracker(api, customers, config.getTokenLifetime());
+        lagTracker.sample();
+    }
+
+    private void startStreams() {
+        if (config.getTradeRate() > 0) {
+            StreamingService trade = api.getTradeStreamingService(listener(tradeMessages));
+            trade.connect("/trade/sse/v1.2.1", "ORDER");
+        }
+        if (config.getPriceRate() > 0) {
+            StreamingService prices = api.getMarketDataStreamingService(listener(priceMessages));
+            prices.connect("/market-data/websocket/price");
+        }
+    }
+
+    private void drive() {
+        List<LoadConfig.Operation> mix = config.getMix();
+        int totalWeight = mix.stream().mapToInt(LoadConfig.Operation::getWeight).sum();
+        Semaphore inFlight = new Semaphore(config.getConcurrency());
+        long intervalNanos = config.getRate() > 0 ? 1_000_000_000L / config.getRate() : 0;
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(config.getDuration());
+        long nextReport = start + TimeUnit.SECONDS.toNanos(config.getReportInterval());
+        long nextSample = start + TimeUnit.SECONDS.toNanos(1);
+        long lastReport = start;
+        long sent = 0;
+        long tradeBefore = 0;
+        long priceBefore = 0;
+        long completedBefore = 0;
+
+        System.out.println("   time     req/s   errors    p50 ms    p99 ms  p99.9 ms    max ms   heap MB  "
+                + "lag p99 s  expired  trade/s  price/s");
+        while (true) {
+            long now = System.nanoTime();
+            if (now >= end) {
+                break;
+            }
+            if (now >= nextSample) {
+                lagTracker.sample();
+                nextSample += TimeUnit.SECONDS.toNanos(1);
+            }
+            if (now >= nextReport) {
+                double seconds = (now - lastReport) / 1e9;
+                Histogram interval = latency.getIntervalHistogram();
+                totalLatency.add(interval);
+                Histogram lag = lagTracker.getLag();
+                long done = completed.sum();
+                System.out.printf("%6.0fs %9.0f %8d %9.2f %9.2f %9.2f %9.2f %9s %10.1f %8d %8.0f %8.0f%n",
+                        (now - start) / 1e9, (done - completedBefore) / seconds, failed.sum(),
+                        interval.getValueAtPercentile(50) / 1000.0, interval.getValueAtPercentile(99) / 1000.0,
+                        interval.getValueAtPercentile(99.9) / 1000.0, interval.getMaxValue() / 1000.0,
+                        megabytes(memory.getHeapMemoryUsage().getUsed()),
+                        lag.getValueAtPercentile(99) / 1000.0, lagTracker.getExpired(),
+                        (tradeMessages.sum() - tradeBefore) / seconds, (priceMessages.sum() - priceBefore) / seconds);
+                completedBefore = done;
+                tradeBefore = tradeMessages.sum();
+                priceBefore = priceMessages.sum();
+                lastReport = now;
+                nextReport += TimeUnit.SECONDS.toNanos(config.getReportInterval());
+            }
+
+            if (intervalNanos > 0) {
+                long due = start + sent * intervalNanos;
+                if (due > now) {
+                    LockSupport.parkNanos(Math.min(due - now, 1_000_000));
+                    continue;
+                }
+            }
+            if (!inFlight.tryAcquire()) {
+                LockSupport.parkNanos(50_000);
+                continue;
+            }
+            send(pick(mix, totalWeight), inFlight);
+            sent++;
+        }
+        inFlight.acquireUninterruptibly(config.getConcurrency());
+        totalLatency.add(latency.getIntervalHistogram());
+    }
+
+    private void send(LoadConfig.Operation operation, Semaphore inFlight) {
+        String customer = customers[ThreadLocalRandom.current().nextInt(customers.length)];
+        long start = System.nanoTime();
+        CompletableFuture<JSONObject> response;
+        if ("GET".equals(operation.getMethod())) {
+            response = api.getAsync(operation.getPath(), new Params(), customer);
+        } else if ("POST".equals(operation.getMethod())) {
+            response = api.postAsync(operation.getPath(), order(customer), customer);
+        } else if ("PATCH".equals(operation.getMethod())) {
+            response = api.patchAsync(operation.getPath(), order(customer), customer);
+        } else {
+            response = api.deleteAsync(operation.getPath(), new Params(), customer);
+        }
+        response.whenComplete((result, throwable) -> {
+            latency.recordValue((System.nanoTime() - start) / 1000);
+            if (throwable != null || result.getInt("http_status") >= 400) {
+                failed.increment();
+            }
+            completed.increment();
+            inFlight.release();
+        });
+    }
+
+    private void summary() {
+        lagTracker.sample();
+        Histogram lag = lagTracker.getLag();
+        System.out.printf("%nRequests %,d, failed %,d, %,.0f req/s%n", totalLatency.getTotalCount(), failed.sum(),
+                totalLatency.getTotalCount() / (double) config.getDuration());
+        System.out.printf("Latency ms  p50 %.2f  p90 %.2f  p99 %.2f  p99.9 %.2f  max %.2f%n",
+                totalLatency.getValueAtPercentile(50) / 1000.0, totalLatency.getValueAtPercentile(90) / 1000.0,
+                totalLatency.getValueAtPercentile(99) / 1000.0, totalLatency.getValueAtPercentile(99.9) / 1000.0,
+                totalLatency.getMaxValue() / 1000.0);
+        System.out.printf("Token refreshes %,d, lag s  p50 %.1f  p99 %.1f  max %.1f, expired %d, logged out %d%n",
+                lagTracker.getRefreshes(), lag.getValueAtPercentile(50) / 1000.0, lag.getValueAtPercentile(99) / 1000.0,
+                lag.getMaxValue() / 1000.0, lagTracker.getExpired(), lagTracker.getMissing());
+        System.out.printf("Streaming messages trade %,d, market data %,d%n", tradeMessages.sum(), priceMessages.sum());
+        System.out.printf("Heap used %s MB after GC%n", megabytes(usedHeapAfterGC()));
+        System.out.println("SDK token refresh " + metrics.snapshot().getJSONObject("token_refresh").toString());
+        System.out.println("Stub " + hub.getStats().toString());
+    }
+
+    private void stop() {
+        if (api != null) {
+            api.stop();
+        }
+        if (hub != null) {
+            hub.stop();
+        }
+    }
+
+    private static LoadConfig.Operation pick(List<LoadConfig.Operation> mix, int totalWeight) {
+        int value = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (LoadConfig.Operation operation : mix) {
+            value -= operation.getWeight();
+            if (value < 0) {
+                return operation;
+            }
+        }
+        return mix.get(mix.size() - 1);
+    }
+
+    private static Params order(String customer) {
+        return new Params()
+                .add("customerNumber", customer)
+                .add("symbol", "EMAAR")
+                .add("exchange", "DFM")
+                .add("side", "BUY")
+                .add("orderType", "LIMIT")
+                .add("price", 14.35)
+                .add("quantity", 100);
+    }
+
+    private static MessageListener listener(LongAdder counter) {
+        return new MessageListener() {
+            @Override
+            public void onOpen() {
+            }
+
+            @Override
+            public void onMessage(JSONObject message) {
+                counter.increment();
+            }
+
+            @Override
+            public void onError(JSONObject message) {
+                counter.increment();
+            }
+
+            @Override
+            public void onClose(String closeMessage) {
+                System.out.println("Stream closed: " + closeMessage);
+            }
+        };
+    }
+
+    private long usedHeapAfterGC() {
+        System.gc();
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    private static String megabytes(long bytes) {
+        return String.format("%,d", bytes / (1024 * 1024));
+    }
+}
@@ -0,0 +1,93 @@
+package com.gtngroup.load;
+
+import com.gtngroup.GTNAPI;
+import org.HdrHistogram.Histogram;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * Watches the access tokens of the customers to measure how late they are refreshed.
+ * The SDK refreshes a token 5 seconds before its expiry; the lag is the time after that point
+ * until a new token is seen. Tokens are sampled once a second, so lags are accurate to a second
+ */
+public class RefreshLagTracker {
+
+    private static final long REFRESH_AHEAD = 5_000;
+
+    private final GTNAPI api;
+    private final String[] customers;
+    private final long lifetime;
+    private final String[] tokens;
+    private final long[] seenAt;
+    private final Histogram lag = new Histogram(3_600_000L, 3);
+    private long refreshes;
+    private int expired;
+    private int missing;
+
+    /**
+     * @param api       session
+     * @param customers logged in
+     * @param lifetime  of the access tokens in millis
+     */
+    public RefreshLagTracker(GTNAPI api, String[] customers, long lifetime) {
+        this.api = api;
+        this.customers = customers;
+        this.lifetime = lifetime;
+        this.tokens = new String[customers.length];
+        this.seenAt = new long[customers.length];
+    }
+
+    /**
+     * Check the tokens of all customers
+     */
+    public synchronized void sample() {
+        long now = System.currentTimeMillis();
+        int expiredNow = 0;
+        int missingNow = 0;
+        for (int i = 0; i < customers.length; i++) {
+            String token = api.getCustomerAccessToken(customers[i]);
+            if (token == null) {
+                missingNow++;
+            } else if (!token.equals(tokens[i])) {
+                if (tokens[i] != null) {
+                    lag.recordValue(Math.max(0, now - (seenAt[i] + lifetime - REFRESH_AHEAD)));
+                    refreshes++;
+                }
+                tokens[i] = token;
+                seenAt[i] = now;
+            } else if (now - seenAt[i] > lifetime) {
+                expiredNow++;
+            }
+        }
+        expired = expiredNow;
+        missing = missingNow;
+    }
+
+    /**
+     * @return refreshes seen since the start
+     */
+    public synchronized long getRefreshes() {
+        return refreshes;
+    }
+
+    /**
+     * @return customers holding an expired access token at the last sample
+     */
+    public synchronized int getExpired() {
+        return expired;
+    }
+
+    /**
+     * @return customers without a token at the last sample, i.e. logged out by the SDK
+     */
+    public synchronized int getMissing() {
+        return missing;
+    }
+
+    /**
+     * @return copy of the lag histogram, in millis
+     */
+    public synchronized Histogram getLag() {
+        return lag.copy();
+    }
+}
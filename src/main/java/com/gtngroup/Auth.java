@@ -3,7 +3,10 @@ package com.gtngroup;
 import com.auth0.jwt.JWT;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.gtngroup.exception.RequestException;
+import com.gtngroup.jfr.TokenRefreshEvent;
+import com.gtngroup.session.SessionStore;
 import com.gtngroup.util.Params;
+import com.gtngroup.util.SingleFlight;
 import com.gtngroup.util.Utils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -16,8 +19,17 @@ import java.security.spec.PKCS8EncodedKeySpec;
 import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 
 /**
  * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
@@ -25,18 +37,92 @@ import java.util.Map;
  */
 public class Auth {
 
-    private static boolean active;
-    private static Thread thread;
+    private volatile boolean active;
+    private TokenRefreshScheduler scheduler;
+    private final SingleFlight<String, Boolean> refreshFlight = new SingleFlight<>();
+    private final Set<String> restored = ConcurrentHashMap.newKeySet();
+    private static final long ASSERTION_LIFETIME = 24 * 60 * 60 * 1000L;
+    private static final long ASSERTION_RENEW_AHEAD = 60 * 60 * 1000L;
+    private static final long ASSERTION_PRESIGN_AHEAD = 5 * 60 * 1000L;
+    private static final long LEASE_TIME = 30_000;
+    private static final long LEASE_WAIT = 5_000;
+    private static final long LEASE_POLL = 100;
+    private final AtomicLong adopted = new AtomicLong();
+    private final AtomicLong takeovers = new AtomicLong();
+    private final AtomicLong leasesDenied = new AtomicLong();
+    private String signingKey;
+    private Algorithm algorithm;
+    private String assertionScope;
+    private long assertionExpiry;
+    private CompletableFuture<Void> presign;
 
     private static final Logger LOGGER = LogManager.getLogger(Auth.class);
 
+    private final Shared shared;
+
+    /**
+     * @param shared state of the session
+     */
+    protected Auth(Shared shared) {
+        this.shared = shared;
+    }
+
     /**
      * Initialise the session
      *
      * @return the authentication status
      */
-    protected static JSONObject init() {
-        return initInstitution();
+    protected JSONObject init() {
+        JSONObject status = restoreInstitution();
+        if (status == null) {
+            status = initInstitution();
+        }
+        if (shared.getTokenStore() != null && status.getInt("http_status") == 200) {
+            status.put("restored_customers", restoreCustomers());
+        }
+        return status;
+    }
+
+    /**
+     * Resume the server session from the token store, if its refresh token is still valid
+     *
+     * @return the authentication status, or null if no session can be resumed
+     */
+    private JSONObject restoreInstitution() {
+        MappedTokenStore store = shared.getTokenStore();
+        JSONObject serverToken = store == null ? null : store.getServerToken();
+        if (serverToken == null || Token.of(serverToken).getRefreshTokenExpiry() - System.currentTimeMillis() < 5_000) {
+            return null;
+        }
+
+        LOGGER.debug("Institution session restored from the token store");
+        shared.restoreToken(null, serverToken);
+        active = true;
+        startScheduler();
+        schedule(null, shared.getToken(null));
+        return new JSONObject().put("http_status", 200).put("auth_status", AuthStatus.AUTH_SUCCESS.getValue());
+    }
+
+    /**
+     * Resume the customer sessions from the token store. Tokens with an expired access token are refreshed
+     * by the scheduler right away, and customers with an expired refresh token are left to login again
+     *
+     * @return number of customers restored
+     */
+    private int restoreCustomers() {
+        long now = System.currentTimeMillis();
+        int count = 0;
+        for (Map.Entry<String, JSONObject> entry : shared.getTokenStore().getCustomerTokens().entrySet()) {
+            if (Token.of(entry.getValue()).getRefreshTokenExpiry() - now < 5_000) {
+                continue;
+            }
+            shared.restoreToken(entry.getKey(), entry.getValue());
+            schedule(entry.getKey(), shared.getToken(entry.getKey()));
+            restored.add(entry.getKey());
+            count++;
+        }
+        LOGGER.debug(count + " customer sessions restored from the token store");
+        return count;
     }
 
     /**
@@ -44,30 +130,22 @@ public class Auth {
      *
      * @return the authentication status
      */
-    private static JSONObject initInstitution() {
+    private JSONObject initInstitution() {
         AuthStatus authStatus = AuthStatus.AUTH_SUCCESS;
 
         String basicAuth = getBasicAuth(
-                Shared.getInstance().getAppKey(),
-                Shared.getInstance().getAppSecret()
+                shared.getAppKey(),
+                shared.getAppSecret()
         );
 
-        String assertion = createToken(
-                Shared.getInstance().getPrivateKey(),
-                Shared.getInstance().getAppKey(),
-                Shared.getInstance().getInstitution(),
-                Shared.getInstance().getUserId()
-        );
+        String assertion = getAssertion();
 
         if (assertion == null) {
-            System.out.println("Assertion created failed");
+            LOGGER.error("Assertion creation failed");
             return Utils.returnStatus(-1, AuthStatus.ASSERTION_ERROR.toString());
         }
 
-        Shared.getInstance().setAssertion(assertion);
-        LOGGER.debug("Assertion created successfully");
-
-        Params params = new Params("assertion", Shared.getInstance().getAssertion())
+        Params params = new Params("assertion", assertion)
                 .add("authorization", basicAuth);
 
         JSONObject serverToken = getServerToken(params, basicAuth);
@@ -80,7 +158,7 @@ public class Auth {
         ) {
             LOGGER.debug("Institution authentication success");
             // test serverToken.getJSONObject("response").put("accessTokenExpiresAt", System.currentTimeMillis() + 35_000L);
-            Shared.getInstance().setServerToken(serverToken.getJSONObject("response"));
+            shared.setServerToken(serverToken.getJSONObject("response"));
         } else {
             if (serverToken.getJSONObject("response").isEmpty()) {
                 LOGGER.debug("Server authentication failed. http status " + httpStatus + " and token is empty");
@@ -94,7 +172,8 @@ public class Auth {
 
         if (authStatus.equals(AuthStatus.AUTH_SUCCESS)) {
             active = true;
-            startThread();
+            startScheduler();
+            schedule(null, shared.getToken(null));
         } else {
             if (httpStatus == 200) {
                 httpStatus = -1;
@@ -104,23 +183,73 @@ public class Auth {
         return new JSONObject().put("http_status", httpStatus).put("auth_status", authStatus.getValue());
     }
 
+    /**
+     * Take the session of a customer from the session store, if another node has logged in the customer
+     *
+     * @param customerNumber to find
+     * @return the token, or null if not in the store or the refresh token is about to expire
+     */
+    protected Token loadSession(String customerNumber) {
+        SessionStore store = shared.getSessionStore();
+        JSONObject stored = store == null || !active ? null : store.get(customerNumber);
+        if (stored == null || Token.of(stored).getRefreshTokenExpiry() - System.currentTimeMillis() < 5_000) {
+            return null;
+        }
+        shared.restoreToken(customerNumber, stored);
+        Token token = shared.getToken(customerNumber);
+        schedule(customerNumber, token);
+        return token;
+    }
+
     /**
      * Login a customer
      * @param customerNumber to login
      * @return the token
      */
-    protected static JSONObject initCustomer(String customerNumber) {
+    protected JSONObject initCustomer(String customerNumber) {
+        return initCustomerAsync(customerNumber).join();
+    }
 
-        AuthStatus authStatus = AuthStatus.AUTH_SUCCESS;
+    /**
+     * Login a customer without blocking the caller
+     * @param customerNumber to login
+     * @return future of the http status and auth status. does not complete exceptionally
+     */
+    protected CompletableFuture<JSONObject> initCustomerAsync(String customerNumber) {
+        if ((restored.remove(customerNumber) && shared.getToken(customerNumber) != null)
+                || loadSession(customerNumber) != null) {
+            // resumed from the token store, or logged in by another node. no need to login again
+            return CompletableFuture.completedFuture(new JSONObject().put("http_status", 200)
+                    .put("auth_status", AuthStatus.AUTH_SUCCESS.getValue()));
+        }
 
-        String basicAuth = getBasicAuth(
-                Shared.getInstance().getAppKey(),
-                Shared.getInstance().getAppSecret()
-        );
+        Token serverToken = shared.getToken(null);
+        if (serverToken == null) {
+            LOGGER.debug("Customer authentication failed. no server token. Call api.init() first");
+            return CompletableFuture.completedFuture(new JSONObject().put("http_status", -1)
+                    .put("auth_status", AuthStatus.CUSTOMER_AUTH_FAILED.getValue()));
+        }
 
         Params params = new Params("customerNumber", customerNumber)
-                .add("accessToken", Shared.getInstance().getServerToken().getString("accessToken"));
-        JSONObject customerToken = getCustomerToken(params, basicAuth);
+                .add("accessToken", serverToken.getAccessToken());
+        return getCustomerTokenAsync(params)
+                .thenApply(customerToken -> onCustomerToken(customerNumber, customerToken))
+                .exceptionally(throwable -> {
+                    LOGGER.error("Error in the Customer token of customer: " + customerNumber, throwable);
+                    return new JSONObject().put("http_status", -1)
+                            .put("auth_status", AuthStatus.CUSTOMER_AUTH_FAILED.getValue());
+                });
+    }
+
+    /**
+     * Keep the token of a customer logged in
+     * @param customerNumber logged in
+     * @param customerToken  response of the customer token endpoint
+     * @return the http status and auth status
+     */
+    private JSONObject onCustomerToken(String customerNumber, JSONObject customerToken) {
+
+        AuthStatus authStatus = AuthStatus.AUTH_SUCCESS;
 
         LOGGER.debug(customerToken.toString());
 
@@ -131,7 +260,8 @@ public class Auth {
             LOGGER.debug("Customer authentication success");
 
             // test customerToken.getJSONObject("response").put("accessTokenExpiresAt", System.currentTimeMillis() + 30_000L);
-            Shared.getInstance().setCustomerToken(customerNumber, customerToken.getJSONObject("response"));
+            shared.setCustomerToken(customerNumber, customerToken.getJSONObject("response"));
+            schedule(customerNumber, shared.getToken(customerNumber));
 
             LOGGER.debug("GTN API initiated in Customer mode.");
         } else {
@@ -148,6 +278,63 @@ public class Auth {
         return new JSONObject().put("http_status", httpStatus).put("auth_status", authStatus.getValue());
     }
 
+    /**
+     * Get the assertion of the session. A signed assertion is reused until an hour before its expiry
+     *
+     * @return the assertion, or null if it cannot be signed
+     */
+    private synchronized String getAssertion() {
+        String assertion = shared.getAssertion();
+        if (assertion != null && getAssertionScope().equals(assertionScope)
+                && assertionExpiry - System.currentTimeMillis() > ASSERTION_RENEW_AHEAD) {
+            return assertion;
+        }
+        return signAssertion();
+    }
+
+    /**
+     * Sign a new assertion for the session, and schedule signing the next one if pre-signing is enabled
+     *
+     * @return the assertion, or null if it cannot be signed
+     */
+    private synchronized String signAssertion() {
+        long expiry = System.currentTimeMillis() + ASSERTION_LIFETIME;
+        String assertion = createToken(
+                shared.getPrivateKey(),
+                shared.getAppKey(),
+                shared.getInstitution(),
+                shared.getUserId(),
+                expiry
+        );
+        if (assertion == null) {
+            return null;
+        }
+
+        shared.setAssertion(assertion);
+        assertionScope = getAssertionScope();
+        assertionExpiry = expiry;
+        LOGGER.debug("Assertion created successfully");
+
+        if (presign != null) {
+            presign.cancel(false);
+            presign = null;
+        }
+        if (shared.isPresignAssertion()) {
+            long delay = expiry - ASSERTION_RENEW_AHEAD - ASSERTION_PRESIGN_AHEAD - System.currentTimeMillis();
+            presign = CompletableFuture.runAsync(this::signAssertion,
+                    CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS));
+        }
+        return assertion;
+    }
+
+    /**
+     * @return the session settings the assertion is signed for
+     */
+    private String getAssertionScope() {
+        return shared.getAppKey() + "|" + shared.getInstitution() + "|"
+                + shared.getUserId() + "|" + shared.getInstitutionId();
+    }
+
     /**
      * Create the assertion
      *
@@ -155,23 +342,24 @@ public class Auth {
      * @param appKey      string
      * @param institution string
      * @param userId      string
+     * @param expiry      of the assertion
      * @return the assertion
      */
-    private static String createToken(String privateKey, String appKey,
-                                      String institution, String userId) {
+    private String createToken(String privateKey, String appKey,
+                                      String institution, String userId, long expiry) {
         try {
 
             Map<String, Object> payload = new HashMap<>();
             payload.put("instCode", institution);
             payload.put("userId", userId);
             payload.put("serverId", 1);
-            int instId = Shared.getInstance().getInstitutionId();
+            int instId = shared.getInstitutionId();
             if (instId > 0) {
                 payload.put("instId", instId);
             }
 
             Algorithm algorithm = getAlgorithm(privateKey);
-            Date accessTokenExpiry = (new Date(System.currentTimeMillis() + 24 * 60 * 60 * 1000));
+            Date accessTokenExpiry = new Date(expiry);
 
             Date now = new Date();
 
@@ -202,11 +390,17 @@ public class Auth {
     }
 
     /**
+     * Get the signing algorithm, parsing the private key only when it changes
+     *
      * @param privateKey string
      * @return RSA string
      */
-    private static Algorithm getAlgorithm(String privateKey) {
-        return Algorithm.RSA256(null, getPrivateKey(privateKey));
+    private synchronized Algorithm getAlgorithm(String privateKey) {
+        if (algorithm == null || !privateKey.equals(signingKey)) {
+            algorithm = Algorithm.RSA256(null, getPrivateKey(privateKey));
+            signingKey = privateKey;
+        }
+        return algorithm;
     }
 
     /**
@@ -239,11 +433,7 @@ public class Auth {
      * @return the encoded string
      */
     public static byte[] base16Decoder(final String hex) {
-        final byte[] bts = new byte[hex.length() / 2];
-        for (int i = 0; i < bts.length; ++i) {
-            bts[i] = (byte) Integer.parseInt(hex.substring(2 * i, 2 * i + 2), 16);
-        }
-        return bts;
+        return HexFormat.of().parseHex(hex);
     }
 
     /**
@@ -254,7 +444,15 @@ public class Auth {
      */
     private static boolean isLikelyHex(String str) {
         // Base16 is typically only hexadecimal characters and even length
-        return str.matches("(?i)^[0-9a-f]+$") && str.length() % 2 == 0;
+        if (str.isEmpty() || str.length() % 2 != 0) {
+            return false;
+        }
+        for (int i = 0; i < str.length(); i++) {
+            if (Character.digit(str.charAt(i), 16) < 0) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -264,10 +462,10 @@ public class Auth {
      * @param token  assertion
      * @return the server token
      */
-    private static JSONObject getServerToken(Params params, String token) {
+    private JSONObject getServerToken(Params params, String token) {
         try {
 
-            return Requests.post(Shared.getAuthURL("SERVER_TOKEN"), params, token, null);
+            return shared.getRequests().post(shared.getAuthURL("SERVER_TOKEN"), params, token, null);
         } catch (RequestException e){
             LOGGER.error(e.getMessage(), e);
             return new JSONObject().put("http_status", e.getStatusCode()).put("response", new JSONObject("message", e.getDescription()));
@@ -282,11 +480,11 @@ public class Auth {
      *
      * @return new token
      */
-    private static JSONObject getServerTokenRefresh() {
+    private JSONObject getServerTokenRefresh() {
         try {
-            String refreshToken = Shared.getInstance().getServerToken().getString("refreshToken");
+            String refreshToken = shared.getToken(null).getRefreshToken();
             Params params = new Params("refreshToken", refreshToken);
-            return Requests.post(Shared.getAuthURL("SERVER_TOKEN_REFRESH"), params, null);
+            return shared.getRequests().post(shared.getAuthURL("SERVER_TOKEN_REFRESH"), params, null);
         } catch (Exception e) {
             LOGGER.error("Error getting the Server refresh token", e);
             return new JSONObject().put("http_status", -1).put("response", new JSONObject());
@@ -294,20 +492,17 @@ public class Auth {
     }
 
     /**
-     * Get the customer token from the server
+     * Get the customer token from the server without blocking the caller
      *
      * @param params map
-     * @param token  assertion
-     * @return the customer token
+     * @return future of the customer token. errors complete with http status -1
      */
-    private static JSONObject getCustomerToken(Params params, String token) {
-        try {
-
-            return Requests.post(Shared.getAuthURL("CUSTOMER_TOKEN"), params, "", null);
-        } catch (Exception e) {
-            LOGGER.error("Error getting the Customer token", e);
-            return new JSONObject().put("http_status", -1).put("response", new JSONObject());
-        }
+    private CompletableFuture<JSONObject> getCustomerTokenAsync(Params params) {
+        return shared.getRequests().postAsync(shared.getAuthURL("CUSTOMER_TOKEN"), params, "", null)
+                .exceptionally(throwable -> {
+                    LOGGER.error("Error getting the Customer token", throwable);
+                    return new JSONObject().put("http_status", -1).put("response", new JSONObject());
+                });
     }
 
     /**
@@ -315,11 +510,11 @@ public class Auth {
      *
      * @return new token
      */
-    protected static JSONObject getCustomerTokenRefresh(String customerNumber) {
+    protected JSONObject getCustomerTokenRefresh(String customerNumber) {
         try {
-            String refreshToken = Shared.getInstance().getCustomerRefreshToken(customerNumber);
+            String refreshToken = shared.getCustomerRefreshToken(customerNumber);
             Params params = new Params("refreshToken", refreshToken);
-            return Requests.post(Shared.getAuthURL("CUSTOMER_TOKEN_REFRESH"), params, null);
+            return shared.getRequests().post(shared.getAuthURL("CUSTOMER_TOKEN_REFRESH"), params, null);
         } catch (Exception e) {
             LOGGER.error("Error getting the Customer refresh token", e);
             return new JSONObject().put("http_status", -1).put("response", new JSONObject());
@@ -330,13 +525,22 @@ public class Auth {
     /**
      * Logout the current session
      */
-    protected static void logout() {
+    protected synchronized void logout() {
         active = false;
-        try {
-            thread.interrupt();
-        } catch (Exception e) {
-            // ignore
+        if (scheduler != null) {
+            scheduler.stop();
+            scheduler = null;
+        }
+        shared.removeAllCustomers(); // get rid of all customers
+        restored.clear();
+        if (presign != null) {
+            presign.cancel(false);
+            presign = null;
+        }
+        if (shared.getTokenStore() != null) {
+            shared.getTokenStore().flush();
         }
+        //todo disconnect streaming clients
     }
 
     /**
@@ -352,111 +556,254 @@ public class Auth {
     }
 
     /**
-     * Start the key refresh thread
+     * Start the token refresh scheduler, if not running
      */
-    private static void startThread() {
-        thread = new Thread(() -> {
-            while(active) {
-                boolean success = keyRefresh();
-                if (!success) {
-                    break;
-                }
-                sleep(100);
-                List<String> activeCustomers = Shared.getInstance().getActiveCustomers();
-                for (String customerNumber : activeCustomers) {
-                    keyRefresh(customerNumber);
-                    sleep(100);
-                }
-                sleep(10_000);
-            }
-            Shared.getInstance().removeAllCustomers(); // get rid of all customers
-            //todo disconnect streaming clients
-        });
-        thread.start();
+    private synchronized void startScheduler() {
+        if (scheduler == null) {
+            scheduler = new TokenRefreshScheduler(shared, this::refreshAsync, shared.getRefreshConcurrency());
+            scheduler.start();
+        }
     }
 
     /**
-     * refresh the server token
-     * @return true if successful
+     * Schedule the refresh of a token just set
+     *
+     * @param customerNumber of the token, or null for the server token
+     * @param token          as received
      */
-    private static boolean keyRefresh() {
-        return keyRefresh(null);
+    private void schedule(String customerNumber, Token token) {
+        TokenRefreshScheduler current = scheduler;
+        if (current != null && token != null) {
+            current.schedule(customerNumber, token);
+        }
     }
 
     /**
-     * Refresh tokens when called by the thread
+     * Stop refreshing the token of a customer, i.e. when its session is evicted
+     *
+     * @param customerNumber of the token
      */
-    private static boolean keyRefresh(String customerNumber) {
-        boolean serverToken = false;
-        try {
-            //LOGGER.debug("refreshing -> " + customerNumber);
-            JSONObject token;
+    protected void cancelRefresh(String customerNumber) {
+        TokenRefreshScheduler current = scheduler;
+        if (current != null) {
+            current.cancel(customerNumber);
+        }
+    }
 
-            if (customerNumber == null) {
-                token = Shared.getInstance().getServerToken();
-                serverToken = true;
-            } else {
-                token = Shared.getInstance().getCustomerToken(customerNumber);
-            }
-            long expMillis;
+    /**
+     * @return state of the token refresh scheduler, or an empty object if not started
+     */
+    protected JSONObject getRefreshStats() {
+        TokenRefreshScheduler current = scheduler;
+        return current == null ? new JSONObject() : current.getStats();
+    }
 
-            // first check the refresh token
-            try {
-                expMillis = token.getLong("refreshTokenExpiresAt");
-            } catch (JSONException e) {
-                expMillis = token.getLong("refreshTokenExpiry"); //DWM
+    /**
+     * @return the node id, and counts of tokens taken from the session store, refreshed for another node and
+     * waited for while another node refreshed them. an empty object if no session store
+     */
+    protected JSONObject getSessionStats() {
+        if (shared.getSessionStore() == null) {
+            return new JSONObject();
+        }
+        return new JSONObject()
+                .put("node_id", shared.getNodeId())
+                .put("adopted", adopted.get())
+                .put("takeovers", takeovers.get())
+                .put("leases_denied", leasesDenied.get());
+    }
+
+    /**
+     * Refresh a token rejected by the server, unless it was refreshed already since the request was sent.
+     * Concurrent callers share a single refresh of the token, also with the scheduled one
+     *
+     * @param customerNumber of the token, or null for the server token
+     * @param rejected       access token sent with the request
+     * @return future of true if a new token is available to retry with
+     */
+    protected CompletableFuture<Boolean> refreshRejected(String customerNumber, String rejected) {
+        String current = getAccessToken(customerNumber);
+        if (!active || current == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        if (!current.equals(rejected)) {
+            return CompletableFuture.completedFuture(true);
+        }
+
+        return refreshAsync(customerNumber)
+                .handle((refreshed, throwable) -> {
+                    String token = getAccessToken(customerNumber);
+                    if (token == null || token.equals(rejected)) {
+                        return false;
+                    }
+                    // move the scheduled refresh to the expiry of the new token
+                    schedule(customerNumber, shared.getToken(customerNumber));
+                    return true;
+                });
+    }
+
+    /**
+     * Refresh a token on the workers of the scheduler, or join the refresh already in progress for the token.
+     * The refresh blocks on its HTTP calls, so it never runs on the executor given for the HTTP client
+     *
+     * @param customerNumber of the token, or null for the server token
+     * @return future of false if the refresh failed and is to be retried
+     */
+    private CompletableFuture<Boolean> refreshAsync(String customerNumber) {
+        return refreshFlight.execute(customerNumber == null ? "" : customerNumber,
+                () -> CompletableFuture.supplyAsync(() -> refresh(customerNumber), getRefreshExecutor())
+                        .thenCompose(Function.identity()));
+    }
+
+    /**
+     * @return the workers of the scheduler, or the common pool if stopped meanwhile
+     */
+    private Executor getRefreshExecutor() {
+        TokenRefreshScheduler current = scheduler;
+        return current != null ? current.getExecutor() : ForkJoinPool.commonPool();
+    }
+
+    /**
+     * @param customerNumber of the token, or null for the server token
+     * @return the current access token, or null if not logged in
+     */
+    private String getAccessToken(String customerNumber) {
+        Token token = shared.getToken(customerNumber);
+        return token == null ? null : token.getAccessToken();
+    }
+
+    /**
+     * Refresh a token. A customer session idle for longer than the idle timeout is evicted instead.
+     * With a session store, a customer token refreshed by another node already is taken from the store,
+     * and otherwise refreshed under the lease of the customer
+     *
+     * @param customerNumber of the token, or null for the server token
+     * @return future of false if the refresh failed and is to be retried. completed unless waiting for another node
+     */
+    private CompletableFuture<Boolean> refresh(String customerNumber) {
+        if (shared.isIdle(customerNumber)) {
+            LOGGER.debug("customer " + customerNumber + " is idle. evicting the session");
+            shared.evictCustomer(customerNumber, EvictionReason.IDLE);
+            return CompletableFuture.completedFuture(true);
+        }
+        Token token = shared.getToken(customerNumber);
+        if (token == null) {
+            return CompletableFuture.completedFuture(true); // logged out meanwhile
+        }
+        SessionStore store = customerNumber == null ? null : shared.getSessionStore();
+        if (store == null) {
+            return CompletableFuture.completedFuture(refresh(customerNumber, token));
+        }
+
+        if (adopt(store, customerNumber, token)) {
+            return CompletableFuture.completedFuture(true);
+        }
+        if (!store.lease(customerNumber, shared.getNodeId(), LEASE_TIME)) {
+            leasesDenied.incrementAndGet();
+            return awaitRefresh(store, customerNumber, token, System.currentTimeMillis() + LEASE_WAIT);
+        }
+        try {
+            if (!shared.isOwner(customerNumber)) {
+                takeovers.incrementAndGet(); // the owner has not refreshed it in time, or does not hold it
             }
-            long delta = expMillis - System.currentTimeMillis();
+            return CompletableFuture.completedFuture(refresh(customerNumber, token));
+        } finally {
+            store.release(customerNumber, shared.getNodeId());
+        }
+    }
+
+    /**
+     * Take a token from the session store, if refreshed by another node since the one held was received
+     *
+     * @param store          of the sessions
+     * @param customerNumber of the token
+     * @param token          held by this node
+     * @return true if a newer token is taken
+     */
+    private boolean adopt(SessionStore store, String customerNumber, Token token) {
+        JSONObject stored = store.get(customerNumber);
+        if (stored == null || Token.of(stored).getAccessTokenExpiry() <= token.getAccessTokenExpiry()) {
+            return false;
+        }
+        shared.restoreToken(customerNumber, stored);
+        adopted.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Wait for the node holding the lease to store the refreshed token. The store is polled without holding
+     * a worker between the polls
+     *
+     * @param store          of the sessions
+     * @param customerNumber of the token
+     * @param token          held by this node
+     * @param deadline       to give up waiting, in epoch millis
+     * @return future of true if the refreshed token is taken, false if not stored in time
+     */
+    private CompletableFuture<Boolean> awaitRefresh(SessionStore store, String customerNumber, Token token, long deadline) {
+        Executor poll = CompletableFuture.delayedExecutor(LEASE_POLL, TimeUnit.MILLISECONDS, getRefreshExecutor());
+        return CompletableFuture.supplyAsync(() -> adopt(store, customerNumber, token), poll)
+                .thenCompose(adopted -> adopted || System.currentTimeMillis() >= deadline
+                        ? CompletableFuture.completedFuture(adopted)
+                        : awaitRefresh(store, customerNumber, token, deadline));
+    }
+
+    /**
+     * Refresh a token
+     *
+     * @param customerNumber of the token, or null for the server token
+     * @param token          to refresh
+     * @return false if the refresh failed and is to be retried
+     */
+    private boolean refresh(String customerNumber, Token token) {
+        boolean serverToken = customerNumber == null;
+        try {
 
+            // first check the refresh token
+            long delta = token.getRefreshTokenExpiry() - System.currentTimeMillis();
             if (delta < 5_000) {
                 LOGGER.debug("refresh token expired. logging out");
                 if (serverToken) {
                     logout();
                 } else {
-                    Shared.getInstance().removeCustomer(customerNumber);
+                    shared.evictCustomer(customerNumber, EvictionReason.EXPIRED);
                 }
-                return false;
+                return true;
+            }
+
+            delta = token.getAccessTokenExpiry() - System.currentTimeMillis();
+            JSONObject refreshedToken;
+            long start = System.nanoTime();
+            TokenRefreshEvent event = new TokenRefreshEvent();
+            event.begin();
+            if (serverToken) {
+                refreshedToken = getServerTokenRefresh();
             } else {
-                // now check the access token
-                try {
-                    expMillis = token.getLong("accessTokenExpiresAt");
-                } catch (JSONException e) {
-                    expMillis = token.getLong("tokenExpiry"); // DWM
-                }
-                delta = expMillis - System.currentTimeMillis();
-                //LOGGER.debug("access delta " + delta);
-                if (delta < 5_000) {
-                    //LOGGER.debug("--> refreshing %s access token\n", serverToken ? "server" : "customer");
-                    JSONObject refreshedToken;
-                    if (serverToken) {
-                        refreshedToken = getServerTokenRefresh();
+                refreshedToken = getCustomerTokenRefresh(customerNumber);
+            }
+            int http_status = refreshedToken.getInt("http_status");
+            event.record(customerNumber, http_status);
+            shared.getMetrics().recordTokenRefresh(serverToken ? "server" : "customer",
+                    System.nanoTime() - start, http_status == 200);
+            if (http_status == 200) {
+                if (serverToken) {
+                    if (refreshedToken.getJSONObject("response").optString("status").equalsIgnoreCase("FAILED")) {
+                        initInstitution();
                     } else {
-                        refreshedToken = getCustomerTokenRefresh(customerNumber);
+                        shared.setServerToken(refreshedToken.getJSONObject("response"));
                     }
-                    int http_status = refreshedToken.getInt("http_status");
-                    if (http_status == 200) {
-                        if (serverToken) {
-                            if (refreshedToken.getJSONObject("response").optString("status").equalsIgnoreCase("FAILED")) {
-                                initInstitution();
-                            } else {
-                                Shared.getInstance().setServerToken(refreshedToken.getJSONObject("response"));
-                            }
-                        } else {
-                            if (refreshedToken.getJSONObject("response").optString("status").equalsIgnoreCase("FAILED")) {
-                                Shared.getInstance().removeCustomer(customerNumber);
-                                initCustomer(customerNumber);
-                            } else {
-                                Shared.getInstance().setCustomerToken(customerNumber, refreshedToken.getJSONObject("response"));
-                            }
-                        }
-                        return true;
+                } else {
+                    if (refreshedToken.getJSONObject("response").optString("status").equalsIgnoreCase("FAILED")) {
+                        shared.removeCustomer(customerNumber);
+                        initCustomer(customerNumber);
                     } else {
-                        LOGGER.debug(String.format("Error refreshing the %s token: %d sec to expire. http status %d\n", serverToken ? "server" : "customer", (delta / 1000L), http_status));
-                        return false;
+                        shared.setCustomerToken(customerNumber, refreshedToken.getJSONObject("response"));
                     }
-                } else { // no need to refresh now
-                    return true;
                 }
+                return true;
+            } else {
+                LOGGER.debug(String.format("Error refreshing the %s token: %d sec to expire. http status %d\n", serverToken ? "server" : "customer", (delta / 1000L), http_status));
+                return false;
             }
         } catch (Exception e) {
             if (serverToken) {
@@ -464,16 +811,7 @@ public class Auth {
             } else {
                 LOGGER.error("Error refreshing the Customer token for customer: " + customerNumber, e);
             }
-            return true;
-        }
-
-    }
-
-    private static void sleep(long millies) {
-        try {
-            Thread.sleep(millies);
-        } catch (InterruptedException e) {
-            // ignore
+            return false;
         }
     }
 }
@@ -0,0 +1,217 @@
+package com.gtngroup;
+
+import com.gtngroup.exception.RequestException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * Runs a task for each item of a collection with a bounded number in flight.
+ * Each completed task starts the next one, so no thread waits for a free slot
+ *
+ * @param <T> item of the collection
+ * @param <V> value of the task
+ * @param <R> result of an item
+ */
+public class BulkExecutor<T, V, R> {
+
+    private static final Logger LOGGER = LogManager.getLogger(BulkExecutor.class);
+
+    /**
+     * Maps the outcome of the task of an item to its result
+     */
+    @FunctionalInterface
+    protected interface ResultMapper<T, V, R> {
+
+        /**
+         * @param index of the item
+         * @param item  of the task
+         * @param value of the task, or null if it failed
+         * @param error of the task or of mapping its value, or null if it succeeded
+         * @return result of the item
+         */
+        R map(int index, T item, V value, Throwable error);
+    }
+
+    private final List<T> items;
+    private final Function<T, CompletableFuture<V>> task;
+    private final ResultMapper<T, V, R> mapper;
+    private final Consumer<R> listener;
+    private final Object[] results;
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicInteger remaining;
+    private final CompletableFuture<List<R>> done = new CompletableFuture<>();
+
+    private BulkExecutor(Collection<T> items, Function<T, CompletableFuture<V>> task, ResultMapper<T, V, R> mapper,
+                         Consumer<R> listener) {
+        this.items = new ArrayList<>(items);
+        this.task = task;
+        this.mapper = mapper;
+        this.listener = listener;
+        this.results = new Object[this.items.size()];
+        this.remaining = new AtomicInteger(this.items.size());
+    }
+
+    /**
+     * Execute the requests
+     *
+     * @param client      of the session
+     * @param requests    to execute
+     * @param concurrency maximum number of requests in flight
+     * @param listener    to receive each result as it completes. can be null
+     * @return future of all results, in the order of the requests
+     */
+    protected static CompletableFuture<List<BulkResult>> execute(Requests client, Collection<BulkRequest> requests,
+                                                                 int concurrency, BulkListener listener) {
+        return execute(requests, request -> send(client, request),
+                (index, request, response, throwable) -> new BulkResult(index, request, response, toRequestException(request, throwable)),
+                concurrency, listener == null ? null : listener::onResult);
+    }
+
+    /**
+     * Login the customers
+     *
+     * @param auth            of the session
+     * @param customerNumbers to login
+     * @param concurrency     maximum number of logins in flight
+     * @param listener        to receive each result as it completes. can be null
+     * @return future of all results, in the order of the customers
+     */
+    protected static CompletableFuture<List<LoginResult>> login(Auth auth, Collection<String> customerNumbers,
+                                                                int concurrency, LoginListener listener) {
+        return execute(customerNumbers, auth::initCustomerAsync,
+                (index, customerNumber, response, throwable) -> new LoginResult(index, customerNumber,
+                        response == null ? new JSONObject() : response, throwable),
+                concurrency, listener == null ? null : listener::onResult);
+    }
+
+    /**
+     * Run the task of each item
+     *
+     * @param items       to run the task for
+     * @param task        of an item. may complete immediately
+     * @param mapper      of the outcome of a task to the result of its item. if it fails on a value, it is called
+     *                    again with its exception as the error, to give the item a failed result
+     * @param concurrency maximum number of tasks in flight
+     * @param listener    to receive each result as it completes. can be null
+     * @return future of all results, in the order of the items. completes exceptionally if the mapper fails
+     * on an error too
+     */
+    protected static <T, V, R> CompletableFuture<List<R>> execute(Collection<T> items, Function<T, CompletableFuture<V>> task,
+                                                                  ResultMapper<T, V, R> mapper, int concurrency,
+                                                                  Consumer<R> listener) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("concurrency must be at least 1");
+        }
+        BulkExecutor<T, V, R> executor = new BulkExecutor<>(items, task, mapper, listener);
+        if (executor.results.length == 0) {
+            executor.done.complete(new ArrayList<>());
+        } else {
+            int lanes = Math.min(concurrency, executor.results.length);
+            for (int i = 0; i < lanes; i++) {
+                executor.runNext();
+            }
+        }
+        return executor.done;
+    }
+
+    /**
+     * Start the next pending task of this lane. tasks that complete immediately
+     * (i.e. unknown customer) are handled in the loop instead of recursing
+     */
+    private void runNext() {
+        while (true) {
+            int index = next.getAndIncrement();
+            if (index >= results.length) {
+                return;
+            }
+            CompletableFuture<V> future = start(items.get(index));
+            if (!future.isDone()) {
+                future.whenComplete((value, throwable) -> {
+                    complete(index, value, throwable);
+                    runNext();
+                });
+                return;
+            }
+            future.whenComplete((value, throwable) -> complete(index, value, throwable));
+        }
+    }
+
+    private CompletableFuture<V> start(T item) {
+        try {
+            return task.apply(item);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void complete(int index, V value, Throwable throwable) {
+        Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+                ? throwable.getCause() : throwable;
+        R result;
+        try {
+            result = mapper.map(index, items.get(index), value, cause);
+        } catch (Exception e) {
+            LOGGER.error("Error mapping bulk result", e);
+            try {
+                result = mapper.map(index, items.get(index), null, e);
+            } catch (Exception again) {
+                next.set(results.length); // no result can be given. start no more tasks
+                done.completeExceptionally(again);
+                return;
+            }
+        }
+        results[index] = result;
+
+        if (listener != null && result != null) {
+            try {
+                listener.accept(result);
+            } catch (Exception e) {
+                LOGGER.error("Error in bulk listener", e);
+            }
+        }
+
+        if (remaining.decrementAndGet() == 0) {
+            done.complete((List<R>) Arrays.asList(results));
+        }
+    }
+
+    private static CompletableFuture<JSONObject> send(Requests client, BulkRequest request) {
+        try {
+            switch (request.getMethod()) {
+                case "GET":
+                    return client.getAsync(request.getEndpoint(), request.getPayload(), request.getCustomerNumber());
+                case "POST":
+                    return client.postAsync(request.getEndpoint(), request.getPayload(), request.getCustomerNumber());
+                case "PATCH":
+                    return client.patchAsync(request.getEndpoint(), request.getPayload(), request.getCustomerNumber());
+                default:
+                    return client.deleteAsync(request.getEndpoint(), request.getPayload(), request.getCustomerNumber());
+            }
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private static RequestException toRequestException(BulkRequest request, Throwable cause) {
+        if (cause == null) {
+            return null;
+        }
+        return cause instanceof RequestException
+                ? (RequestException) cause
+                : new RequestException("Error in request " + request.getEndpoint(), -1, cause.toString());
+    }
+}
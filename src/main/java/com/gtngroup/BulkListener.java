@@ -0,0 +1,15 @@
+package com.gtngroup;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ */
+public interface BulkListener {
+
+    /**
+     * Called as each request of the bulk completes, in completion order.
+     * May be called from different threads
+     *
+     * @param result of the request
+     */
+    void onResult(BulkResult result);
+}
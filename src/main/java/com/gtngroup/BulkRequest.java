@@ -0,0 +1,99 @@
+package com.gtngroup;
+
+import com.gtngroup.util.Params;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * A single request of a bulk execution. see GTNAPI.bulk()
+ */
+public class BulkRequest {
+
+    private final String method;
+    private final String endpoint;
+    private final Params payload;
+    private final String customerNumber;
+
+    private BulkRequest(String method, String endpoint, Params payload, String customerNumber) {
+        this.method = method;
+        this.endpoint = endpoint;
+        this.payload = payload == null ? new Params() : payload;
+        this.customerNumber = customerNumber;
+    }
+
+    /**
+     * HTTP GET request
+     *
+     * @param endpoint       to call
+     * @param payload        to send to the endpoint
+     * @param customerNumber requesting, or null for the server token
+     * @return the request
+     */
+    public static BulkRequest get(String endpoint, Params payload, String customerNumber) {
+        return new BulkRequest("GET", endpoint, payload, customerNumber);
+    }
+
+    /**
+     * HTTP POST request
+     *
+     * @param endpoint       to call
+     * @param payload        to send to the endpoint
+     * @param customerNumber requesting, or null for the server token
+     * @return the request
+     */
+    public static BulkRequest post(String endpoint, Params payload, String customerNumber) {
+        return new BulkRequest("POST", endpoint, payload, customerNumber);
+    }
+
+    /**
+     * HTTP PATCH request
+     *
+     * @param endpoint       to call
+     * @param payload        to send to the endpoint
+     * @param customerNumber requesting, or null for the server token
+     * @return the request
+     */
+    public static BulkRequest patch(String endpoint, Params payload, String customerNumber) {
+        return new BulkRequest("PATCH", endpoint, payload, customerNumber);
+    }
+
+    /**
+     * HTTP DELETE request
+     *
+     * @param endpoint       to call
+     * @param payload        to send to the endpoint
+     * @param customerNumber requesting, or null for the server token
+     * @return the request
+     */
+    public static BulkRequest delete(String endpoint, Params payload, String customerNumber) {
+        return new BulkRequest("DELETE", endpoint, payload, customerNumber);
+    }
+
+    /**
+     * @return GET, POST, PATCH or DELETE
+     */
+    public String getMethod() {
+        return method;
+    }
+
+    /**
+     * @return the endpoint to call
+     */
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * @return the payload to send
+     */
+    public Params getPayload() {
+        return payload;
+    }
+
+    /**
+     * @return the customer number, or null for the server token
+     */
+    public String getCustomerNumber() {
+        return customerNumber;
+    }
+}
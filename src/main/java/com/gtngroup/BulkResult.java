@@ -0,0 +1,61 @@
+package com.gtngroup;
+
+import com.gtngroup.exception.RequestException;
+import org.json.JSONObject;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * Outcome of a single request of a bulk execution
+ */
+public class BulkResult {
+
+    private final int index;
+    private final BulkRequest request;
+    private final JSONObject response;
+    private final RequestException error;
+
+    protected BulkResult(int index, BulkRequest request, JSONObject response, RequestException error) {
+        this.index = index;
+        this.request = request;
+        this.response = response;
+        this.error = error;
+    }
+
+    /**
+     * @return position of the request in the submitted collection
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * @return the request
+     */
+    public BulkRequest getRequest() {
+        return request;
+    }
+
+    /**
+     * @return true if a response was received from the server
+     */
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    /**
+     * Get the response in the same format as GTNAPI.get()
+     *
+     * @return the response, or null on error
+     */
+    public JSONObject getResponse() {
+        return response;
+    }
+
+    /**
+     * @return the error, or null on success
+     */
+    public RequestException getError() {
+        return error;
+    }
+}
@@ -0,0 +1,18 @@
+package com.gtngroup;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ */
+public interface EvictionListener {
+
+    /**
+     * Called when the session of a customer is dropped, so the customer can be logged in again when next needed.
+     * Called on the thread evicting the session, i.e. the token refresh worker, and must not block.
+     * A request of the customer fails with UnknownCustomerException until it logs in again, unless another node
+     * holds the session in the session store
+     *
+     * @param customerNumber of the session
+     * @param reason         of the eviction
+     */
+    void onEvicted(String customerNumber, EvictionReason reason);
+}
@@ -0,0 +1,31 @@
+package com.gtngroup;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * Why a customer session was dropped by the SDK. see EvictionListener
+ */
+public enum EvictionReason {
+
+    /**
+     * Not used by a request for longer than the idle timeout. The refresh token may still be valid
+     */
+    IDLE,
+
+    /**
+     * Not recently used when the number of sessions exceeded the maximum
+     */
+    SIZE,
+
+    /**
+     * The refresh token expired
+     */
+    EXPIRED;
+
+    /**
+     * @return lower case name, as reported in the metrics
+     */
+    public String getValue() {
+        return name().toLowerCase();
+    }
+}
@@ -0,0 +1,79 @@
+package com.gtngroup;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ */
+public enum ExecutionMode {
+    PLATFORM,
+    VIRTUAL;
+
+    private static final Logger LOGGER = LogManager.getLogger(ExecutionMode.class);
+
+    /**
+     * Find the execution mode by name
+     *
+     * @param name of the mode, case-insensitive
+     * @return the execution mode
+     */
+    public static ExecutionMode of(String name) {
+        return valueOf(name.trim().toUpperCase());
+    }
+
+    /**
+     * Create a new, not yet started, thread in this mode
+     *
+     * @param name     of the thread
+     * @param runnable to run
+     * @return the thread
+     */
+    protected Thread newThread(String name, Runnable runnable) {
+        if (this == VIRTUAL) {
+            ThreadFactory factory = virtualThreadFactory(name);
+            if (factory != null) {
+                return factory.newThread(runnable);
+            }
+        }
+        return new Thread(runnable, name);
+    }
+
+    /**
+     * Create the default executor of this mode
+     *
+     * @return the executor, or null to use the JDK default
+     */
+    protected Executor newExecutor() {
+        if (this == VIRTUAL) {
+            try {
+                return (Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                LOGGER.warn("Virtual threads are not supported by this JVM. Using platform threads");
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Virtual threads are available from Java 21. Looked up reflectively since the SDK targets Java 17
+     *
+     * @param name of the threads
+     * @return the thread factory, or null if not supported by the JVM
+     */
+    private static ThreadFactory virtualThreadFactory(String name) {
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class).invoke(builder, name);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            LOGGER.warn("Virtual threads are not supported by this JVM. Using platform threads");
+            return null;
+        }
+    }
+}
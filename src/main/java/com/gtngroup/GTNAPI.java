@@ -1,13 +1,21 @@
 package com.gtngroup;
 
+import com.gtngroup.codec.JsonCodec;
+import com.gtngroup.codec.JsonCodecs;
+import com.gtngroup.metrics.Metrics;
+import com.gtngroup.session.SessionStore;
 import com.gtngroup.util.Params;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.io.IOException;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * (C) Copyright 2025-2025 Global Market Technologies. All Rights Reserved.
@@ -15,18 +23,33 @@ import java.util.List;
  */
 public class GTNAPI {
 
-    private static boolean initialised;
+    private final Shared shared = new Shared();
+    private boolean initialised;
+    private TradeStreaming tradeStreaming;
+    private MarketDataStreaming marketDataStreaming;
 
     private static final Logger LOGGER = LogManager.getLogger(Auth.class);
 
     /**
-     * initialise the session
+     * initialise the session. Each instance is a separate session, with its own tokens, HTTP client, streams
+     * and token refresh. Instances may share an executor and an HTTP client given in the params
      *
      * @param params to start the session
      */
     public GTNAPI(Params params) {
+        this(params, new SessionOptions());
+    }
+
+    /**
+     * initialise the session, with optional features such as the response cache or the token store
+     *
+     * @param params  to start the session
+     * @param options of the session
+     */
+    @SuppressWarnings("unchecked")
+    public GTNAPI(Params params, SessionOptions options) {
 
-        Shared.getInstance().init( // institution mode
+        shared.init( // institution mode
                 params.getString("api_url"),
                 params.getString("app_key"),
                 params.getString("app_secret"),
@@ -35,6 +58,39 @@ public class GTNAPI {
                 params.getString("user_id"),
                 params.getString("channel", "TRADE"),
                 params.getString("institution_id", "-1"));
+
+        shared.setExecution(
+                ExecutionMode.of(params.getString("execution_mode", ExecutionMode.PLATFORM.name())),
+                (Executor) params.get("executor"));
+        shared.setBulkConcurrency(Integer.parseInt(params.getString("bulk_concurrency", "16")));
+        shared.setRefreshConcurrency(Integer.parseInt(params.getString("refresh_concurrency", "8")));
+
+        Object codec = params.get("json_codec");
+        if (codec != null) {
+            JsonCodec jsonCodec = codec instanceof JsonCodec ? (JsonCodec) codec : JsonCodecs.of(codec.toString());
+            shared.setJsonCodec(jsonCodec);
+        }
+
+        shared.setResponseCache(options.getResponseCache());
+        shared.setRequestCoalescing(Boolean.parseBoolean(params.getString("request_coalescing", "false")));
+        shared.setThrottleGovernor(options.getThrottleGovernor());
+        shared.setResilience(options.getResilience());
+        shared.setMetrics((Metrics) params.get("metrics"));
+        shared.setTokenStore(options.getTokenStore());
+        shared.setSessionStore((SessionStore) params.get("session_store"),
+                (String) params.get("node_id"),
+                (List<String>) params.get("session_nodes"));
+        shared.setSessionLimits(Integer.parseInt(params.getString("max_sessions", "0")),
+                Long.parseLong(params.getString("session_idle_timeout", "0")),
+                options.getEvictionListener());
+        shared.setPresignAssertion(Boolean.parseBoolean(params.getString("presign_assertion", "false")));
+        shared.setMarketDataUrl((String) params.get("market_data_url"));
+
+        shared.setHttpClient(
+                HttpClient.Version.valueOf(params.getString("http_version", "HTTP_2").trim().toUpperCase()),
+                Duration.ofMillis(Long.parseLong(params.getString("connect_timeout", "10000"))),
+                Duration.ofMillis(Long.parseLong(params.getString("request_timeout", "30000"))),
+                (HttpClient) params.get("http_client"));
     }
 
     /**
@@ -47,7 +103,7 @@ public class GTNAPI {
             throw new RuntimeException("Already initialised. init() can be called only once per session");
         }
         setInitialised(true);
-        return Auth.init();
+        return shared.getAuth().init();
     }
 
     /**
@@ -57,7 +113,31 @@ public class GTNAPI {
      * @return the token
      */
     public JSONObject initCustomer(String customerNumber) {
-        return Auth.initCustomer(customerNumber);
+        return shared.getAuth().initCustomer(customerNumber);
+    }
+
+    /**
+     * Login many customers concurrently, with the default bulk concurrency limit.
+     * A failed login does not affect the others
+     *
+     * @param customerNumbers to login
+     * @param listener        to receive each result as it completes. can be null
+     * @return future of all results, in the order of the customers
+     */
+    public CompletableFuture<List<LoginResult>> initCustomers(Collection<String> customerNumbers, LoginListener listener) {
+        return initCustomers(customerNumbers, shared.getBulkConcurrency(), listener);
+    }
+
+    /**
+     * Login many customers concurrently. A failed login does not affect the others
+     *
+     * @param customerNumbers to login
+     * @param concurrency     maximum number of logins in flight
+     * @param listener        to receive each result as it completes. can be null
+     * @return future of all results, in the order of the customers
+     */
+    public CompletableFuture<List<LoginResult>> initCustomers(Collection<String> customerNumbers, int concurrency, LoginListener listener) {
+        return BulkExecutor.login(shared.getAuth(), customerNumbers, concurrency, listener);
     }
 
 
@@ -67,28 +147,44 @@ public class GTNAPI {
      *
      * @return true if already initialised
      */
-    public static boolean isInitialised() {
+    public boolean isInitialised() {
         return initialised;
     }
 
     /**
      * internal call to set initialise status
      */
-    private static void setInitialised(boolean value) {
-        GTNAPI.initialised = value;
+    private void setInitialised(boolean value) {
+        this.initialised = value;
     }
 
 
     /**
      * logout the session
      */
-    public static void stop() {
-        Auth.logout();
-        TradeStreaming.getInstance().disconnect();
-        MarketDataStreaming.getInstance().disconnect();
+    public void stop() {
+        shared.getAuth().logout();
+        if (tradeStreaming != null) {
+            tradeStreaming.disconnect();
+        }
+        if (marketDataStreaming != null) {
+            marketDataStreaming.disconnect();
+        }
         setInitialised(false);
     }
 
+    /**
+     * Current values of the metrics, as set by Params.setMetrics()
+     *
+     * @return requests by endpoint, token refreshes and streaming messages, the state of the token refresh scheduler, the session store and the session cache
+     */
+    public JSONObject getMetrics() {
+        return shared.getMetrics().snapshot()
+                .put("token_refresh_scheduler", shared.getAuth().getRefreshStats())
+                .put("session_store", shared.getAuth().getSessionStats())
+                .put("session_cache", shared.getSessionCacheStats());
+    }
+
     /**
      * HTTP GET method
      *
@@ -121,7 +217,7 @@ public class GTNAPI {
      * @throws IOException on error
      */
     public JSONObject get(String endpoint, Params payload) throws Exception {
-        return Requests.get(endpoint, payload, null);
+        return shared.getRequests().get(endpoint, payload, null);
     }
 
     /**
@@ -134,7 +230,7 @@ public class GTNAPI {
      * @throws IOException on error
      */
     public JSONObject get(String endpoint, Params payload, String customerNumber) throws Exception {
-        return Requests.get(endpoint, payload, customerNumber);
+        return shared.getRequests().get(endpoint, payload, customerNumber);
     }
 
     /**
@@ -146,7 +242,7 @@ public class GTNAPI {
      * @throws IOException on error
      */
     public JSONObject post(String endpoint, Params payload) throws Exception {
-        return Requests.post(endpoint, payload, null);
+        return shared.getRequests().post(endpoint, payload, null);
     }
 
     /**
@@ -159,7 +255,7 @@ public class GTNAPI {
      * @throws IOException on error
      */
     public JSONObject post(String endpoint, Params payload, String customerNumber) throws Exception {
-        return Requests.post(endpoint, payload, customerNumber);
+        return shared.getRequests().post(endpoint, payload, customerNumber);
     }
 
     /**
@@ -171,7 +267,7 @@ public class GTNAPI {
      * @throws IOException on error
      */
     public JSONObject patch(String endpoint, Params payload) throws Exception {
-        return Requests.patch(endpoint, payload, null, null);
+        return shared.getRequests().patch(endpoint, payload, null, null);
     }
 
     /**
@@ -184,7 +280,7 @@ public class GTNAPI {
      * @throws IOException on error
      */
     public JSONObject patch(String endpoint, Params payload, String customerNumber) throws Exception {
-        return Requests.patch(endpoint, payload, null, customerNumber);
+        return shared.getRequests().patch(endpoint, payload, null, customerNumber);
     }
 
     /**
@@ -196,7 +292,7 @@ public class GTNAPI {
      * @throws IOException on error
      */
     public JSONObject delete(String endpoint, Params payload) throws Exception {
-        return Requests.delete(endpoint, payload, null);
+        return shared.getRequests().delete(endpoint, payload, null);
 
     }
 
@@ -210,8 +306,145 @@ public class GTNAPI {
      * @throws IOException on error
      */
     public JSONObject delete(String endpoint, Params payload, String customerNumber) throws Exception {
-        return Requests.delete(endpoint, payload, customerNumber);
+        return shared.getRequests().delete(endpoint, payload, customerNumber);
+
+    }
+
+    /**
+     * HTTP GET method, without blocking the caller
+     *
+     * @param endpoint to call
+     * @return future of the JSON response. completes exceptionally with a RequestException on error
+     */
+    public CompletableFuture<JSONObject> getAsync(String endpoint) {
+        return getAsync(endpoint, new Params());
+    }
+
+    /**
+     * HTTP GET method, without blocking the caller
+     *
+     * @param endpoint       to call
+     * @param customerNumber requesting
+     * @return future of the JSON response. completes exceptionally with a RequestException on error
+     */
+    public CompletableFuture<JSONObject> getAsync(String endpoint, String customerNumber) {
+        return getAsync(endpoint, new Params(), customerNumber);
+    }
+
+    /**
+     * HTTP GET method, without blocking the caller
+     *
+     * @param endpoint to call
+     * @param payload  to send to the endpoint
+     * @return future of the JSON response. completes exceptionally with a RequestException on error
+     */
+    public CompletableFuture<JSONObject> getAsync(String endpoint, Params payload) {
+        return shared.getRequests().getAsync(endpoint, payload, null);
+    }
+
+    /**
+     * HTTP GET method, without blocking the caller
+     *
+     * @param endpoint       to call
+     * @param payload        to send to the endpoint
+     * @param customerNumber requesting
+     * @return future of the JSON response. completes exceptionally with a RequestException on error
+     */
+    public CompletableFuture<JSONObject> getAsync(String endpoint, Params payload, String customerNumber) {
+        return shared.getRequests().getAsync(endpoint, payload, customerNumber);
+    }
+
+    /**
+     * HTTP POST method, without blocking the caller
+     *
+     * @param endpoint to call
+     * @param payload  to send to the endpoint
+     * @return future of the JSON response. completes exceptionally with a RequestException on error
+     */
+    public CompletableFuture<JSONObject> postAsync(String endpoint, Params payload) {
+        return shared.getRequests().postAsync(endpoint, payload, null);
+    }
 
+    /**
+     * HTTP POST method, without blocking the caller
+     *
+     * @param endpoint       to call
+     * @param payload        to send to the endpoint
+     * @param customerNumber requesting
+     * @return future of the JSON response. completes exceptionally with a RequestException on error
+     */
+    public CompletableFuture<JSONObject> postAsync(String endpoint, Params payload, String customerNumber) {
+        return shared.getRequests().postAsync(endpoint, payload, customerNumber);
+    }
+
+    /**
+     * HTTP PATCH method, without blocking the caller
+     *
+     * @param endpoint to call
+     * @param payload  to send to the endpoint
+     * @return future of the JSON response. completes exceptionally with a RequestException on error
+     */
+    public CompletableFuture<JSONObject> patchAsync(String endpoint, Params payload) {
+        return shared.getRequests().patchAsync(endpoint, payload, null);
+    }
+
+    /**
+     * HTTP PATCH method, without blocking the caller
+     *
+     * @param endpoint       to call
+     * @param payload        to send to the endpoint
+     * @param customerNumber requesting
+     * @return future of the JSON response. completes exceptionally with a RequestException on error
+     */
+    public CompletableFuture<JSONObject> patchAsync(String endpoint, Params payload, String customerNumber) {
+        return shared.getRequests().patchAsync(endpoint, payload, customerNumber);
+    }
+
+    /**
+     * HTTP DELETE method, without blocking the caller
+     *
+     * @param endpoint to call
+     * @param payload  to send to the endpoint
+     * @return future of the JSON response. completes exceptionally with a RequestException on error
+     */
+    public CompletableFuture<JSONObject> deleteAsync(String endpoint, Params payload) {
+        return shared.getRequests().deleteAsync(endpoint, payload, null);
+    }
+
+    /**
+     * HTTP DELETE method, without blocking the caller
+     *
+     * @param endpoint       to call
+     * @param payload        to send to the endpoint
+     * @param customerNumber requesting
+     * @return future of the JSON response. completes exceptionally with a RequestException on error
+     */
+    public CompletableFuture<JSONObject> deleteAsync(String endpoint, Params payload, String customerNumber) {
+        return shared.getRequests().deleteAsync(endpoint, payload, customerNumber);
+    }
+
+    /**
+     * Execute many requests concurrently, with the default concurrency limit.
+     * A failed request does not affect the others
+     *
+     * @param requests to execute
+     * @param listener to receive each result as it completes. can be null
+     * @return future of all results, in the order of the requests
+     */
+    public CompletableFuture<List<BulkResult>> bulk(Collection<BulkRequest> requests, BulkListener listener) {
+        return bulk(requests, shared.getBulkConcurrency(), listener);
+    }
+
+    /**
+     * Execute many requests concurrently. A failed request does not affect the others
+     *
+     * @param requests    to execute
+     * @param concurrency maximum number of requests in flight
+     * @param listener    to receive each result as it completes. can be null
+     * @return future of all results, in the order of the requests
+     */
+    public CompletableFuture<List<BulkResult>> bulk(Collection<BulkRequest> requests, int concurrency, BulkListener listener) {
+        return BulkExecutor.execute(shared.getRequests(), requests, concurrency, listener);
     }
 
     /**
@@ -221,8 +454,9 @@ public class GTNAPI {
      * @return TradeStreaming
      */
     public StreamingService getTradeStreamingService(MessageListener listener) {
-        TradeStreaming.getInstance().addListener(listener);
-        return TradeStreaming.getInstance();
+        tradeStreaming = new TradeStreaming(shared);
+        tradeStreaming.addListener(listener);
+        return tradeStreaming;
     }
 
     /**
@@ -232,8 +466,9 @@ public class GTNAPI {
      * @return the MarketDataStreaming
      */
     public StreamingService getMarketDataStreamingService(MessageListener listener) {
-        MarketDataStreaming.getInstance().addListener(listener);
-        return MarketDataStreaming.getInstance();
+        marketDataStreaming = new MarketDataStreaming(shared);
+        marketDataStreaming.addListener(listener);
+        return marketDataStreaming;
     }
 
     /**
@@ -243,31 +478,19 @@ public class GTNAPI {
      * @return the validity status
      */
     public boolean isCustomerValid(String customerNumber) {
-        try {
-            JSONObject token = Shared.getInstance().getCustomerToken(customerNumber);
-
-            if (token == null) { // no such account
-                return false;
-            }
-
-            long expMillis;
-            try {
-                expMillis = token.getLong("refreshTokenExpiresAt");
-            } catch (JSONException e) {
-                expMillis = token.getLong("refreshTokenExpiry"); //DWM
-            }
-            long delta = expMillis - System.currentTimeMillis();
-
-            if (delta <= 0) { // expired account
-                Shared.getInstance().removeCustomer(customerNumber);
-                return false;
-            } else {
-                return true;
-            }
-        } catch (JSONException e) {
-            LOGGER.error("Error checking customer token validity", e);
-            Shared.getInstance().removeCustomer(customerNumber);
+        Token token = customerNumber == null ? null : shared.getToken(customerNumber);
+
+        if (token == null) { // no such account
+            return false;
+        }
+
+        long delta = token.getRefreshTokenExpiry() - System.currentTimeMillis();
+
+        if (delta <= 0) { // expired account, or no expiry in the token
+            shared.evictCustomer(customerNumber, EvictionReason.EXPIRED);
             return false;
+        } else {
+            return true;
         }
     }
 
@@ -278,8 +501,8 @@ public class GTNAPI {
      *
      * @return the list of customer numbers
      */
-    public synchronized List<String> getActiveCustomers() {
-        return Shared.getInstance().getActiveCustomers();
+    public List<String> getActiveCustomers() {
+        return shared.getActiveCustomers();
     }
 
     /**
@@ -289,6 +512,6 @@ public class GTNAPI {
      * @return the access token for the customer, or null if not available
      */
     public String getCustomerAccessToken(String customerNumber) {
-        return Shared.getInstance().getCustomerAccessToken(customerNumber);
+        return shared.getCustomerAccessToken(customerNumber);
     }
 }
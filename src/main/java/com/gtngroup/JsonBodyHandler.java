@@ -0,0 +1,148 @@
+package com.gtngroup;
+
+import com.gtngroup.codec.JsonCodec;
+import com.gtngroup.util.ByteBufferReader;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.net.http.HttpHeaders;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * Keeps the response body as the byte buffers received by the HTTP client, so that it can be
+ * parsed straight into a JSONObject, without building an intermediate byte array and String.
+ * Parsing is left to the caller, to keep it off the HTTP client's selector thread.
+ * The body is decoded straight from the buffers, with the charset of the Content-Type header, UTF-8 if none
+ */
+public class JsonBodyHandler implements HttpResponse.BodyHandler<JsonBodyHandler.JsonBody> {
+
+    protected static final JsonBodyHandler INSTANCE = new JsonBodyHandler();
+
+    @Override
+    public HttpResponse.BodySubscriber<JsonBody> apply(HttpResponse.ResponseInfo responseInfo) {
+        return new Subscriber(charset(responseInfo.headers()));
+    }
+
+    /**
+     * @param headers of the response
+     * @return the charset parameter of the Content-Type, or UTF-8 if none or not supported
+     */
+    protected static Charset charset(HttpHeaders headers) {
+        String contentType = headers.firstValue("Content-Type").orElse("");
+        for (String parameter : contentType.split(";")) {
+            int equals = parameter.indexOf('=');
+            if (equals > 0 && parameter.substring(0, equals).trim().equalsIgnoreCase("charset")) {
+                try {
+                    return Charset.forName(parameter.substring(equals + 1).trim().replace("\"", ""));
+                } catch (IllegalArgumentException e) {
+                    return StandardCharsets.UTF_8;
+                }
+            }
+        }
+        return StandardCharsets.UTF_8;
+    }
+
+    /**
+     * Collects the body buffers as they arrive
+     */
+    private static class Subscriber implements HttpResponse.BodySubscriber<JsonBody> {
+
+        private final CompletableFuture<JsonBody> result = new CompletableFuture<>();
+        private final List<ByteBuffer> buffers = new ArrayList<>();
+        private final Charset charset;
+        private long length;
+
+        private Subscriber(Charset charset) {
+            this.charset = charset;
+        }
+
+        @Override
+        public CompletionStage<JsonBody> getBody() {
+            return result;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> items) {
+            for (ByteBuffer item : items) {
+                length += item.remaining();
+                buffers.add(item);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            result.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            result.complete(new JsonBody(buffers, length, charset));
+        }
+    }
+
+    /**
+     * Raw response body
+     */
+    public static class JsonBody {
+
+        private final List<ByteBuffer> buffers;
+        private final long length;
+        private final Charset charset;
+
+        private JsonBody(List<ByteBuffer> buffers, long length, Charset charset) {
+            this.buffers = buffers;
+            this.length = length;
+            this.charset = charset;
+        }
+
+        /**
+         * @return the body size in bytes
+         */
+        public long length() {
+            return length;
+        }
+
+        /**
+         * Parse the body
+         *
+         * @param codec to parse with
+         * @return the body as a JSON object
+         * @throws JSONException if the body is not a JSON object
+         */
+        public JSONObject toJSONObject(JsonCodec codec) throws JSONException {
+            return codec.decode(new ByteBufferReader(buffers, charset));
+        }
+
+        /**
+         * Decode the body as a string. Used for error descriptions
+         *
+         * @return the body
+         */
+        @Override
+        public String toString() {
+            byte[] bytes = new byte[(int) length];
+            int offset = 0;
+            for (ByteBuffer buffer : buffers) {
+                int size = buffer.remaining();
+                buffer.duplicate().get(bytes, offset, size);
+                offset += size;
+            }
+            return new String(bytes, charset);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.gtngroup;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ */
+public interface LoginListener {
+
+    /**
+     * Called as each customer login of the bulk completes, in completion order.
+     * May be called from different threads
+     *
+     * @param result of the login
+     */
+    void onResult(LoginResult result);
+}
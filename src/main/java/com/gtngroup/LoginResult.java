@@ -0,0 +1,78 @@
+package com.gtngroup;
+
+import org.json.JSONObject;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * Outcome of a single customer login of a bulk login
+ */
+public class LoginResult {
+
+    private final int index;
+    private final String customerNumber;
+    private final int httpStatus;
+    private final AuthStatus authStatus;
+    private final Throwable error;
+
+    protected LoginResult(int index, String customerNumber, JSONObject response, Throwable error) {
+        this.index = index;
+        this.customerNumber = customerNumber;
+        this.error = error;
+        this.httpStatus = response.optInt("http_status", -1);
+        this.authStatus = AuthStatus.AUTH_SUCCESS.getValue().equals(response.optString("auth_status"))
+                ? AuthStatus.AUTH_SUCCESS
+                : AuthStatus.CUSTOMER_AUTH_FAILED;
+    }
+
+    /**
+     * @return position of the customer in the submitted collection
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * @return the customer number
+     */
+    public String getCustomerNumber() {
+        return customerNumber;
+    }
+
+    /**
+     * @return http status of the customer token request, or -1 if no response was received
+     */
+    public int getHttpStatus() {
+        return httpStatus;
+    }
+
+    /**
+     * @return AUTH_SUCCESS or CUSTOMER_AUTH_FAILED
+     */
+    public AuthStatus getAuthStatus() {
+        return authStatus;
+    }
+
+    /**
+     * @return the error that failed the login before a response was received, or null
+     */
+    public Throwable getError() {
+        return error;
+    }
+
+    /**
+     * @return true if the customer is logged in
+     */
+    public boolean isSuccess() {
+        return authStatus == AuthStatus.AUTH_SUCCESS;
+    }
+
+    /**
+     * Get the result in the same format as GTNAPI.initCustomer()
+     *
+     * @return http_status and auth_status
+     */
+    public JSONObject toJSON() {
+        return new JSONObject().put("http_status", httpStatus).put("auth_status", authStatus.getValue());
+    }
+}
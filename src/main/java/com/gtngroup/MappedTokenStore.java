@@ -0,0 +1,321 @@
+package com.gtngroup;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.json.JSONObject;
+
+import javax.crypto.AEADBadTagException;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * Keeps the server and customer tokens in an encrypted, memory-mapped file, so a restarted service
+ * resumes its sessions instead of logging in every customer again. see SessionOptions.setTokenStore()
+ * <p>
+ * The file is a log of records appended on each login, refresh and removal. Each record is encrypted with
+ * AES-GCM under a key derived from the secret, so a record is either read back intact or not at all.
+ * Records of expired and replaced tokens are dropped by compaction, when the file is opened and when the
+ * log grows to several times the size of the live records.
+ * <p>
+ * A file with records that cannot be decrypted, i.e. opened with another secret or damaged, is left as it is:
+ * the readable tokens are restored, and the new ones are not written until the store is opened with a readable file.
+ * <p>
+ * A store file belongs to one application key and channel, and to one running SDK session at a time
+ */
+public class MappedTokenStore implements Closeable {
+
+    private static final Logger LOGGER = LogManager.getLogger(MappedTokenStore.class);
+
+    private static final int MAGIC = 0x47544E54; // GTNT
+    private static final int VERSION = 1;
+    private static final int SALT_LENGTH = 16;
+    private static final int HEADER_LENGTH = 8 + SALT_LENGTH;
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_BITS = 128;
+    private static final int KEY_ITERATIONS = 65_536;
+    private static final int MIN_CAPACITY = 64 * 1024;
+    private static final int COMPACT_THRESHOLD = 1024 * 1024;
+    private static final String SERVER = "";
+
+    private final Path file;
+    private final SecureRandom random = new SecureRandom();
+    private final Map<String, byte[]> records = new HashMap<>(); // latest encrypted record of each live token
+    private final Map<String, JSONObject> restored = new LinkedHashMap<>();
+    private byte[] salt;
+    private SecretKey key;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int position;
+    private long liveBytes;
+    private boolean readOnly;
+
+    /**
+     * Open the store, creating the file if it does not exist, and read the tokens not yet expired
+     *
+     * @param file   of the store
+     * @param secret to derive the encryption key from
+     * @throws IOException if the file cannot be read or written
+     */
+    public MappedTokenStore(Path file, String secret) throws IOException {
+        this.file = file;
+        boolean exists = Files.exists(file) && Files.size(file) >= HEADER_LENGTH;
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (exists) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+            channel.read(header, 0);
+            header.flip();
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                channel.close();
+                throw new IOException("Not a token store: " + file);
+            }
+            salt = new byte[SALT_LENGTH];
+            header.get(salt);
+        } else {
+            salt = new byte[SALT_LENGTH];
+            random.nextBytes(salt);
+        }
+        key = deriveKey(secret, salt);
+        map(Math.max(MIN_CAPACITY, channel.size()));
+        if (exists && !read()) {
+            readOnly = true;
+            LOGGER.warn("Token store " + file + " has records which cannot be decrypted with this secret. " +
+                    "Restored " + records.size() + " tokens, and the file is kept as it is without writing new tokens");
+            return;
+        }
+        if (!exists) {
+            writeHeader(buffer.duplicate(), salt);
+            position = HEADER_LENGTH;
+        }
+        compact();
+    }
+
+    /**
+     * @return the server token read when opened, or null if none is valid
+     */
+    public synchronized JSONObject getServerToken() {
+        return restored.get(SERVER);
+    }
+
+    /**
+     * @return the customer tokens read when opened, by customer number
+     */
+    public synchronized Map<String, JSONObject> getCustomerTokens() {
+        Map<String, JSONObject> customers = new LinkedHashMap<>(restored);
+        customers.remove(SERVER);
+        return customers;
+    }
+
+    /**
+     * Keep a new or refreshed token
+     *
+     * @param customerNumber of the token, or null for the server token
+     * @param token          as received
+     */
+    public synchronized void put(String customerNumber, JSONObject token) {
+        append(key(customerNumber), new JSONObject().put("customer", key(customerNumber)).put("token", token));
+    }
+
+    /**
+     * Forget a token, i.e. of a customer whose session expired
+     *
+     * @param customerNumber of the token, or null for the server token
+     */
+    public synchronized void remove(String customerNumber) {
+        if (records.containsKey(key(customerNumber))) {
+            append(key(customerNumber), new JSONObject().put("customer", key(customerNumber)).put("removed", true));
+        }
+    }
+
+    /**
+     * @return number of tokens in the store
+     */
+    public synchronized int size() {
+        return records.size();
+    }
+
+    /**
+     * Write the changes through to the disk
+     */
+    public synchronized void flush() {
+        if (buffer != null) {
+            buffer.force();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        flush();
+        buffer = null;
+        channel.close();
+    }
+
+    /**
+     * Read all records of the log, up to the first without a length. A record written partially has none,
+     * as its length is written last. Records which cannot be decrypted, i.e. under another secret, are skipped
+     *
+     * @return true if all records were read
+     */
+    private boolean read() {
+        long now = System.currentTimeMillis();
+        boolean complete = true;
+        int offset = HEADER_LENGTH;
+        while (offset + 4 <= buffer.capacity()) {
+            int length = buffer.getInt(offset);
+            if (length == 0) {
+                break;
+            }
+            if (length <= IV_LENGTH || offset + 4 + length > buffer.capacity()) {
+                LOGGER.warn("Token store " + file + " is unreadable from offset " + offset);
+                complete = false;
+                break;
+            }
+            byte[] record = new byte[length];
+            buffer.get(offset + 4, record);
+            offset += 4 + length;
+            JSONObject entry;
+            try {
+                entry = new JSONObject(new String(decrypt(record), StandardCharsets.UTF_8));
+            } catch (Exception e) {
+                LOGGER.warn("Token store " + file + " has an unreadable record at offset " + (offset - 4 - length) + ". " + e);
+                complete = false;
+                continue;
+            }
+            String customer = entry.optString("customer");
+            JSONObject token = entry.optJSONObject("token");
+            if (token == null || Token.of(token).getRefreshTokenExpiry() <= now) {
+                records.remove(customer);
+                restored.remove(customer);
+            } else {
+                records.put(customer, record);
+                restored.put(customer, token);
+            }
+        }
+        position = offset;
+        liveBytes = records.values().stream().mapToLong(record -> 4L + record.length).sum();
+        return complete;
+    }
+
+    private void append(String customer, JSONObject entry) {
+        if (buffer == null || readOnly) {
+            return; // closed, or kept for a readable secret
+        }
+        try {
+            byte[] record = encrypt(entry.toString().getBytes(StandardCharsets.UTF_8));
+            ensureCapacity(4 + record.length);
+            // the length is written last, so a partial record is never read back
+            buffer.put(position + 4, record);
+            buffer.putInt(position, record.length);
+            position += 4 + record.length;
+
+            byte[] previous = entry.has("token") ? records.put(customer, record) : records.remove(customer);
+            liveBytes += (entry.has("token") ? 4 + record.length : 0) - (previous == null ? 0 : 4 + previous.length);
+            if (position > COMPACT_THRESHOLD && position > 4 * (HEADER_LENGTH + liveBytes)) {
+                compact();
+            }
+        } catch (IOException | GeneralSecurityException e) {
+            LOGGER.error("Error writing the token store " + file, e);
+        }
+    }
+
+    /**
+     * Rewrite the log with the live records only, and replace the file
+     */
+    private void compact() throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        int length = (int) (HEADER_LENGTH + liveBytes);
+        ByteBuffer compacted = ByteBuffer.allocate(length);
+        writeHeader(compacted, salt);
+        for (byte[] record : records.values()) {
+            compacted.putInt(record.length).put(record);
+        }
+        compacted.flip();
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (compacted.hasRemaining()) {
+                out.write(compacted);
+            }
+            out.force(true);
+        }
+        buffer = null;
+        channel.close();
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        position = length;
+        map(Math.max(MIN_CAPACITY, 2L * length));
+    }
+
+    private void ensureCapacity(int length) throws IOException {
+        if (position + length > buffer.capacity()) {
+            map(Math.max(2L * buffer.capacity(), position + length + MIN_CAPACITY));
+        }
+    }
+
+    private void map(long capacity) throws IOException {
+        if (capacity > Integer.MAX_VALUE) {
+            throw new IOException("Token store is full: " + file);
+        }
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    }
+
+    private byte[] encrypt(byte[] plain) throws GeneralSecurityException {
+        byte[] iv = new byte[IV_LENGTH];
+        random.nextBytes(iv);
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, iv));
+        cipher.updateAAD(salt);
+        byte[] record = new byte[IV_LENGTH + cipher.getOutputSize(plain.length)];
+        System.arraycopy(iv, 0, record, 0, IV_LENGTH);
+        cipher.doFinal(plain, 0, plain.length, record, IV_LENGTH);
+        return record;
+    }
+
+    private byte[] decrypt(byte[] record) throws GeneralSecurityException {
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, record, 0, IV_LENGTH));
+        cipher.updateAAD(salt);
+        try {
+            return cipher.doFinal(record, IV_LENGTH, record.length - IV_LENGTH);
+        } catch (AEADBadTagException e) {
+            throw new GeneralSecurityException("wrong secret or corrupt record", e);
+        }
+    }
+
+    private static SecretKey deriveKey(String secret, byte[] salt) throws IOException {
+        try {
+            PBEKeySpec spec = new PBEKeySpec(secret.toCharArray(), salt, KEY_ITERATIONS, 256);
+            byte[] encoded = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256").generateSecret(spec).getEncoded();
+            spec.clearPassword();
+            return new SecretKeySpec(encoded, "AES");
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Cannot derive the token store key", e);
+        }
+    }
+
+    private static void writeHeader(ByteBuffer target, byte[] salt) {
+        target.putInt(MAGIC).putInt(VERSION).put(salt);
+    }
+
+    private static String key(String customerNumber) {
+        return customerNumber == null ? SERVER : customerNumber;
+    }
+}
@@ -1,5 +1,8 @@
 package com.gtngroup;
 
+import com.gtngroup.jfr.MessageDispatchEvent;
+import com.gtngroup.jfr.StreamCloseEvent;
+import com.gtngroup.jfr.StreamConnectEvent;
 import com.gtngroup.util.Params;
 import jakarta.websocket.ClientEndpoint;
 import jakarta.websocket.CloseReason;
@@ -24,24 +27,19 @@ import java.net.URI;
 @ClientEndpoint
 public class MarketDataStreaming implements StreamingService {
 
+    private final Shared shared;
     private Session session;
     private WebSocketContainer container;
-    private static MarketDataStreaming self;
     private MessageListener webSocketListener;
-    private boolean waiting;
+    private volatile boolean waiting;
 
     private static final Logger LOGGER = LogManager.getLogger(Auth.class);
 
-    public MarketDataStreaming() {
-
-    }
-
-    protected static synchronized MarketDataStreaming getInstance() {
-        if (self == null) {
-            self = new MarketDataStreaming();
-        }
-
-        return self;
+    /**
+     * @param shared state of the session
+     */
+    protected MarketDataStreaming(Shared shared) {
+        this.shared = shared;
     }
 
     /**
@@ -51,14 +49,14 @@ public class MarketDataStreaming implements StreamingService {
      */
     @OnOpen
     public void onOpen(Session session) {
-        self.session = session;
+        this.session = session;
         try {
-            session.getBasicRemote().sendText(String.format("{\"token\":\"%s\"}", Shared.getInstance().getServerToken().get("accessToken")));
+            session.getBasicRemote().sendText(String.format("{\"token\":\"%s\"}", shared.getToken(null).getAccessToken()));
         } catch (IOException e) {
             LOGGER.error("Error in sending the message on open", e);
         }
-        self.webSocketListener.onOpen();
-        self.waiting = false;
+        webSocketListener.onOpen();
+        waiting = false;
     }
 
     /**
@@ -68,8 +66,12 @@ public class MarketDataStreaming implements StreamingService {
      */
     @OnMessage
     public void onMessage(String message) {
-        JSONObject sseMessage = new JSONObject(message);
-        self.webSocketListener.onMessage(sseMessage);
+        shared.getMetrics().recordStreamMessage("market-data");
+        MessageDispatchEvent event = new MessageDispatchEvent();
+        event.begin();
+        JSONObject sseMessage = shared.getJsonCodec().decode(message);
+        webSocketListener.onMessage(sseMessage);
+        event.record("market-data", message.length());
     }
 
     /**
@@ -89,8 +91,9 @@ public class MarketDataStreaming implements StreamingService {
      */
     @OnClose
     public void onClose(Session session, CloseReason closeReason) {
-        self.waiting = false;
-        self.webSocketListener.onClose(closeReason.getReasonPhrase());
+        waiting = false;
+        StreamCloseEvent.record("market-data", closeReason.getReasonPhrase());
+        webSocketListener.onClose(closeReason.getReasonPhrase());
     }
 
     /**
@@ -101,8 +104,8 @@ public class MarketDataStreaming implements StreamingService {
      */
     @OnError
     public void onError(Session session, Throwable throwable) {
-        self.waiting = false;
-        self.webSocketListener.onError(new JSONObject().put("error", throwable.toString()));
+        waiting = false;
+        webSocketListener.onError(new JSONObject().put("error", throwable.toString()));
     }
 
 
@@ -113,7 +116,7 @@ public class MarketDataStreaming implements StreamingService {
      */
     public void sendMessage(Params message) {
         try {
-            self.session.getBasicRemote().sendText(message.toString());
+            session.getBasicRemote().sendText(shared.getJsonCodec().encode(message));
         } catch (Exception e) {
             LOGGER.error("Error in sending the message", e);
         }
@@ -125,8 +128,7 @@ public class MarketDataStreaming implements StreamingService {
      * @param webSocketListener class
      */
     protected void addListener(MessageListener webSocketListener) {
-        self = new MarketDataStreaming();
-        self.webSocketListener = webSocketListener;
+        this.webSocketListener = webSocketListener;
     }
 
     public void connect(String endpoint) {
@@ -138,9 +140,9 @@ public class MarketDataStreaming implements StreamingService {
      *
      */
     public void connect(String endpoint, String events) {
-        if (self == null || self.webSocketListener == null) {
+        if (webSocketListener == null) {
             throw new RuntimeException("Websocket client class not registered. call register() method before connect()");
-        } else if (self.session != null) {
+        } else if (session != null) {
             throw new RuntimeException("Websocket Already initialised");
         }
 
@@ -148,21 +150,25 @@ public class MarketDataStreaming implements StreamingService {
             endpoint = "/" + endpoint;
         }
 
-        self.waiting = true;
+        waiting = true;
+        StreamConnectEvent event = new StreamConnectEvent();
+        event.begin();
 
-        self.container = ContainerProvider.getWebSocketContainer();
-        String uri = "wss" + Shared.getInstance().getAPIUrl().substring(5) + endpoint + "?throttle-key=" + Shared.getInstance().getAppKey();
+        container = ContainerProvider.getWebSocketContainer();
+        String uri = shared.getMarketDataUrl() + endpoint + "?throttle-key=" + shared.getAppKey();
         try {
-            self.container.connectToServer(MarketDataStreaming.class, URI.create(uri));
+            container.connectToServer(this, URI.create(uri));
             int count = 300;
-            while(self.waiting && count > 0){
+            while(waiting && count > 0){
                 Thread.sleep(100);
                 count--;
             }
+            event.record("market-data", endpoint, session != null);
         } catch (Exception e) {
             LOGGER.error("Error in sending connecting to server", e);
-            self.waiting = false;
-            self.webSocketListener.onClose("Error:" + e);
+            event.record("market-data", endpoint, false);
+            waiting = false;
+            webSocketListener.onClose("Error:" + e);
         }
     }
 
@@ -171,15 +177,13 @@ public class MarketDataStreaming implements StreamingService {
      */
     public void disconnect() {
         try {
-            self.session.close();
+            session.close();
         } catch (Exception e) {
             //ignore
         }
-        if (self != null) {
-            self.container = null;
-            self.session = null;
-            self.webSocketListener = null;
-        }
+        container = null;
+        session = null;
+        webSocketListener = null;
     }
 }
 
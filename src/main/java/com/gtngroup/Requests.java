@@ -2,7 +2,10 @@ package com.gtngroup;
 
 import com.gtngroup.exception.RequestException;
 import com.gtngroup.exception.UnknownCustomerException;
+import com.gtngroup.jfr.RequestEvent;
+import com.gtngroup.metrics.Metrics;
 import com.gtngroup.util.Params;
+import com.gtngroup.util.SingleFlight;
 import com.gtngroup.util.Utils;
 import org.json.JSONObject;
 
@@ -12,6 +15,14 @@ import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -22,9 +33,18 @@ import org.apache.logging.log4j.Logger;
 public class Requests {
 
     private static final Logger LOGGER = LogManager.getLogger(Auth.class);
-    private static final HttpClient HTTP_CLIENT = HttpClient.newBuilder()
-            .connectTimeout(Duration.ofSeconds(10))
-            .build();
+    private static final HttpRequest.BodyPublisher EMPTY_BODY = HttpRequest.BodyPublishers.ofString("");
+    private static final Pattern TOKEN_EXPIRED = Pattern.compile("(?i)token[ _-]?(has[ _-]?)?expired|expired[ _-]?token|invalid[ _-]?token");
+    private static final int MAX_ERROR_BODY = 4096;
+
+    private final Shared shared;
+
+    /**
+     * @param shared state of the session
+     */
+    protected Requests(Shared shared) {
+        this.shared = shared;
+    }
 
     /**
      * HTTP GET method
@@ -33,7 +53,7 @@ public class Requests {
      * @return JSON response
      * @throws IOException on error
      */
-    protected static JSONObject get(String endpoint, String customerNumber) throws Exception {
+    protected JSONObject get(String endpoint, String customerNumber) throws Exception {
         return get(endpoint, new Params(), customerNumber);
     }
 
@@ -45,22 +65,8 @@ public class Requests {
      * @return JSON response
      * @throws IOException on error
      */
-    protected static JSONObject get(String endpoint, Params payload, String customerNumber) throws Exception {
-
-        int count = 0;
-        StringBuilder paramString = new StringBuilder();
-        for (String key : payload.keySet()) {
-            if (count > 0) {
-                paramString.append("&");
-            } else {
-                paramString.append("?");
-            }
-            paramString.append(key);
-            paramString.append("=");
-            paramString.append(payload.get(key));
-            count++;
-        }
-        return sendRequest(endpoint + paramString, "GET", (String)null, customerNumber);
+    protected JSONObject get(String endpoint, Params payload, String customerNumber) throws Exception {
+        return join(endpoint, getAsync(endpoint, payload, customerNumber));
     }
 
     /**
@@ -71,8 +77,8 @@ public class Requests {
      * @return JSON response
      * @throws IOException on error
      */
-    protected static JSONObject post(String endpoint, Params payload, String customerNumber) throws Exception {
-        return sendRequest(endpoint, "POST", payload.toString(), customerNumber);
+    protected JSONObject post(String endpoint, Params payload, String customerNumber) throws Exception {
+        return sendRequest(endpoint, "POST", encode(payload), customerNumber);
     }
 
     /**
@@ -84,8 +90,8 @@ public class Requests {
      * @return JSON response
      * @throws IOException on error
      */
-    protected static JSONObject post(String endpoint, Params payload, String token, String customerNumber) throws Exception {
-        return sendRequest(endpoint, "POST", payload.toString(), token, customerNumber);
+    protected JSONObject post(String endpoint, Params payload, String token, String customerNumber) throws Exception {
+        return sendRequest(endpoint, "POST", encode(payload), token, customerNumber);
     }
 
     /**
@@ -97,8 +103,8 @@ public class Requests {
      * @return JSON response
      * @throws IOException on error
      */
-    protected static JSONObject patch(String endpoint, Params payload, String token, String customerNumber) throws Exception {
-        return sendRequest(endpoint, "PATCH", payload.toString(), token, customerNumber);
+    protected JSONObject patch(String endpoint, Params payload, String token, String customerNumber) throws Exception {
+        return sendRequest(endpoint, "PATCH", encode(payload), token, customerNumber);
     }
 
     /**
@@ -109,22 +115,8 @@ public class Requests {
      * @return JSON response
      * @throws IOException on error
      */
-    public static JSONObject delete(String endpoint, Params payload, String customerNumber) throws Exception {
-        int count = 0;
-        StringBuilder paramString = new StringBuilder();
-        for (String key : payload.keySet()) {
-            if (count > 0) {
-                paramString.append("&");
-            } else {
-                paramString.append("?");
-            }
-            paramString.append(key);
-            paramString.append("=");
-            paramString.append(payload.get(key));
-            count++;
-        }
-
-        return sendRequest(endpoint + paramString, "DELETE", null, null, customerNumber);
+    public JSONObject delete(String endpoint, Params payload, String customerNumber) throws Exception {
+        return sendRequest(endpoint + Utils.toQueryString(payload), "DELETE", null, null, customerNumber);
     }
 
     /**
@@ -136,7 +128,7 @@ public class Requests {
      * @return endpoint response as per the API documentation
      * @throws IOException on error
      */
-    private static JSONObject sendRequest(String endpoint, String method, String payload, String customerNumber) throws Exception {
+    private JSONObject sendRequest(String endpoint, String method, String payload, String customerNumber) throws Exception {
         return sendRequest(endpoint, method,payload, null, customerNumber);
     }
 
@@ -151,74 +143,529 @@ public class Requests {
      * @throws IOException on error
      */
 
-    private static JSONObject sendRequest(String endpoint, String method, Params payload, String token) throws Exception {
-        return sendRequest(endpoint, method, payload.toString(), token, null);
+    private JSONObject sendRequest(String endpoint, String method, Params payload, String token) throws Exception {
+        return sendRequest(endpoint, method, encode(payload), token, null);
+    }
+    private JSONObject sendRequest(String endpoint, String method, String payload, String token, String customerNumber) throws RequestException {
+        return join(endpoint, sendRequestAsync(endpoint, method, payload, token, customerNumber));
     }
-    private static JSONObject sendRequest(String endpoint, String method, String payload, String token, String customerNumber) throws RequestException {
 
-        URI url;
-        String responseBody = null;
-        int responseCode = -1;
+    /**
+     * HTTP GET method, without blocking the caller
+     *
+     * @param endpoint       to call
+     * @param payload        to send to the endpoint
+     * @param customerNumber requesting
+     * @return future of the JSON response. completes exceptionally with a RequestException on error
+     */
+    protected CompletableFuture<JSONObject> getAsync(String endpoint, Params payload, String customerNumber) {
+        String path = endpoint + Utils.toQueryString(payload);
+        ResponseCache cache = shared.getResponseCache();
+        Supplier<CompletableFuture<JSONObject>> call = cache != null && cache.isCacheable(endpoint)
+                ? () -> getCached(cache, endpoint, path, customerNumber)
+                : () -> sendRequestAsync(path, "GET", null, null, customerNumber);
 
+        SingleFlight<String, JSONObject> singleFlight = shared.getSingleFlight();
+        String token = singleFlight == null ? null : getAccessToken(customerNumber);
+        if (token == null) {
+            return settle(path, call.get());
+        }
+        // customer number keeps sessions apart. the token hash keeps a refreshed token from joining an older flight
+        String key = (customerNumber == null ? "" : customerNumber) + "|" + token.hashCode() + "|" + path;
+        return settle(path, singleFlight.execute(key, call));
+    }
 
-        if (endpoint.charAt(0) != '/') {
-            url = URI.create(Shared.getInstance().getAPIUrl() + "/" + endpoint);
-        } else {
-            url = URI.create(Shared.getInstance().getAPIUrl() + endpoint);
+    /**
+     * HTTP POST method, without blocking the caller
+     *
+     * @param endpoint       to call
+     * @param payload        to send to the endpoint
+     * @param customerNumber requesting
+     * @return future of the JSON response. completes exceptionally with a RequestException on error
+     */
+    protected CompletableFuture<JSONObject> postAsync(String endpoint, Params payload, String customerNumber) {
+        return sendRequestAsync(endpoint, "POST", encode(payload), null, customerNumber);
+    }
+
+    /**
+     * HTTP POST method with the given token, without blocking the caller
+     *
+     * @param endpoint       to call
+     * @param payload        to send to the endpoint
+     * @param token          authorisation token
+     * @param customerNumber requesting
+     * @return future of the JSON response. completes exceptionally with a RequestException on error
+     */
+    protected CompletableFuture<JSONObject> postAsync(String endpoint, Params payload, String token, String customerNumber) {
+        return sendRequestAsync(endpoint, "POST", encode(payload), token, customerNumber);
+    }
+
+    /**
+     * HTTP PATCH method, without blocking the caller
+     *
+     * @param endpoint       to call
+     * @param payload        to send to the endpoint
+     * @param customerNumber requesting
+     * @return future of the JSON response. completes exceptionally with a RequestException on error
+     */
+    protected CompletableFuture<JSONObject> patchAsync(String endpoint, Params payload, String customerNumber) {
+        return sendRequestAsync(endpoint, "PATCH", encode(payload), null, customerNumber);
+    }
+
+    /**
+     * HTTP DELETE method, without blocking the caller
+     *
+     * @param endpoint       to call
+     * @param payload        to send to the endpoint
+     * @param customerNumber requesting
+     * @return future of the JSON response. completes exceptionally with a RequestException on error
+     */
+    protected CompletableFuture<JSONObject> deleteAsync(String endpoint, Params payload, String customerNumber) {
+        return sendRequestAsync(endpoint + Utils.toQueryString(payload), "DELETE", null, null, customerNumber);
+    }
+
+    /**
+     * Send the request to the server without blocking the caller
+     *
+     * @param endpoint       to call
+     * @param method         GET, POST, PATCH, DELETE
+     * @param payload        to send with the endpoint
+     * @param token          authorisation token
+     * @param customerNumber requesting
+     * @return future of the endpoint response as per the API documentation
+     */
+    private CompletableFuture<JSONObject> sendRequestAsync(String endpoint, String method, String payload, String token, String customerNumber) {
+        return settle(endpoint, exchange(endpoint, method, payload, token, customerNumber)
+                .thenApply(response -> toResponseObject(endpoint, response)));
+    }
+
+    /**
+     * GET through the response cache. A fresh entry is returned without calling the server.
+     * A stale entry with an ETag is revalidated with If-None-Match
+     *
+     * @param cache          response cache
+     * @param endpoint       without the query string, to find the cache rule
+     * @param path           endpoint with the query string
+     * @param customerNumber requesting
+     * @return future of the endpoint response
+     */
+    private CompletableFuture<JSONObject> getCached(ResponseCache cache, String endpoint, String path, String customerNumber) {
+        String key = ResponseCache.key(shared.getAPIUrl(), shared.getInstitution(), path, customerNumber);
+        ResponseCache.Entry entry = cache.get(key);
+        if (entry != null && entry.isFresh()) {
+            return CompletableFuture.completedFuture(entry.getResponse());
         }
 
-        try {
-            HttpRequest.Builder request = HttpRequest.newBuilder()
-                    .uri(url)
-                    .header("Content-Type", "application/json")
-                    .timeout(Duration.ofSeconds(30));
+        String[] headers = entry != null && entry.getETag() != null
+                ? new String[]{"If-None-Match", entry.getETag()}
+                : new String[0];
 
-            if (token != null) {
-                request.header("Authorization", token);
-            } else {
-                try {
-                    if (customerNumber != null) {
-                        token = Shared.getInstance().getCustomerAccessToken(customerNumber);
-                    } else {
-                        token = Utils.getMapData("accessToken", Shared.getInstance().getServerToken()).toString();
+        return exchange(path, "GET", null, null, customerNumber, headers)
+                .thenApply(response -> {
+                    if (response.statusCode() == 304 && entry != null) {
+                        cache.revalidated(key, entry, endpoint);
+                        return entry.getResponse();
                     }
-                    if (token != null) {
-                        request.header("Authorization", "Bearer " + token);
-                    } else {
-                        throw new UnknownCustomerException(String.format("No valid token available for the customer %s. Try api.initCustomer() first", customerNumber));
+                    JSONObject responseObject = toResponseObject(path, response);
+                    if (response.statusCode() == 200) {
+                        cache.put(key, endpoint, responseObject, response.headers().firstValue("ETag").orElse(null));
                     }
-                } catch (UnknownCustomerException e){
-                    throw e;
-                } catch (Exception e) {
-                    //e.printStackTrace();
+                    return responseObject;
+                });
+    }
+
+    /**
+     * Send the request and receive the raw response.
+     * If the session token is rejected, i.e. it expired before its refresh, the token is refreshed and the request
+     * is sent once more
+     *
+     * @param endpoint       to call
+     * @param method         GET, POST, PATCH, DELETE
+     * @param payload        to send with the endpoint
+     * @param token          authorisation token
+     * @param customerNumber requesting
+     * @param headers        additional header names and values
+     * @return future of the response
+     */
+    private CompletableFuture<HttpResponse<JsonBodyHandler.JsonBody>> exchange(String endpoint, String method, String payload,
+                                                                                      String token, String customerNumber, String... headers) {
+        CompletableFuture<HttpResponse<JsonBodyHandler.JsonBody>> response = exchangeOnce(endpoint, method, payload, token, customerNumber, headers);
+        if (token != null || Shared.isAuthURL(endpoint)) {
+            return response; // explicit tokens and the token endpoints are not refreshed here
+        }
+        return response.thenCompose(r -> {
+            if (!isAuthFailure(r)) {
+                return CompletableFuture.completedFuture(r);
+            }
+            String rejected = r.request().headers().firstValue("Authorization").orElse("").replaceFirst("^Bearer ", "");
+            LOGGER.debug(String.format("token rejected for %s. http status %d", endpoint, r.statusCode()));
+            return shared.getAuth().refreshRejected(customerNumber, rejected).thenCompose(renewed -> {
+                if (!renewed) {
+                    return CompletableFuture.completedFuture(r);
                 }
+                recordRetry(r.request(), false);
+                return exchangeOnce(endpoint, method, payload, null, customerNumber, headers);
+            });
+        });
+    }
+
+    /**
+     * Send the request and receive the raw response, retrying as per the resilience policy of the endpoint
+     *
+     * @param endpoint       to call
+     * @param method         GET, POST, PATCH, DELETE
+     * @param payload        to send with the endpoint
+     * @param token          authorisation token
+     * @param customerNumber requesting
+     * @param headers        additional header names and values
+     * @return future of the response
+     */
+    private CompletableFuture<HttpResponse<JsonBodyHandler.JsonBody>> exchangeOnce(String endpoint, String method, String payload,
+                                                                                          String token, String customerNumber, String[] headers) {
+        HttpRequest request;
+        try {
+            HttpRequest.Builder builder = buildRequest(endpoint, method, payload, token, customerNumber);
+            for (int i = 0; i < headers.length; i += 2) {
+                builder.header(headers[i], headers[i + 1]);
             }
+            request = builder.build();
+        } catch (Exception e) {
+            LOGGER.error("Error in request " + endpoint, e);
+            return CompletableFuture.failedFuture(new RequestException("Error in request " + endpoint, -1, null));
+        }
 
-            request.header("Throttle-Key", Shared.getInstance().getAppKey());
-            request.header("User-Agent", "GTN-SDK-Java/0.9.1");
+        Resilience resilience = shared.getResilience();
+        ResiliencePolicy policy = resilience == null ? null : resilience.getPolicy(endpoint, method);
+        if (policy == null) {
+            return send(request, customerNumber);
+        }
+        return sendWithRetry(request, customerNumber, policy, 1);
+    }
 
-            if (payload != null && !payload.isEmpty()) {
-                request.method(method, HttpRequest.BodyPublishers.ofString(payload));
-            }else {
-                request.method(method, HttpRequest.BodyPublishers.ofString(""));
+    /**
+     * Send the request, retrying failed attempts as per the policy
+     *
+     * @param request        to send
+     * @param customerNumber requesting
+     * @param policy         of the endpoint
+     * @param attempt        number, starting from 1
+     * @return future of the response
+     */
+    private CompletableFuture<HttpResponse<JsonBodyHandler.JsonBody>> sendWithRetry(HttpRequest request, String customerNumber,
+                                                                                           ResiliencePolicy policy, int attempt) {
+        return sendHedged(request, customerNumber, policy).handle((response, throwable) -> {
+            if (policy.isRetryable(response, throwable)) {
+                if (attempt < policy.getMaxAttempts()) {
+                    policy.retried();
+                    recordRetry(request, false);
+                    LOGGER.debug(String.format("retrying %s, attempt %d", request.uri(), attempt + 1));
+                    return CompletableFuture.supplyAsync(() -> request, delayed(policy.getBackoffNanos(attempt, response)))
+                            .thenCompose(r -> sendWithRetry(r, customerNumber, policy, attempt + 1));
+                }
+                policy.exhausted();
             }
+            return throwable != null
+                    ? CompletableFuture.<HttpResponse<JsonBodyHandler.JsonBody>>failedFuture(throwable)
+                    : CompletableFuture.completedFuture(response);
+        }).thenCompose(response -> response);
+    }
 
-            LOGGER.debug(String.format("requesting %s for %s%n", url, customerNumber == null ? "server token": "customer " + customerNumber));
-            HttpResponse<String> response = HTTP_CLIENT.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    /**
+     * Send the request, and a second copy if the first is slower than the hedging delay of the policy.
+     * Completes with the first response, or with an error once both copies failed
+     *
+     * @param request        to send
+     * @param customerNumber requesting
+     * @param policy         of the endpoint
+     * @return future of the response
+     */
+    private CompletableFuture<HttpResponse<JsonBodyHandler.JsonBody>> sendHedged(HttpRequest request, String customerNumber,
+                                                                                        ResiliencePolicy policy) {
+        long hedgeNanos = policy.getHedgeNanos();
+        long start = System.nanoTime();
+        CompletableFuture<HttpResponse<JsonBodyHandler.JsonBody>> primary = send(request, customerNumber);
+        primary.thenRun(() -> policy.recordLatency(System.nanoTime() - start));
+        if (hedgeNanos <= 0) {
+            return primary;
+        }
 
-            responseCode = response.statusCode();
+        CompletableFuture<HttpResponse<JsonBodyHandler.JsonBody>> result = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger(1);
+        primary.whenComplete((response, throwable) -> {
+            if (throwable == null) {
+                result.complete(response);
+            } else if (pending.decrementAndGet() == 0) {
+                result.completeExceptionally(throwable);
+            }
+        });
 
-            JSONObject responseObject = new JSONObject();
-            responseObject.put("http_status", responseCode);
+        CompletableFuture.runAsync(() -> {
+            if (result.isDone() || pending.getAndIncrement() == 0) {
+                return;
+            }
+            policy.hedged();
+            recordRetry(request, true);
+            send(request, customerNumber).whenComplete((response, throwable) -> {
+                if (throwable == null) {
+                    if (result.complete(response)) {
+                        policy.hedgeWon();
+                    }
+                } else if (pending.decrementAndGet() == 0) {
+                    result.completeExceptionally(throwable);
+                }
+            });
+        }, delayed(hedgeNanos));
+        return result;
+    }
 
-            responseBody = response.body();
-            LOGGER.debug("Response --> " + response.toString());
-            responseObject.put("response", new JSONObject(responseBody));
+    /**
+     * Send a single attempt of the request, pacing it through the throttle governor if enabled
+     *
+     * @param request        to send
+     * @param customerNumber requesting
+     * @return future of the response
+     */
+    private CompletableFuture<HttpResponse<JsonBodyHandler.JsonBody>> send(HttpRequest request, String customerNumber) {
+        ThrottleGovernor governor = shared.getThrottleGovernor();
+        if (governor == null) {
+            return transmit(request, customerNumber);
+        }
 
-            return responseObject;
+        String appKey = shared.getAppKey();
+        long delay;
+        try {
+            delay = governor.acquire(appKey, customerNumber);
+        } catch (RequestException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        CompletableFuture<HttpResponse<JsonBodyHandler.JsonBody>> response;
+        if (delay > 0) {
+            response = CompletableFuture.supplyAsync(() -> request, delayed(delay))
+                    .thenCompose(r -> transmit(r, customerNumber));
+        } else {
+            response = transmit(request, customerNumber);
+        }
+        return response.whenComplete((r, throwable) -> {
+            if (r != null) {
+                governor.onResponse(appKey, r.statusCode(), r.headers());
+            }
+        });
+    }
+
+    /**
+     * Hand the request to the HTTP client, recording its metrics and flight recorder event if enabled
+     *
+     * @param request        to send
+     * @param customerNumber requesting
+     * @return future of the response
+     */
+    private CompletableFuture<HttpResponse<JsonBodyHandler.JsonBody>> transmit(HttpRequest request, String customerNumber) {
+        Metrics metrics = shared.getMetrics();
+        RequestEvent event = new RequestEvent();
+        if (!metrics.isEnabled() && !event.isEnabled()) {
+            return getHttpClient().sendAsync(request, JsonBodyHandler.INSTANCE);
+        }
+
+        String endpoint = Utils.toEndpointTemplate(request.uri().getRawPath());
+        long bytesOut = Math.max(0, request.bodyPublisher().map(HttpRequest.BodyPublisher::contentLength).orElse(0L));
+        long start = System.nanoTime();
+        metrics.inFlight(endpoint, 1);
+        event.begin();
+        return getHttpClient().sendAsync(request, JsonBodyHandler.INSTANCE).whenComplete((response, throwable) -> {
+            int status = response == null ? -1 : response.statusCode();
+            long bytesIn = response == null ? 0 : response.body().length();
+            event.record(endpoint, request.method(), customerNumber, status, bytesOut, bytesIn);
+            metrics.inFlight(endpoint, -1);
+            metrics.recordRequest(endpoint, request.method(), status, System.nanoTime() - start, bytesOut, bytesIn);
+        });
+    }
+
+    /**
+     * Check if the server rejected the access token. Small error bodies are checked for an expired token message
+     *
+     * @param response from the server
+     * @return true on 401, or an error response reporting an expired or invalid token
+     */
+    private static boolean isAuthFailure(HttpResponse<JsonBodyHandler.JsonBody> response) {
+        int status = response.statusCode();
+        if (status == 401) {
+            return true;
+        }
+        return status >= 400 && status < 500 && response.body().length() <= MAX_ERROR_BODY
+                && TOKEN_EXPIRED.matcher(response.body().toString()).find();
+    }
+
+    /**
+     * @param nanos to delay
+     * @return executor running tasks after the delay, on the session executor if any
+     */
+    private Executor delayed(long nanos) {
+        Executor executor = shared.getExecutor();
+        return executor == null
+                ? CompletableFuture.delayedExecutor(nanos, TimeUnit.NANOSECONDS)
+                : CompletableFuture.delayedExecutor(nanos, TimeUnit.NANOSECONDS, executor);
+    }
+
+    /**
+     * @param request retried or hedged
+     * @param hedge   true if a hedged copy
+     */
+    private void recordRetry(HttpRequest request, boolean hedge) {
+        Metrics metrics = shared.getMetrics();
+        if (metrics.isEnabled()) {
+            String endpoint = Utils.toEndpointTemplate(request.uri().getRawPath());
+            if (hedge) {
+                metrics.recordHedge(endpoint);
+            } else {
+                metrics.recordRetry(endpoint);
+            }
+        }
+    }
+
+    /**
+     * Complete with the plain RequestException on error, instead of a CompletionException wrapping it
+     *
+     * @param endpoint called
+     * @param stage    to settle
+     * @return future of the endpoint response
+     */
+    private static CompletableFuture<JSONObject> settle(String endpoint, CompletableFuture<JSONObject> stage) {
+        CompletableFuture<JSONObject> result = new CompletableFuture<>();
+        stage.whenComplete((response, throwable) -> {
+            if (throwable == null) {
+                result.complete(response);
+            } else {
+                result.completeExceptionally(toRequestException(endpoint, throwable));
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Wait for the response of the blocking methods
+     *
+     * @param endpoint called, for the error description
+     * @param future   of the response
+     * @return the response
+     * @throws RequestException on error
+     */
+    private static JSONObject join(String endpoint, CompletableFuture<JSONObject> future) throws RequestException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw toRequestException(endpoint, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new RequestException("Request interrupted " + endpoint, -1, null);
+        }
+    }
+
+    private static RequestException toRequestException(String endpoint, Throwable throwable) {
+        Throwable cause = throwable;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof RequestException) {
+            return (RequestException) cause;
+        }
+        LOGGER.error("Error in request " + endpoint, cause);
+        return new RequestException("Error in request " + endpoint, -1, null);
+    }
+
+    /**
+     * @return the HTTP client of the session
+     */
+    private HttpClient getHttpClient() {
+        return shared.getHttpClient();
+    }
+
+    /**
+     * Get the current access token
+     *
+     * @param customerNumber requesting, or null for the server token
+     * @return the access token, or null if not available
+     */
+    private String getAccessToken(String customerNumber) {
+        Token token = shared.getToken(customerNumber);
+        return token == null ? null : token.getAccessToken();
+    }
+
+    /**
+     * Build the HTTP request with the authorisation headers
+     *
+     * @param endpoint       to call
+     * @param method         GET, POST, PATCH, DELETE
+     * @param payload        to send with the endpoint
+     * @param token          authorisation token. the server or customer token is used if null
+     * @param customerNumber requesting
+     * @return the request builder
+     * @throws UnknownCustomerException if no token is available for the customer
+     */
+    private HttpRequest.Builder buildRequest(String endpoint, String method, String payload, String token, String customerNumber) throws UnknownCustomerException {
+        URI url = shared.getURI(endpoint);
+
+        // copy of the prebuilt Content-Type, Throttle-Key and User-Agent headers and timeout
+        HttpRequest.Builder request = shared.getRequestTemplate().copy()
+                .uri(url);
+
+        if (token != null) {
+            request.header("Authorization", token);
+        } else {
+            Token sessionToken = shared.useToken(customerNumber);
+            if (sessionToken != null && sessionToken.getAuthorization() != null) {
+                request.header("Authorization", sessionToken.getAuthorization());
+            } else if (customerNumber != null) {
+                throw new UnknownCustomerException(String.format("No valid token available for the customer %s. Try api.initCustomer() first", customerNumber));
+            }
+        }
+
+        if (payload != null && !payload.isEmpty()) {
+            request.method(method, HttpRequest.BodyPublishers.ofString(payload));
+        }else {
+            request.method(method, EMPTY_BODY);
+        }
+
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug(String.format("requesting %s for %s%n", url, customerNumber == null ? "server token" : "customer " + customerNumber));
+        }
+        return request;
+    }
+
+    /**
+     * Wrap the response in the SDK response format
+     *
+     * @param endpoint called
+     * @param response from the server
+     * @return http_status and response
+     * @throws CompletionException with a RequestException if the body is not a JSON object
+     */
+    private JSONObject toResponseObject(String endpoint, HttpResponse<JsonBodyHandler.JsonBody> response) {
+        JSONObject responseObject = new JSONObject();
+        responseObject.put("http_status", response.statusCode());
+
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Response --> " + response);
+        }
+        try {
+            responseObject.put("response", response.body().toJSONObject(shared.getJsonCodec()));
         } catch (Exception e) {
             LOGGER.error("Error in request " + endpoint, e);
-            throw new RequestException("Error in request " + endpoint, responseCode, responseBody);
+            throw new CompletionException(new RequestException("Error in request " + endpoint,
+                    response.statusCode(), response.body().toString()));
         }
+
+        return responseObject;
+    }
+
+    /**
+     * Encode the payload of POST and PATCH requests
+     *
+     * @param payload parameters
+     * @return the JSON text
+     */
+    private String encode(Params payload) {
+        return shared.getJsonCodec().encode(payload);
     }
 }
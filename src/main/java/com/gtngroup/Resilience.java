@@ -0,0 +1,94 @@
+package com.gtngroup;
+
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * Retry and hedging policies by endpoint. The most specific rule matching the endpoint applies,
+ * or the default policy if none does
+ */
+public class Resilience {
+
+    private final List<Rule> rules = new ArrayList<>();
+    private ResiliencePolicy defaultPolicy;
+
+    /**
+     * @param policy applied to endpoints without a rule, or null for none
+     * @return the resilience settings
+     */
+    public synchronized Resilience setDefault(ResiliencePolicy policy) {
+        this.defaultPolicy = policy;
+        return this;
+    }
+
+    /**
+     * Apply a policy to an endpoint and all endpoints under it
+     *
+     * @param endpoint path, i.e. /market-data/realtime/keys/data
+     * @param policy   to apply
+     * @return the resilience settings
+     */
+    public synchronized Resilience addRule(String endpoint, ResiliencePolicy policy) {
+        rules.add(new Rule(normalise(endpoint), policy));
+        rules.sort((a, b) -> b.endpoint.length() - a.endpoint.length()); // most specific first
+        return this;
+    }
+
+    /**
+     * Get the counters of all policies
+     *
+     * @return counters by endpoint rule, and of the default policy as "default"
+     */
+    public synchronized JSONObject getStats() {
+        JSONObject stats = new JSONObject();
+        for (Rule rule : rules) {
+            stats.put(rule.endpoint, rule.policy.getStats());
+        }
+        if (defaultPolicy != null) {
+            stats.put("default", defaultPolicy.getStats());
+        }
+        return stats;
+    }
+
+    /**
+     * Find the policy of a request
+     *
+     * @param endpoint with or without the query string
+     * @param method   of the request
+     * @return the policy, or null if none applies
+     */
+    protected synchronized ResiliencePolicy getPolicy(String endpoint, String method) {
+        String path = normalise(endpoint);
+        int query = path.indexOf('?');
+        if (query >= 0) {
+            path = path.substring(0, query);
+        }
+        ResiliencePolicy policy = defaultPolicy;
+        for (Rule rule : rules) {
+            if (path.startsWith(rule.endpoint) &&
+                    (path.length() == rule.endpoint.length() || path.charAt(rule.endpoint.length()) == '/')) {
+                policy = rule.policy;
+                break;
+            }
+        }
+        return policy != null && policy.appliesTo(method) ? policy : null;
+    }
+
+    private static String normalise(String endpoint) {
+        return endpoint.charAt(0) == '/' ? endpoint : "/" + endpoint;
+    }
+
+    private static class Rule {
+        private final String endpoint;
+        private final ResiliencePolicy policy;
+
+        private Rule(String endpoint, ResiliencePolicy policy) {
+            this.endpoint = endpoint;
+            this.policy = policy;
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.gtngroup;
+
+import com.gtngroup.exception.RequestException;
+import org.json.JSONObject;
+
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * Retry and hedging settings of an endpoint. Applies to GET and DELETE requests, and to
+ * POST requests only when marked idempotent.
+ * <p>
+ * Failed attempts (connection errors, timeouts and the retryable http status codes) are
+ * retried with exponential backoff and full jitter. A 429 response waits at least for its Retry-After.
+ * <p>
+ * A hedged request sends a second copy when the first has not responded within a fixed delay,
+ * or within a percentile of the recent latencies of the policy, and takes the first response.
+ * The latencies are kept per policy, so a policy shared by several endpoints, i.e. as the default or by the rule
+ * of a path prefix, hedges them all after the same delay. Give an endpoint its own policy to hedge it by its own
+ * latencies
+ */
+public class ResiliencePolicy {
+
+    private static final int LATENCY_SAMPLES = 1024;
+    private static final int MIN_LATENCY_SAMPLES = 100;
+
+    private int maxAttempts = 3;
+    private long baseBackoffMillis = 100;
+    private long maxBackoffMillis = 2_000;
+    private Set<Integer> retryStatus = new HashSet<>(Arrays.asList(429, 500, 502, 503, 504));
+    private boolean idempotentPost;
+    private long hedgeAfterMillis;
+    private double hedgePercentile;
+
+    private final long[] latencies = new long[LATENCY_SAMPLES];
+    private int latencyIndex; // next slot of the ring
+    private int latencySize; // samples held, up to LATENCY_SAMPLES
+    private int sinceSort;
+    private long percentileLatency;
+
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong exhausted = new AtomicLong();
+    private final AtomicLong hedges = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+
+    /**
+     * @param maxAttempts total number of attempts, including the first. 3 by default
+     * @return the policy
+     */
+    public ResiliencePolicy setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+        return this;
+    }
+
+    /**
+     * @param baseMillis delay before the first retry, doubled on each retry. 100 ms by default
+     * @param maxMillis  longest delay between retries. 2 seconds by default
+     * @return the policy
+     */
+    public ResiliencePolicy setBackoff(long baseMillis, long maxMillis) {
+        this.baseBackoffMillis = baseMillis;
+        this.maxBackoffMillis = maxMillis;
+        return this;
+    }
+
+    /**
+     * @param statusCodes http status codes to retry. 429, 500, 502, 503 and 504 by default
+     * @return the policy
+     */
+    public ResiliencePolicy setRetryStatus(Integer... statusCodes) {
+        this.retryStatus = new HashSet<>(Arrays.asList(statusCodes));
+        return this;
+    }
+
+    /**
+     * @param idempotentPost true if POST requests to the endpoint are safe to send more than once
+     * @return the policy
+     */
+    public ResiliencePolicy setIdempotentPost(boolean idempotentPost) {
+        this.idempotentPost = idempotentPost;
+        return this;
+    }
+
+    /**
+     * Send a second copy of requests without a response after a fixed delay
+     *
+     * @param hedgeAfterMillis delay, or 0 to disable
+     * @return the policy
+     */
+    public ResiliencePolicy setHedgeAfterMillis(long hedgeAfterMillis) {
+        this.hedgeAfterMillis = hedgeAfterMillis;
+        return this;
+    }
+
+    /**
+     * Send a second copy of requests without a response after the given percentile of the recent
+     * latencies of all the endpoints of this policy, i.e. 95. Takes effect once enough latencies are recorded
+     *
+     * @param percentile of the latencies, or 0 to disable
+     * @return the policy
+     */
+    public ResiliencePolicy setHedgePercentile(double percentile) {
+        this.hedgePercentile = percentile;
+        return this;
+    }
+
+    /**
+     * Get the policy counters
+     *
+     * @return retries, exhausted retries, hedged requests and hedged requests answered first
+     */
+    public JSONObject getStats() {
+        return new JSONObject()
+                .put("retries", retries.get())
+                .put("exhausted", exhausted.get())
+                .put("hedges", hedges.get())
+                .put("hedge_wins", hedgeWins.get());
+    }
+
+    /**
+     * @param method of the request
+     * @return true if the policy applies to the method
+     */
+    protected boolean appliesTo(String method) {
+        return "GET".equals(method) || "DELETE".equals(method) || ("POST".equals(method) && idempotentPost);
+    }
+
+    protected int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * Decide whether a failed attempt is to be retried
+     *
+     * @param response  of the attempt, or null on error
+     * @param throwable error of the attempt, or null
+     * @return true if retryable
+     */
+    protected boolean isRetryable(HttpResponse<?> response, Throwable throwable) {
+        if (throwable != null) {
+            Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+                    ? throwable.getCause() : throwable;
+            return !(cause instanceof RequestException); // rejected before sending, i.e. unknown customer or client throttle
+        }
+        return retryStatus.contains(response.statusCode());
+    }
+
+    /**
+     * Get the delay before a retry
+     *
+     * @param attempt  number of the failed attempt, starting from 1
+     * @param response of the failed attempt, or null
+     * @return delay in nanoseconds
+     */
+    protected long getBackoffNanos(int attempt, HttpResponse<?> response) {
+        long ceiling = Math.min(maxBackoffMillis, baseBackoffMillis << Math.min(attempt - 1, 20));
+        long delay = TimeUnit.MILLISECONDS.toNanos(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        if (response != null && response.statusCode() == 429) {
+            try {
+                long retryAfter = TimeUnit.SECONDS.toNanos(Long.parseLong(
+                        response.headers().firstValue("Retry-After").orElse("0").trim()));
+                delay = Math.max(delay, retryAfter);
+            } catch (NumberFormatException e) {
+                // HTTP date. use the backoff
+            }
+        }
+        return delay;
+    }
+
+    /**
+     * @return delay before hedging in nanoseconds, or 0 if not hedging
+     */
+    protected long getHedgeNanos() {
+        if (hedgeAfterMillis > 0) {
+            return TimeUnit.MILLISECONDS.toNanos(hedgeAfterMillis);
+        } else if (hedgePercentile > 0) {
+            synchronized (latencies) {
+                return latencySize >= MIN_LATENCY_SAMPLES ? percentileLatency : 0;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Record the latency of a successful attempt, to find the hedging delay
+     *
+     * @param nanos latency
+     */
+    protected void recordLatency(long nanos) {
+        if (hedgePercentile <= 0) {
+            return;
+        }
+        synchronized (latencies) {
+            latencies[latencyIndex] = nanos;
+            latencyIndex = (latencyIndex + 1) % LATENCY_SAMPLES;
+            latencySize = Math.min(LATENCY_SAMPLES, latencySize + 1);
+            if (++sinceSort >= 64 && latencySize >= MIN_LATENCY_SAMPLES) {
+                sinceSort = 0;
+                long[] sorted = Arrays.copyOf(latencies, latencySize);
+                Arrays.sort(sorted);
+                percentileLatency = sorted[(int) Math.min(sorted.length - 1, Math.ceil(hedgePercentile / 100 * sorted.length) - 1)];
+            }
+        }
+    }
+
+    protected void retried() {
+        retries.incrementAndGet();
+    }
+
+    protected void exhausted() {
+        exhausted.incrementAndGet();
+    }
+
+    protected void hedged() {
+        hedges.incrementAndGet();
+    }
+
+    protected void hedgeWon() {
+        hedgeWins.incrementAndGet();
+    }
+}
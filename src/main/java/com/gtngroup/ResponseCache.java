@@ -0,0 +1,244 @@
+package com.gtngroup;
+
+import com.gtngroup.util.Utils;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * Opt-in cache of GET responses, for reference data that rarely changes.
+ * Only endpoints with a rule are cached, each for its own time to live.
+ * Entries are keyed by the API URL, institution, endpoint, query parameters and customer, so a cache can be
+ * shared by sessions, and the least recently used entries are evicted once the cache is full.
+ * When the server sends an ETag, a stale entry is revalidated with If-None-Match
+ * instead of being fetched again.
+ * <p>
+ * Each caller gets its own copy of a cached response, which it may modify
+ */
+public class ResponseCache {
+
+    private final int maxEntries;
+    private final List<Rule> rules = new ArrayList<>();
+    private final Map<String, Entry> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong revalidations = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * @param maxEntries maximum number of responses to keep
+     */
+    public ResponseCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > ResponseCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Cache the GET responses of an endpoint and all endpoints under it
+     *
+     * @param endpoint  path, i.e. /trade/bo/v1.2.1/customer/account
+     * @param ttlMillis time to keep a response before calling the server again
+     * @return the cache
+     */
+    public synchronized ResponseCache addRule(String endpoint, long ttlMillis) {
+        rules.add(new Rule(normalise(endpoint), ttlMillis));
+        rules.sort((a, b) -> b.endpoint.length() - a.endpoint.length()); // most specific first
+        return this;
+    }
+
+    /**
+     * @return number of requests served from the cache without calling the server
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return number of cacheable requests sent to the server
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return number of stale entries confirmed by the server as not modified
+     */
+    public long getRevalidations() {
+        return revalidations.get();
+    }
+
+    /**
+     * @return number of entries evicted to make room
+     */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * @return number of cached responses
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Get the cache counters
+     *
+     * @return hits, misses, revalidations, evictions and size
+     */
+    public JSONObject getStats() {
+        return new JSONObject()
+                .put("hits", getHits())
+                .put("misses", getMisses())
+                .put("revalidations", getRevalidations())
+                .put("evictions", getEvictions())
+                .put("size", size());
+    }
+
+    /**
+     * Remove all cached responses
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * @param endpoint without the query string
+     * @return true if a rule applies to the endpoint
+     */
+    protected boolean isCacheable(String endpoint) {
+        return getTtl(endpoint) > 0;
+    }
+
+    /**
+     * @param apiUrl         of the session
+     * @param institution    of the session
+     * @param path           endpoint with the query string
+     * @param customerNumber requesting, or null for the server token
+     * @return the cache key
+     */
+    protected static String key(String apiUrl, String institution, String path, String customerNumber) {
+        return apiUrl + "|" + institution + "|" + (customerNumber == null ? "" : customerNumber) + "|" + normalise(path);
+    }
+
+    /**
+     * Find a cached response. counts a hit if fresh and a miss otherwise
+     *
+     * @param key of the request
+     * @return the entry, fresh or stale, or null if not cached
+     */
+    protected Entry get(String key) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+        }
+        if (entry != null && entry.isFresh()) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        return entry;
+    }
+
+    /**
+     * Cache a response
+     *
+     * @param key      of the request
+     * @param endpoint without the query string, to find the rule
+     * @param response to cache. copied, so the caller may still modify it
+     * @param eTag     of the response, or null
+     */
+    protected void put(String key, String endpoint, JSONObject response, String eTag) {
+        cache(key, endpoint, Utils.copy(response), eTag);
+    }
+
+    /**
+     * Extend a stale entry after the server responded with 304 Not Modified
+     *
+     * @param key      of the request
+     * @param entry    revalidated
+     * @param endpoint without the query string, to find the rule
+     */
+    protected void revalidated(String key, Entry entry, String endpoint) {
+        revalidations.incrementAndGet();
+        cache(key, endpoint, entry.response, entry.eTag);
+    }
+
+    private void cache(String key, String endpoint, JSONObject response, String eTag) {
+        Entry entry = new Entry(response, eTag, System.currentTimeMillis() + getTtl(endpoint));
+        synchronized (this) {
+            entries.put(key, entry);
+        }
+    }
+
+    private synchronized long getTtl(String endpoint) {
+        String path = normalise(endpoint);
+        for (Rule rule : rules) {
+            if (path.startsWith(rule.endpoint) &&
+                    (path.length() == rule.endpoint.length() || path.charAt(rule.endpoint.length()) == '/')) {
+                return rule.ttlMillis;
+            }
+        }
+        return 0;
+    }
+
+    private static String normalise(String endpoint) {
+        return endpoint.charAt(0) == '/' ? endpoint : "/" + endpoint;
+    }
+
+    private static class Rule {
+        private final String endpoint;
+        private final long ttlMillis;
+
+        private Rule(String endpoint, long ttlMillis) {
+            this.endpoint = endpoint;
+            this.ttlMillis = ttlMillis;
+        }
+    }
+
+    /**
+     * A cached response
+     */
+    protected static class Entry {
+        private final JSONObject response;
+        private final String eTag;
+        private final long expiresAt;
+
+        private Entry(JSONObject response, String eTag, long expiresAt) {
+            this.response = response;
+            this.eTag = eTag;
+            this.expiresAt = expiresAt;
+        }
+
+        /**
+         * @return a copy of the response, for the caller only
+         */
+        protected JSONObject getResponse() {
+            return Utils.copy(response);
+        }
+
+        protected String getETag() {
+            return eTag;
+        }
+
+        protected boolean isFresh() {
+            return System.currentTimeMillis() < expiresAt;
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.gtngroup;
+
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * Customer sessions held by the SDK, with the time each was last used by a request.
+ * The number of sessions and their idle time can be bounded, see Params.setMaxSessions() and
+ * Params.setSessionIdleTimeout(). Both are unbounded by default.
+ * <p>
+ * The last use is recorded at a resolution of a second, so busy customers do not write it on every request.
+ * <p>
+ * Sessions over the maximum are evicted in approximate LRU order (CLOCK): the sessions are queued in the order
+ * they were added, and a session used since it was last queued is given a second chance at the end of the queue
+ * instead of being evicted. No lock is taken, and no scan of all the sessions is done
+ */
+public class SessionCache {
+
+    private static final long TOUCH_RESOLUTION = 1_000;
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final Queue<Session> evictionOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicInteger removed = new AtomicInteger();
+    private final Map<EvictionReason, AtomicLong> evictions = new EnumMap<>(EvictionReason.class);
+    private volatile int maxSessions;
+    private volatile long idleTimeout;
+
+    protected SessionCache() {
+        for (EvictionReason reason : EvictionReason.values()) {
+            evictions.put(reason, new AtomicLong());
+        }
+    }
+
+    /**
+     * @param maxSessions maximum number of sessions, or 0 for no limit
+     * @param idleTimeout in millis after the last use, or 0 to keep idle sessions
+     */
+    protected void setLimits(int maxSessions, long idleTimeout) {
+        this.maxSessions = Math.max(0, maxSessions);
+        this.idleTimeout = Math.max(0, idleTimeout);
+    }
+
+    /**
+     * @param customerNumber of the session
+     * @return the token, or null if no session
+     */
+    protected Token get(String customerNumber) {
+        Session session = sessions.get(customerNumber);
+        return session == null ? null : session.token;
+    }
+
+    /**
+     * Get the token for a request of the customer, recording the use of the session
+     *
+     * @param customerNumber of the session
+     * @return the token, or null if no session
+     */
+    protected Token use(String customerNumber) {
+        Session session = sessions.get(customerNumber);
+        if (session == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        if (now - session.lastUsed >= TOUCH_RESOLUTION) {
+            session.lastUsed = now;
+            session.referenced = true;
+        }
+        return session.token;
+    }
+
+    /**
+     * Set the token of a session. A new session counts as used now, and a refreshed one keeps its last use
+     *
+     * @param customerNumber of the session
+     * @param token          of the customer
+     * @return true if the session is new
+     */
+    protected boolean put(String customerNumber, Token token) {
+        Session[] added = new Session[1];
+        sessions.compute(customerNumber, (key, session) -> {
+            if (session == null) {
+                added[0] = new Session(key, token, System.currentTimeMillis());
+                size.incrementAndGet();
+                return added[0];
+            }
+            session.token = token;
+            return session;
+        });
+        if (added[0] != null) {
+            evictionOrder.add(added[0]);
+        }
+        return added[0] != null;
+    }
+
+    /**
+     * @param customerNumber of the session
+     * @return true if a session was removed
+     */
+    protected boolean remove(String customerNumber) {
+        Session session = sessions.remove(customerNumber);
+        if (session == null) {
+            return false;
+        }
+        size.decrementAndGet();
+        session.removed = true;
+        // removed sessions are skipped when reached in the eviction queue. purge them if they outnumber the live ones
+        if (removed.incrementAndGet() > Math.max(64, size.get())) {
+            removed.set(0);
+            evictionOrder.removeIf(queued -> queued.removed);
+        }
+        return true;
+    }
+
+    /**
+     * @param customerNumber of the session
+     * @return true if the session has not been used for longer than the idle timeout
+     */
+    protected boolean isIdle(String customerNumber) {
+        long timeout = idleTimeout;
+        Session session = sessions.get(customerNumber);
+        return timeout > 0 && session != null && System.currentTimeMillis() - session.lastUsed > timeout;
+    }
+
+    /**
+     * @return true if there are more sessions than the maximum
+     */
+    protected boolean isOverCapacity() {
+        int max = maxSessions;
+        return max > 0 && size.get() > max;
+    }
+
+    /**
+     * Find the session to evict when over capacity, the oldest in the queue not used since it was queued.
+     * The sessions used are queued again, so at most two rounds of the queue are taken, and far fewer in practice
+     *
+     * @return customer number of the session to evict, or null if none
+     */
+    protected String nextEviction() {
+        int chances = size.get();
+        Session session;
+        while ((session = evictionOrder.poll()) != null) {
+            if (session.removed) {
+                continue;
+            }
+            if (session.referenced && chances-- > 0) {
+                session.referenced = false;
+                evictionOrder.add(session);
+                continue;
+            }
+            return session.customerNumber;
+        }
+        return null;
+    }
+
+    /**
+     * @param reason of an eviction done
+     */
+    protected void recordEviction(EvictionReason reason) {
+        evictions.get(reason).incrementAndGet();
+    }
+
+    /**
+     * @return customer numbers of all sessions
+     */
+    protected List<String> getCustomers() {
+        return new ArrayList<>(sessions.keySet());
+    }
+
+    /**
+     * Remove all sessions
+     */
+    protected void clear() {
+        sessions.values().forEach(session -> session.removed = true);
+        sessions.clear();
+        evictionOrder.clear();
+        size.set(0);
+        removed.set(0);
+    }
+
+    /**
+     * @return number of sessions, the limits, and the evictions by reason
+     */
+    protected JSONObject getStats() {
+        JSONObject evicted = new JSONObject();
+        evictions.forEach((reason, count) -> evicted.put(reason.getValue(), count.get()));
+        return new JSONObject()
+                .put("size", sessions.size())
+                .put("max_sessions", maxSessions)
+                .put("idle_timeout", idleTimeout)
+                .put("evicted", evicted);
+    }
+
+    private static class Session {
+
+        private final String customerNumber;
+        private volatile Token token;
+        private volatile long lastUsed;
+        private volatile boolean referenced;
+        private volatile boolean removed;
+
+        private Session(String customerNumber, Token token, long lastUsed) {
+            this.customerNumber = customerNumber;
+            this.token = token;
+            this.lastUsed = lastUsed;
+        }
+    }
+}
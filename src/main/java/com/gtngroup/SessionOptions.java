@@ -0,0 +1,94 @@
+package com.gtngroup;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * Optional features of a session backed by SDK objects, given to the GTNAPI constructor along with the params.
+ * Kept apart from Params, which holds the plain settings and does not depend on the SDK classes
+ */
+public class SessionOptions {
+
+    private ResponseCache responseCache;
+    private ThrottleGovernor throttleGovernor;
+    private Resilience resilience;
+    private MappedTokenStore tokenStore;
+    private EvictionListener evictionListener;
+
+    /**
+     * Cache GET responses of the endpoints configured in the cache. Not enabled by default
+     *
+     * @param cache to use
+     * @return the options
+     */
+    public SessionOptions setResponseCache(ResponseCache cache) {
+        this.responseCache = cache;
+        return this;
+    }
+
+    /**
+     * Pace requests on the client side, as per the Throttle-Key quota. Not enabled by default
+     *
+     * @param governor to use
+     * @return the options
+     */
+    public SessionOptions setThrottleGovernor(ThrottleGovernor governor) {
+        this.throttleGovernor = governor;
+        return this;
+    }
+
+    /**
+     * Retry and hedge idempotent requests as per the policies by endpoint. Not enabled by default
+     *
+     * @param resilience policies
+     * @return the options
+     */
+    public SessionOptions setResilience(Resilience resilience) {
+        this.resilience = resilience;
+        return this;
+    }
+
+    /**
+     * Keep the tokens in a persistent store, so a restarted service resumes the sessions still valid
+     * instead of logging in again. Not enabled by default
+     *
+     * @param store of the tokens. i.e. new MappedTokenStore(Path.of("gtn-tokens.db"), secret)
+     * @return the options
+     */
+    public SessionOptions setTokenStore(MappedTokenStore store) {
+        this.tokenStore = store;
+        return this;
+    }
+
+    /**
+     * Notify the sessions evicted as idle, by the maximum number of sessions or by an expired refresh token,
+     * i.e. to log in the customer again on its next request. see Params.setMaxSessions() and
+     * Params.setSessionIdleTimeout()
+     *
+     * @param listener of the evictions
+     * @return the options
+     */
+    public SessionOptions setEvictionListener(EvictionListener listener) {
+        this.evictionListener = listener;
+        return this;
+    }
+
+    protected ResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+    protected ThrottleGovernor getThrottleGovernor() {
+        return throttleGovernor;
+    }
+
+    protected Resilience getResilience() {
+        return resilience;
+    }
+
+    protected MappedTokenStore getTokenStore() {
+        return tokenStore;
+    }
+
+    protected EvictionListener getEvictionListener() {
+        return evictionListener;
+    }
+}
@@ -1,50 +1,87 @@
 package com.gtngroup;
 
+import com.gtngroup.codec.JsonCodec;
+import com.gtngroup.codec.JsonCodecs;
+import com.gtngroup.metrics.Metrics;
+import com.gtngroup.metrics.NoopMetrics;
+import com.gtngroup.session.ConsistentHashRing;
+import com.gtngroup.session.SessionStore;
 import com.gtngroup.util.Params;
+import com.gtngroup.util.SingleFlight;
 import com.gtngroup.util.Utils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.json.JSONObject;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.Collection;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
 
 /**
  * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
  * Created by Uditha Nagahawatta on 2025-02-20.
  */
 public class Shared {
-    private static Shared instance;
+    private static final Logger LOGGER = LogManager.getLogger(Shared.class);
+    private static final String USER_AGENT = "GTN-SDK-Java/0.9.1";
+
     private String apiUrl;
+    private String marketDataUrl;
     private String appKey;
     private String appSecret;
     private String privateKey;
     private String institution;
     private int institutionId;
     private String userId;
-    private JSONObject serverToken;
+    private volatile Token serverToken;
     private String assertion;
     private String channel;
+    private ExecutionMode executionMode = ExecutionMode.PLATFORM;
+    private Executor executor;
+    private int bulkConcurrency = 16;
+    private int refreshConcurrency = 8;
+    private JsonCodec jsonCodec = JsonCodecs.getDefault();
+    private ResponseCache responseCache;
+    private SingleFlight<String, JSONObject> singleFlight;
+    private ThrottleGovernor throttleGovernor;
+    private Resilience resilience;
+    private Metrics metrics = NoopMetrics.INSTANCE;
+    private MappedTokenStore tokenStore;
+    private SessionStore sessionStore;
+    private String nodeId;
+    private ConsistentHashRing sessionRing;
+    private boolean presignAssertion;
+    private HttpClient.Version httpVersion = HttpClient.Version.HTTP_2;
+    private Duration connectTimeout = Duration.ofSeconds(10);
+    private Duration requestTimeout = Duration.ofSeconds(30);
+    private volatile HttpClient httpClient;
+    private volatile HttpRequest.Builder requestTemplate;
+    private volatile URI baseUri;
 
-    private static Params authMap;
-    private final Map<String, JSONObject> customerMap;
-
-    private Shared() {
-        initAuthMap();
-        customerMap = Collections.synchronizedMap(new HashMap<>());
-        // Private constructor to prevent instantiation
-    }
+    private static final Params authMap = initAuthMap();
+    private static final Set<String> AUTH_PATHS = authMap.values().stream().map(Object::toString).collect(Collectors.toSet());
+    private final SessionCache sessions = new SessionCache();
+    private EvictionListener evictionListener;
+    private final Auth auth;
+    private final Requests requests;
 
-    protected static Shared getInstance() {
-        if (instance == null) {
-            instance = new Shared();
-        }
-        return instance;
+    /**
+     * State of a single session. Each GTNAPI instance has its own
+     */
+    protected Shared() {
+        requests = new Requests(this);
+        auth = new Auth(this);
     }
 
-    private static void initAuthMap() {
-        authMap = new Params()
+    private static Params initAuthMap() {
+        return new Params()
                 .add("DWM_SERVER_TOKEN", "/microinvest/v1.0/auth/server/token")
                 .add("DWM_SERVER_TOKEN_REFRESH", "/microinvest/v1.0/auth/server/refresh-token")
                 .add("DWM_CUSTOMER_TOKEN", "/microinvest/v1.0/auth/client/token")
@@ -56,11 +93,35 @@ public class Shared {
                 .add("TRADE_CUSTOMER_TOKEN_REFRESH", "/trade/auth/customer/token/refresh");
     }
 
-    protected static String getAuthURL(String code) {
-        String urlID = Shared.getInstance().getChannel() + "_" + code;
+    protected String getAuthURL(String code) {
+        String urlID = getChannel() + "_" + code;
         return authMap.getString(urlID);
     }
 
+    /**
+     * @return authentication and token refresh of the session
+     */
+    protected Auth getAuth() {
+        return auth;
+    }
+
+    /**
+     * @return REST requests of the session
+     */
+    protected Requests getRequests() {
+        return requests;
+    }
+
+    /**
+     * @param endpoint to check, with or without the leading '/' and the query string
+     * @return true for the server and customer token endpoints of both channels
+     */
+    protected static boolean isAuthURL(String endpoint) {
+        int query = endpoint.indexOf('?');
+        String path = query < 0 ? endpoint : endpoint.substring(0, query);
+        return AUTH_PATHS.contains(path.startsWith("/") ? path : "/" + path);
+    }
+
     protected void init(String apiUrl, String appKey, String appSecret, String privateKey,
                         String institution, String userId,
                         String channel, String institutionId) {
@@ -72,6 +133,299 @@ public class Shared {
         this.institutionId = Integer.parseInt(institutionId);
         this.userId = userId;
         this.channel = channel;
+        this.requestTemplate = null;
+        this.baseUri = apiUrl == null ? null : URI.create(apiUrl + "/");
+    }
+
+    /**
+     * Set how the SDK runs its HTTP clients and background workers
+     *
+     * @param executionMode PLATFORM or VIRTUAL threads
+     * @param executor      to run the HTTP clients on. the default of the execution mode is used if null
+     */
+    protected void setExecution(ExecutionMode executionMode, Executor executor) {
+        this.executionMode = executionMode;
+        this.executor = executor != null ? executor : executionMode.newExecutor();
+    }
+
+    /**
+     * @return the execution mode of the session
+     */
+    protected ExecutionMode getExecutionMode() {
+        return executionMode;
+    }
+
+    /**
+     * Get the executor of the HTTP clients and dispatching
+     *
+     * @return the executor, or null when the JDK default is used
+     */
+    protected Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * @return default maximum number of requests in flight in a bulk execution
+     */
+    protected int getBulkConcurrency() {
+        return bulkConcurrency;
+    }
+
+    /**
+     * @param bulkConcurrency default maximum number of requests in flight in a bulk execution
+     */
+    protected void setBulkConcurrency(int bulkConcurrency) {
+        this.bulkConcurrency = bulkConcurrency;
+    }
+
+    /**
+     * @return maximum number of token refreshes in parallel
+     */
+    protected int getRefreshConcurrency() {
+        return refreshConcurrency;
+    }
+
+    /**
+     * @param refreshConcurrency maximum number of token refreshes in parallel
+     */
+    protected void setRefreshConcurrency(int refreshConcurrency) {
+        this.refreshConcurrency = refreshConcurrency;
+    }
+
+    /**
+     * @return the codec of REST payloads, responses and streaming messages
+     */
+    protected JsonCodec getJsonCodec() {
+        return jsonCodec;
+    }
+
+    /**
+     * @param jsonCodec of REST payloads, responses and streaming messages
+     */
+    protected void setJsonCodec(JsonCodec jsonCodec) {
+        this.jsonCodec = jsonCodec;
+    }
+
+    /**
+     * @return the cache of GET responses, or null if not enabled
+     */
+    protected ResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+    /**
+     * @param responseCache of GET responses, or null to disable
+     */
+    protected void setResponseCache(ResponseCache responseCache) {
+        this.responseCache = responseCache;
+    }
+
+    /**
+     * @return the coalescing of identical GET requests, or null if not enabled
+     */
+    protected SingleFlight<String, JSONObject> getSingleFlight() {
+        return singleFlight;
+    }
+
+    /**
+     * @param enabled true to share in-flight identical GET requests between callers
+     */
+    protected void setRequestCoalescing(boolean enabled) {
+        this.singleFlight = enabled ? new SingleFlight<>(Utils::copy) : null;
+    }
+
+    /**
+     * @return the client side throttle, or null if not enabled
+     */
+    protected ThrottleGovernor getThrottleGovernor() {
+        return throttleGovernor;
+    }
+
+    /**
+     * @param throttleGovernor client side throttle, or null to disable
+     */
+    protected void setThrottleGovernor(ThrottleGovernor throttleGovernor) {
+        this.throttleGovernor = throttleGovernor;
+    }
+
+    /**
+     * @return the retry and hedging policies, or null if not enabled
+     */
+    protected Resilience getResilience() {
+        return resilience;
+    }
+
+    /**
+     * @param resilience retry and hedging policies, or null to disable
+     */
+    protected void setResilience(Resilience resilience) {
+        this.resilience = resilience;
+    }
+
+    /**
+     * @return the metrics of the session. never null
+     */
+    protected Metrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @param metrics of the session, or null to disable
+     */
+    protected void setMetrics(Metrics metrics) {
+        this.metrics = metrics == null ? NoopMetrics.INSTANCE : metrics;
+    }
+
+    /**
+     * @return the persistent token store, or null if not enabled
+     */
+    protected MappedTokenStore getTokenStore() {
+        return tokenStore;
+    }
+
+    /**
+     * @param tokenStore to keep the tokens in, or null to keep them in memory only
+     */
+    protected void setTokenStore(MappedTokenStore tokenStore) {
+        this.tokenStore = tokenStore;
+    }
+
+    /**
+     * @return the session store shared with the other nodes, or null if not enabled
+     */
+    protected SessionStore getSessionStore() {
+        return sessionStore;
+    }
+
+    /**
+     * Share the customer sessions with the other nodes of a cluster
+     *
+     * @param sessionStore of the customer sessions, or null to keep them to this session
+     * @param nodeId       of this node. a random id is used if null
+     * @param nodes        ids of all nodes, to spread the token refreshes over. any node refreshes if null
+     */
+    protected void setSessionStore(SessionStore sessionStore, String nodeId, Collection<String> nodes) {
+        this.sessionStore = sessionStore;
+        this.nodeId = nodeId != null ? nodeId : UUID.randomUUID().toString();
+        if (nodes != null && !nodes.isEmpty() && !nodes.contains(this.nodeId)) {
+            throw new IllegalArgumentException("Node " + this.nodeId + " is not one of the session nodes " + nodes);
+        }
+        this.sessionRing = nodes == null || nodes.isEmpty() ? null : new ConsistentHashRing(nodes);
+    }
+
+    /**
+     * @return id of this node in the cluster sharing the session store
+     */
+    protected String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * @param customerNumber of the token, or null for the server token
+     * @return true if this node refreshes the token. the server token is always refreshed by its own node
+     */
+    protected boolean isOwner(String customerNumber) {
+        ConsistentHashRing ring = sessionRing;
+        return customerNumber == null || ring == null || ring.getOwner(customerNumber).equals(nodeId);
+    }
+
+    /**
+     * @return true if the next assertion is signed in the background before the current one is due for renewal
+     */
+    protected boolean isPresignAssertion() {
+        return presignAssertion;
+    }
+
+    /**
+     * @param presignAssertion true to sign the next assertion in the background
+     */
+    protected void setPresignAssertion(boolean presignAssertion) {
+        this.presignAssertion = presignAssertion;
+    }
+
+    /**
+     * Set the HTTP client settings. Takes effect when the client is created, on the first request
+     *
+     * @param httpVersion    HTTP_2 or HTTP_1_1
+     * @param connectTimeout of new connections
+     * @param requestTimeout of REST requests, until the response headers are received
+     * @param httpClient     to use instead of creating one. other settings except the request timeout are ignored if given
+     */
+    protected void setHttpClient(HttpClient.Version httpVersion, Duration connectTimeout, Duration requestTimeout,
+                                 HttpClient httpClient) {
+        this.httpVersion = httpVersion;
+        this.connectTimeout = connectTimeout;
+        this.requestTimeout = requestTimeout;
+        this.httpClient = httpClient;
+        this.requestTemplate = null;
+    }
+
+    /**
+     * @return timeout of REST requests
+     */
+    protected Duration getRequestTimeout() {
+        return requestTimeout;
+    }
+
+    /**
+     * Get the HTTP client shared by the REST and streaming requests of the session.
+     * Created on first use as per the session settings
+     *
+     * @return the client
+     */
+    protected HttpClient getHttpClient() {
+        HttpClient client = httpClient;
+        if (client == null) {
+            synchronized (this) {
+                client = httpClient;
+                if (client == null) {
+                    HttpClient.Builder builder = HttpClient.newBuilder()
+                            .version(httpVersion)
+                            .connectTimeout(connectTimeout);
+                    if (executor != null) {
+                        builder.executor(executor);
+                    }
+                    client = builder.build();
+                    httpClient = client;
+                }
+            }
+        }
+        return client;
+    }
+
+    /**
+     * Get the request builder with the headers and timeout common to all REST requests.
+     * Callers must copy() it before adding the request specific parts
+     *
+     * @return the template
+     */
+    protected HttpRequest.Builder getRequestTemplate() {
+        HttpRequest.Builder template = requestTemplate;
+        if (template == null) {
+            template = HttpRequest.newBuilder()
+                    .header("Content-Type", "application/json")
+                    .header("Throttle-Key", appKey)
+                    .header("User-Agent", USER_AGENT)
+                    .timeout(requestTimeout);
+            requestTemplate = template;
+        }
+        return template;
+    }
+
+    /**
+     * Resolve an endpoint on the API hub. The API URL is parsed once, and only the endpoint is parsed on each call
+     *
+     * @param endpoint with or without the leading '/', and the query string
+     * @return the URI
+     */
+    protected URI getURI(String endpoint) {
+        String path = endpoint.charAt(0) == '/' ? endpoint.substring(1) : endpoint;
+        int colon = path.indexOf(':');
+        int slash = path.indexOf('/');
+        if (colon >= 0 && (slash < 0 || colon < slash)) {
+            path = "./" + path; // a colon in the first segment is not a scheme
+        }
+        return baseUri.resolve(path);
     }
 
     /**
@@ -83,6 +437,25 @@ public class Shared {
         return apiUrl;
     }
 
+    /**
+     * Get the URL of the market data websocket
+     *
+     * @return the url as set, or the API URL with the ws or wss scheme
+     */
+    protected String getMarketDataUrl() {
+        if (marketDataUrl != null) {
+            return marketDataUrl;
+        }
+        return apiUrl.startsWith("http://") ? "ws" + apiUrl.substring(4) : "wss" + apiUrl.substring(5);
+    }
+
+    /**
+     * @param marketDataUrl of the market data websocket, or null to derive it from the API URL
+     */
+    protected void setMarketDataUrl(String marketDataUrl) {
+        this.marketDataUrl = marketDataUrl;
+    }
+
     /**
      * Get the App key assigned to the institution
      *
@@ -138,10 +511,42 @@ public class Shared {
     /**
      * Get the server token for the session
      *
-     * @return the server token
+     * @return a copy of the server token
      */
     protected JSONObject getServerToken() {
-        return serverToken;
+        Token token = serverToken;
+        return token == null ? null : token.getResponse();
+    }
+
+    /**
+     * Get the parsed token of a customer or the server
+     *
+     * @param customerNumber of the token, or null for the server token
+     * @return the token, or null if not logged in
+     */
+    protected Token getToken(String customerNumber) {
+        if (customerNumber == null) {
+            return serverToken;
+        }
+        Token token = sessions.get(customerNumber);
+        if (token == null && sessionStore != null) {
+            token = auth.loadSession(customerNumber); // logged in by another node
+        }
+        return token;
+    }
+
+    /**
+     * Get the token for a request, recording the use of the customer session
+     *
+     * @param customerNumber requesting, or null for the server token
+     * @return the token, or null if not logged in
+     */
+    protected Token useToken(String customerNumber) {
+        if (customerNumber == null) {
+            return serverToken;
+        }
+        Token token = sessions.use(customerNumber);
+        return token != null ? token : getToken(customerNumber);
     }
 
     /**
@@ -168,7 +573,24 @@ public class Shared {
      * @param serverToken object
      */
     protected void setServerToken(JSONObject serverToken) {
-        this.serverToken = serverToken;
+        this.serverToken = serverToken == null ? null : Token.of(serverToken);
+        if (tokenStore != null && serverToken != null) {
+            tokenStore.put(null, serverToken);
+        }
+    }
+
+    /**
+     * Set a token read from the token store or the session store, without writing it back
+     *
+     * @param customerNumber of the token, or null for the server token
+     * @param token          as stored
+     */
+    protected void restoreToken(String customerNumber, JSONObject token) {
+        if (customerNumber == null) {
+            serverToken = Token.of(token);
+        } else {
+            putSession(customerNumber, Token.of(token));
+        }
     }
 
     /**
@@ -181,10 +603,11 @@ public class Shared {
     /**
      * Get the token of a customer already logged in
      * @param customerNumber in request
-     * @return the token
+     * @return a copy of the token
      */
     protected JSONObject getCustomerToken(String customerNumber) {
-        return customerMap.get(customerNumber);
+        Token token = customerNumber == null ? null : sessions.get(customerNumber);
+        return token == null ? null : token.getResponse();
     }
 
     /**
@@ -193,7 +616,13 @@ public class Shared {
      * @param token of the customer
      */
     protected void setCustomerToken(String customerNumber, JSONObject token) {
-        customerMap.put(customerNumber, token);
+        putSession(customerNumber, Token.of(token));
+        if (tokenStore != null) {
+            tokenStore.put(customerNumber, token);
+        }
+        if (sessionStore != null) {
+            sessionStore.put(customerNumber, token);
+        }
     }
 
     /**
@@ -202,11 +631,8 @@ public class Shared {
      * @return the access token
      */
     protected String getCustomerAccessToken(String customerNumber) {
-        try {
-            return Utils.getMapData("accessToken", customerMap.get(customerNumber)).toString();
-        } catch (Exception e) {
-            return null;
-        }
+        Token token = customerNumber == null ? null : sessions.get(customerNumber);
+        return token == null ? null : token.getAccessToken();
     }
 
     /**
@@ -215,11 +641,8 @@ public class Shared {
      * @return the access token
      */
     protected String getCustomerRefreshToken(String customerNumber) {
-        try {
-            return Utils.getMapData("refreshToken", customerMap.get(customerNumber)).toString();
-        } catch (Exception e) {
-            return null;
-        }
+        Token token = customerNumber == null ? null : sessions.get(customerNumber);
+        return token == null ? null : token.getRefreshToken();
     }
 
     /**
@@ -227,23 +650,101 @@ public class Shared {
      * @param customerNumber to remove
      */
     protected void removeCustomer(String customerNumber) {
-        customerMap.remove(customerNumber);
+        if (customerNumber != null && sessions.remove(customerNumber)) {
+            if (tokenStore != null) {
+                tokenStore.remove(customerNumber);
+            }
+            if (sessionStore != null) {
+                sessionStore.remove(customerNumber);
+            }
+        }
+    }
+
+
+    /**
+     * Drop a customer session, and notify the eviction listener. The refresh of the token is cancelled, and the
+     * token is removed from the token store. It is kept in the session store for the other nodes, unless expired
+     *
+     * @param customerNumber to evict
+     * @param reason         of the eviction
+     * @return true if evicted, false if there was no session
+     */
+    protected boolean evictCustomer(String customerNumber, EvictionReason reason) {
+        if (customerNumber == null || !sessions.remove(customerNumber)) {
+            return false;
+        }
+        auth.cancelRefresh(customerNumber);
+        if (tokenStore != null) {
+            tokenStore.remove(customerNumber);
+        }
+        if (sessionStore != null && reason == EvictionReason.EXPIRED) {
+            sessionStore.remove(customerNumber);
+        }
+        sessions.recordEviction(reason);
+        metrics.recordSessionEviction(reason.getValue());
+        EvictionListener listener = evictionListener;
+        if (listener != null) {
+            try {
+                listener.onEvicted(customerNumber, reason);
+            } catch (Exception e) {
+                LOGGER.error("Error in the eviction listener of customer " + customerNumber, e);
+            }
+        }
+        return true;
     }
 
+    /**
+     * @param customerNumber of the session
+     * @return true if the session has not been used by a request for longer than the idle timeout
+     */
+    protected boolean isIdle(String customerNumber) {
+        return customerNumber != null && sessions.isIdle(customerNumber);
+    }
+
+    /**
+     * Set the token of a customer session. A new session exceeding the maximum evicts one session, about the least
+     * recently used, so concurrent logins evict one session each
+     */
+    private void putSession(String customerNumber, Token token) {
+        if (sessions.put(customerNumber, token) && sessions.isOverCapacity()) {
+            String evicted;
+            do {
+                evicted = sessions.nextEviction();
+            } while (evicted != null && !evictCustomer(evicted, EvictionReason.SIZE));
+        }
+    }
+
+    /**
+     * @param maxSessions       maximum number of customer sessions, or 0 for no limit
+     * @param idleTimeout       in millis after the last request of a customer, or 0 to keep idle sessions
+     * @param evictionListener  to notify of the sessions dropped, or null
+     */
+    protected void setSessionLimits(int maxSessions, long idleTimeout, EvictionListener evictionListener) {
+        sessions.setLimits(maxSessions, idleTimeout);
+        this.evictionListener = evictionListener;
+    }
+
+    /**
+     * @return number of customer sessions, the limits, and the evictions by reason
+     */
+    protected JSONObject getSessionCacheStats() {
+        return sessions.getStats();
+    }
 
     /**
      * list all active customer numbers
      * @return list of customer numbers
      */
-    protected synchronized List<String> getActiveCustomers() {
-        return new ArrayList<>(customerMap.keySet());
+    protected List<String> getActiveCustomers() {
+        return sessions.getCustomers();
     }
 
     /**
-     * remove all customers in the session
+     * remove all customers in the session. tokens in the token store and the session store are kept for the
+     * next session and the other nodes
      */
     protected void removeAllCustomers() {
-        customerMap.clear();
+        sessions.clear();
     }
 }
 
@@ -0,0 +1,325 @@
+package com.gtngroup;
+
+import com.gtngroup.exception.RequestException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.json.JSONObject;
+
+import java.net.http.HttpHeaders;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * Client side pacing of requests, with a token bucket per app key (Throttle-Key) and
+ * optional sub-limits per customer.
+ * The app key bucket adapts to the server: it pauses for the Retry-After period of a 429 response
+ * and halves its rate, recovering gradually on successful responses. The rate limit headers
+ * (RateLimit-Remaining/Reset or X-RateLimit-Remaining/Reset) cap the available permits.
+ * <p>
+ * When no permit is available, the request is either queued until one is, or rejected
+ * with a RequestException of status 429, as per the policy
+ */
+public class ThrottleGovernor {
+
+    public enum Policy {
+        QUEUE,
+        FAIL_FAST
+    }
+
+    private static final Logger LOGGER = LogManager.getLogger(ThrottleGovernor.class);
+    private static final long SWEEP_INTERVAL = TimeUnit.SECONDS.toNanos(60);
+
+    private final double permitsPerSecond;
+    private final double burst;
+    private double customerPermitsPerSecond;
+    private double customerBurst;
+    private Policy policy = Policy.QUEUE;
+    private long maxQueueMillis = 10_000;
+
+    private final ConcurrentHashMap<String, Bucket> appBuckets = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Bucket> customerBuckets = new ConcurrentHashMap<>();
+
+    private final AtomicLong nextSweep = new AtomicLong(System.nanoTime() + SWEEP_INTERVAL);
+    private final AtomicLong delayed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong serverThrottled = new AtomicLong();
+
+    /**
+     * @param permitsPerSecond sustained request rate of an app key
+     * @param burst            number of requests allowed at once after an idle period
+     */
+    public ThrottleGovernor(double permitsPerSecond, int burst) {
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+    }
+
+    /**
+     * Limit the requests of each customer, in addition to the app key limit
+     *
+     * @param permitsPerSecond sustained request rate of a customer
+     * @param burst            number of requests allowed at once after an idle period
+     * @return the governor
+     */
+    public ThrottleGovernor setCustomerLimit(double permitsPerSecond, int burst) {
+        this.customerPermitsPerSecond = permitsPerSecond;
+        this.customerBurst = burst;
+        return this;
+    }
+
+    /**
+     * @param policy QUEUE (default) to wait for a permit, or FAIL_FAST to reject the request
+     * @return the governor
+     */
+    public ThrottleGovernor setPolicy(Policy policy) {
+        this.policy = policy;
+        return this;
+    }
+
+    /**
+     * @param maxQueueMillis longest wait for a permit when queuing. longer waits are rejected. 10 seconds by default
+     * @return the governor
+     */
+    public ThrottleGovernor setMaxQueueMillis(long maxQueueMillis) {
+        this.maxQueueMillis = maxQueueMillis;
+        return this;
+    }
+
+    /**
+     * Get the governor counters
+     *
+     * @return delayed and rejected requests, 429 responses from the server, and customers being paced
+     */
+    public JSONObject getStats() {
+        return new JSONObject()
+                .put("delayed", delayed.get())
+                .put("rejected", rejected.get())
+                .put("server_throttled", serverThrottled.get())
+                .put("customer_buckets", customerBuckets.size());
+    }
+
+    /**
+     * Take a permit for a request
+     *
+     * @param appKey         of the request
+     * @param customerNumber requesting, or null for the server token
+     * @return nanoseconds to wait before sending the request
+     * @throws RequestException if the request is rejected
+     */
+    protected long acquire(String appKey, String customerNumber) throws RequestException {
+        long now = System.nanoTime();
+        Bucket appBucket = appBuckets.computeIfAbsent(appKey, k -> new Bucket(permitsPerSecond, burst, now));
+        Bucket customerBucket = customerNumber == null || customerPermitsPerSecond <= 0
+                ? null
+                : customerBuckets.computeIfAbsent(customerNumber, k -> new Bucket(customerPermitsPerSecond, customerBurst, now));
+        if (customerBucket != null) {
+            sweep(now);
+        }
+
+        // each bucket checks and reserves atomically. the app permit is returned if the customer bucket rejects
+        long maxWait = policy == Policy.FAIL_FAST ? 0 : TimeUnit.MILLISECONDS.toNanos(maxQueueMillis);
+        long wait = appBucket.tryReserve(now, maxWait);
+        if (wait >= 0 && customerBucket != null) {
+            long customerWait = customerBucket.tryReserve(now, maxWait);
+            if (customerWait < 0) {
+                appBucket.cancel();
+            }
+            wait = customerWait < 0 ? customerWait : Math.max(wait, customerWait);
+        }
+        if (wait < 0) {
+            rejected.incrementAndGet();
+            throw new RequestException("Request rejected by the client throttle", 429,
+                    String.format("No permit available for %d ms", TimeUnit.NANOSECONDS.toMillis(-wait)));
+        }
+
+        if (wait > 0) {
+            delayed.incrementAndGet();
+        }
+        return wait;
+    }
+
+    /**
+     * Drop the buckets of customers idle long enough for the bucket to refill, at most once a minute.
+     * A full bucket is the same as a new one, so the customer is paced as before if it returns
+     *
+     * @param now current time in nanos
+     */
+    private void sweep(long now) {
+        long next = nextSweep.get();
+        if (now - next < 0 || !nextSweep.compareAndSet(next, now + SWEEP_INTERVAL)) {
+            return;
+        }
+        customerBuckets.values().removeIf(bucket -> bucket.isIdle(now));
+    }
+
+    /**
+     * Adapt the app key bucket to the response of the server
+     *
+     * @param appKey  of the request
+     * @param status  http status of the response
+     * @param headers of the response
+     */
+    protected void onResponse(String appKey, int status, HttpHeaders headers) {
+        Bucket bucket = appBuckets.get(appKey);
+        if (bucket == null) {
+            return;
+        }
+        long now = System.nanoTime();
+
+        if (status == 429) {
+            serverThrottled.incrementAndGet();
+            long retryAfter = parseRetryAfter(headers.firstValue("Retry-After"));
+            LOGGER.debug(String.format("Throttled by the server. pausing %d ms", TimeUnit.NANOSECONDS.toMillis(retryAfter)));
+            bucket.throttled(now, now + (retryAfter > 0 ? retryAfter : TimeUnit.SECONDS.toNanos(1)));
+            return;
+        }
+
+        Optional<String> remaining = headers.firstValue("RateLimit-Remaining")
+                .or(() -> headers.firstValue("X-RateLimit-Remaining"));
+        if (remaining.isPresent()) {
+            try {
+                long permits = Long.parseLong(remaining.get().trim());
+                long reset = parseReset(headers.firstValue("RateLimit-Reset")
+                        .or(() -> headers.firstValue("X-RateLimit-Reset")));
+                bucket.limit(now, permits, reset);
+            } catch (NumberFormatException e) {
+                // ignore malformed headers
+            }
+        }
+
+        if (status < 400) {
+            bucket.recover();
+        }
+    }
+
+    /**
+     * @param value seconds or an HTTP date
+     * @return nanoseconds to wait, or 0 if not available
+     */
+    private static long parseRetryAfter(Optional<String> value) {
+        if (value.isEmpty()) {
+            return 0;
+        }
+        String retryAfter = value.get().trim();
+        try {
+            return TimeUnit.SECONDS.toNanos(Long.parseLong(retryAfter));
+        } catch (NumberFormatException e) {
+            try {
+                long millis = ZonedDateTime.parse(retryAfter, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli()
+                        - System.currentTimeMillis();
+                return TimeUnit.MILLISECONDS.toNanos(Math.max(0, millis));
+            } catch (Exception ex) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * @param value seconds until the reset, or the reset time in epoch seconds
+     * @return nanoseconds until the reset, or 0 if not available
+     */
+    private static long parseReset(Optional<String> value) {
+        if (value.isEmpty()) {
+            return 0;
+        }
+        long seconds = Long.parseLong(value.get().trim());
+        if (seconds > 1_000_000_000L) { // epoch seconds
+            seconds = seconds - System.currentTimeMillis() / 1000;
+        }
+        return TimeUnit.SECONDS.toNanos(Math.max(0, seconds));
+    }
+
+    /**
+     * Token bucket. Reservations may take the bucket below zero, which queues the
+     * following requests behind them. The bucket does not refill while paused, so the requests
+     * queued during a pause are spread at the bucket rate after it, instead of all sent when it ends
+     */
+    private static class Bucket {
+        private final double maxRate;
+        private final double capacity;
+        private double rate;
+        private double tokens;
+        private long last;
+        private long pausedUntil;
+
+        private Bucket(double rate, double capacity, long now) {
+            this.maxRate = rate;
+            this.rate = rate;
+            this.capacity = capacity;
+            this.tokens = capacity;
+            this.last = now; // not a later clock, which would count as a pause of the first request
+            this.pausedUntil = now;
+        }
+
+        /**
+         * Reserve a permit if available within the given wait
+         *
+         * @return nanoseconds to wait for the permit, or the negated wait if longer than allowed and not reserved
+         */
+        private synchronized long tryReserve(long now, long maxWait) {
+            refill(now);
+            long wait = Math.max(0, pausedUntil - now) + (tokens >= 1 ? 0 : (long) ((1 - tokens) / rate * 1e9));
+            if (wait > maxWait) {
+                return -Math.max(1, wait);
+            }
+            tokens -= 1;
+            return wait;
+        }
+
+        /**
+         * @return true if full and not paused, so no different from a new bucket
+         */
+        private synchronized boolean isIdle(long now) {
+            refill(now);
+            return tokens >= capacity && now - pausedUntil >= 0;
+        }
+
+        /**
+         * Return a permit reserved for a request not sent
+         */
+        private synchronized void cancel() {
+            tokens = Math.min(capacity, tokens + 1);
+        }
+
+        private synchronized void throttled(long now, long until) {
+            refill(now);
+            pausedUntil = later(pausedUntil, until);
+            rate = Math.max(maxRate / 10, rate / 2);
+            tokens = Math.min(tokens, 0);
+        }
+
+        private synchronized void limit(long now, long remaining, long reset) {
+            refill(now);
+            tokens = Math.min(tokens, remaining);
+            if (remaining == 0 && reset > 0) {
+                pausedUntil = later(pausedUntil, now + reset);
+            }
+        }
+
+        private synchronized void recover() {
+            if (rate < maxRate) {
+                rate = Math.min(maxRate, rate + maxRate / 100);
+            }
+        }
+
+        private void refill(long now) {
+            long from = later(last, pausedUntil); // no permits accrue during a pause
+            if (now - from > 0) {
+                tokens = Math.min(capacity, tokens + (now - from) * rate / 1e9);
+            }
+            last = later(last, now);
+        }
+
+        /**
+         * @return the later of two System.nanoTime() values, which may be negative or wrap around
+         */
+        private static long later(long a, long b) {
+            return b - a > 0 ? b : a;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.gtngroup;
+
+import com.gtngroup.util.Utils;
+import org.json.JSONObject;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * Immutable token of the server or a customer, parsed once when received.
+ * A refresh replaces the whole token, so readers never see a mix of the old and new values.
+ * The token response is copied in and out, so it cannot be changed through the token either
+ */
+public final class Token {
+
+    private final String accessToken;
+    private final String refreshToken;
+    private final long accessTokenExpiry;
+    private final long refreshTokenExpiry;
+    private final String authorization;
+    private final JSONObject response;
+
+    private Token(String accessToken, String refreshToken, long accessTokenExpiry, long refreshTokenExpiry, JSONObject response) {
+        this.accessToken = accessToken;
+        this.refreshToken = refreshToken;
+        this.accessTokenExpiry = accessTokenExpiry;
+        this.refreshTokenExpiry = refreshTokenExpiry;
+        this.authorization = accessToken == null ? null : "Bearer " + accessToken;
+        this.response = response;
+    }
+
+    /**
+     * Parse the token response of either channel
+     *
+     * @param response of the token or token refresh endpoint. copied, so the caller may still modify it
+     * @return the token
+     */
+    protected static Token of(JSONObject response) {
+        return new Token(response.optString("accessToken", null),
+                response.optString("refreshToken", null),
+                response.has("accessTokenExpiresAt") ? response.optLong("accessTokenExpiresAt") : response.optLong("tokenExpiry"), // DWM
+                response.has("refreshTokenExpiresAt") ? response.optLong("refreshTokenExpiresAt") : response.optLong("refreshTokenExpiry"), // DWM
+                Utils.copy(response));
+    }
+
+    /**
+     * @return the access token
+     */
+    public String getAccessToken() {
+        return accessToken;
+    }
+
+    /**
+     * @return the refresh token
+     */
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+
+    /**
+     * @return expiry of the access token in epoch millis
+     */
+    public long getAccessTokenExpiry() {
+        return accessTokenExpiry;
+    }
+
+    /**
+     * @return expiry of the refresh token in epoch millis
+     */
+    public long getRefreshTokenExpiry() {
+        return refreshTokenExpiry;
+    }
+
+    /**
+     * @return the Authorization header value, "Bearer " and the access token
+     */
+    public String getAuthorization() {
+        return authorization;
+    }
+
+    /**
+     * @return a copy of the token response as received
+     */
+    protected JSONObject getResponse() {
+        return Utils.copy(response);
+    }
+}
@@ -0,0 +1,262 @@
+package com.gtngroup;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.json.JSONObject;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * Refreshes each access token shortly before its expiry, in the order of expiry.
+ * Refreshes are due 5 seconds ahead of the expiry plus a jitter of up to 10% of the remaining lifetime
+ * (at most 10 seconds), which spreads tokens issued together, i.e. by a bulk login.
+ * A single thread waits for the next due token, and up to the given number of refreshes run in parallel,
+ * on workers of the scheduler. Refreshes block on their HTTP calls, so they never share the executor of the HTTP client.
+ * A failed refresh is retried after 5 seconds while the token is still held.
+ * With a session store shared by several nodes, a node refreshes the customers it owns as above, and the
+ * others only 2 seconds before the expiry, taking the token refreshed by the owner from the store by then
+ */
+public class TokenRefreshScheduler {
+
+    private static final Logger LOGGER = LogManager.getLogger(TokenRefreshScheduler.class);
+
+    private static final long REFRESH_AHEAD = 5_000;
+    private static final long TAKEOVER_AHEAD = 2_000;
+    private static final long MAX_JITTER = 10_000;
+    private static final long RETRY_DELAY = 5_000;
+    private static final String SERVER = "";
+
+    private final DelayQueue<Entry> queue = new DelayQueue<>();
+    private final Map<String, Entry> scheduled = new ConcurrentHashMap<>();
+    private final Shared shared;
+    private final Function<String, CompletableFuture<Boolean>> refresher;
+    private final Semaphore permits;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong refreshed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong maxLag = new AtomicLong();
+    private ExecutorService ownExecutor;
+    private volatile Executor executor;
+    private Thread thread;
+    private volatile boolean active;
+
+    /**
+     * @param shared      state of the session
+     * @param refresher   refreshing the token of a customer, or the server token if null, on the workers of the
+     *                    scheduler. completes with false on failure
+     * @param concurrency maximum number of refreshes in parallel
+     */
+    protected TokenRefreshScheduler(Shared shared, Function<String, CompletableFuture<Boolean>> refresher, int concurrency) {
+        this.shared = shared;
+        this.refresher = refresher;
+        this.permits = new Semaphore(Math.max(1, concurrency));
+    }
+
+    /**
+     * Start the scheduler thread
+     */
+    protected synchronized void start() {
+        if (active) {
+            return;
+        }
+        active = true;
+        // not the executor of the session: the HTTP client runs on it, and the workers block on HTTP calls
+        Executor virtual = shared.getExecutionMode().newExecutor();
+        if (virtual instanceof ExecutorService) {
+            ownExecutor = (ExecutorService) virtual;
+        } else {
+            ownExecutor = Executors.newFixedThreadPool(permits.availablePermits(), runnable -> {
+                Thread worker = new Thread(runnable, "GTN Token Refresh Worker");
+                worker.setDaemon(true);
+                return worker;
+            });
+        }
+        executor = ownExecutor;
+        thread = shared.getExecutionMode().newThread("GTN Token Refresh", this::run);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * @return the workers of the refreshes
+     */
+    protected Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Stop the scheduler and forget all tokens
+     */
+    protected synchronized void stop() {
+        active = false;
+        if (thread != null) {
+            thread.interrupt();
+        }
+        if (ownExecutor != null) {
+            ownExecutor.shutdown(); // refreshes in progress complete
+            ownExecutor = null;
+        }
+        queue.clear();
+        scheduled.clear();
+    }
+
+    /**
+     * Schedule the refresh of a token, replacing any refresh already scheduled for it
+     *
+     * @param customerNumber of the token, or null for the server token
+     * @param token          with the access token expiry
+     */
+    protected void schedule(String customerNumber, Token token) {
+        long expiry = token.getAccessTokenExpiry();
+        long now = System.currentTimeMillis();
+        long jitter = Math.min(MAX_JITTER, Math.max(0, (expiry - now) / 10));
+        long due = shared.isOwner(customerNumber)
+                ? expiry - REFRESH_AHEAD - (jitter > 0 ? ThreadLocalRandom.current().nextLong(jitter) : 0)
+                : expiry - TAKEOVER_AHEAD;
+        schedule(customerNumber, Math.max(now, due));
+    }
+
+    /**
+     * @param customerNumber of the token, or null for the server token
+     * @param due            time of the refresh
+     */
+    private void schedule(String customerNumber, long due) {
+        if (!active) {
+            return;
+        }
+        Entry entry = new Entry(customerNumber, due);
+        Entry previous = scheduled.put(key(customerNumber), entry);
+        if (previous != null) {
+            previous.cancelled = true;
+        }
+        queue.add(entry);
+    }
+
+    /**
+     * Stop refreshing a token, i.e. on logout of the customer
+     *
+     * @param customerNumber of the token, or null for the server token
+     */
+    protected void cancel(String customerNumber) {
+        Entry entry = scheduled.remove(key(customerNumber));
+        if (entry != null) {
+            entry.cancelled = true; // dropped when taken from the queue
+        }
+    }
+
+    /**
+     * @return tokens scheduled, refreshes in progress, refreshed and failed counts, and the highest lag in millis
+     */
+    protected JSONObject getStats() {
+        return new JSONObject()
+                .put("scheduled", scheduled.size())
+                .put("in_flight", inFlight.get())
+                .put("refreshed", refreshed.get())
+                .put("failed", failed.get())
+                .put("max_lag", maxLag.get());
+    }
+
+    private void run() {
+        while (active) {
+            try {
+                Entry entry = queue.take();
+                if (entry.cancelled) {
+                    continue;
+                }
+                permits.acquire();
+                if (entry.cancelled || !active) {
+                    permits.release();
+                    continue;
+                }
+                long lag = System.currentTimeMillis() - entry.due;
+                maxLag.accumulateAndGet(lag, Math::max);
+                shared.getMetrics().recordTokenRefreshLag(type(entry.customerNumber), lag * 1_000_000);
+                inFlight.incrementAndGet();
+                refresh(entry);
+            } catch (InterruptedException e) {
+                break;
+            } catch (Exception e) {
+                LOGGER.error("Error scheduling the token refresh", e);
+            }
+        }
+    }
+
+    private void refresh(Entry entry) {
+        CompletableFuture<Boolean> refresh;
+        try {
+            refresh = refresher.apply(entry.customerNumber);
+        } catch (Exception e) {
+            refresh = CompletableFuture.failedFuture(e);
+        }
+        refresh.whenComplete((success, throwable) -> {
+            if (throwable != null) {
+                LOGGER.error("Error refreshing the " + type(entry.customerNumber) + " token", throwable);
+            }
+            inFlight.decrementAndGet();
+            permits.release();
+            refreshed(entry, throwable == null && Boolean.TRUE.equals(success));
+        });
+    }
+
+    private void refreshed(Entry entry, boolean success) {
+        // the refresh may have logged out the customer, or a newer refresh may be scheduled already
+        if (entry.cancelled || scheduled.get(key(entry.customerNumber)) != entry) {
+            return;
+        }
+        Token token = shared.getToken(entry.customerNumber);
+        if (token == null) {
+            scheduled.remove(key(entry.customerNumber), entry);
+        } else if (success) {
+            refreshed.incrementAndGet();
+            schedule(entry.customerNumber, token);
+        } else {
+            failed.incrementAndGet();
+            schedule(entry.customerNumber, System.currentTimeMillis() + RETRY_DELAY);
+        }
+    }
+
+    private static String key(String customerNumber) {
+        return customerNumber == null ? SERVER : customerNumber;
+    }
+
+    private static String type(String customerNumber) {
+        return customerNumber == null ? "server" : "customer";
+    }
+
+    private static class Entry implements Delayed {
+
+        private final String customerNumber;
+        private final long due;
+        private volatile boolean cancelled;
+
+        private Entry(String customerNumber, long due) {
+            this.customerNumber = customerNumber;
+            this.due = due;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(due - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(due, ((Entry) other).due);
+        }
+    }
+}
@@ -1,10 +1,12 @@
 package com.gtngroup;
 
+import com.gtngroup.jfr.MessageDispatchEvent;
+import com.gtngroup.jfr.StreamCloseEvent;
+import com.gtngroup.jfr.StreamConnectEvent;
 import com.gtngroup.util.Params;
 import org.json.JSONObject;
 
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
@@ -16,34 +18,30 @@ import java.util.stream.Stream;
  */
 public class TradeStreaming implements StreamingService{
 
-    private static TradeStreaming self;
+    private final Shared shared;
     private MessageListener webSocketListener;
     private Stream<String> linesInResponse;
-    private static final HttpClient HTTP_CLIENT = HttpClient.newBuilder()
-            .connectTimeout(Duration.ofSeconds(10))
-            .build();
 
 
-    private TradeStreaming() {
-    }
-
-
-    protected static synchronized TradeStreaming getInstance() {
-        if (self == null) {
-            self = new TradeStreaming();
-        }
-
-        return self;
+    /**
+     * @param shared state of the session
+     */
+    protected TradeStreaming(Shared shared) {
+        this.shared = shared;
     }
 
-    private static void onMessage(String message) {
+    private void onMessage(String message) {
         if (message.startsWith("data:")) {
-            JSONObject messageObj = new JSONObject(message.substring(5));
+            shared.getMetrics().recordStreamMessage("trade");
+            MessageDispatchEvent event = new MessageDispatchEvent();
+            event.begin();
+            JSONObject messageObj = shared.getJsonCodec().decode(message.substring(5));
             if (messageObj.getString("event").equals("ERROR")) {
-                self.webSocketListener.onError(messageObj);
+                webSocketListener.onError(messageObj);
             } else {
-                self.webSocketListener.onMessage(messageObj);
+                webSocketListener.onMessage(messageObj);
             }
+            event.record("trade", message.length());
         }
     }
 
@@ -62,8 +60,7 @@ public class TradeStreaming implements StreamingService{
     }
 
     public void addListener(MessageListener webSocketListener) {
-        self = new TradeStreaming();
-        self.webSocketListener = webSocketListener;
+        this.webSocketListener = webSocketListener;
     }
 
     public void connect(String endpoint) {
@@ -72,41 +69,43 @@ public class TradeStreaming implements StreamingService{
 
     public void connect(String endpoint, String events) {
 
+        StreamConnectEvent event = new StreamConnectEvent();
+        event.begin();
         try {
             if (endpoint.charAt(0) != '/'){
                 endpoint =  "/" + endpoint;
             }
 
             HttpRequest request = HttpRequest.newBuilder()
-                    .header("Authorization", "Bearer " + Shared.getInstance().getServerToken().get("accessToken").toString())
-                    .header("Throttle-Key", Shared.getInstance().getAppKey())
-                    .uri(URI.create(Shared.getInstance().getAPIUrl() + endpoint + "?events=" + events))
+                    .header("Authorization", shared.getToken(null).getAuthorization())
+                    .header("Throttle-Key", shared.getAppKey())
+                    .uri(URI.create(shared.getAPIUrl() + endpoint + "?events=" + events))
                     .GET()
                     .timeout(Duration.ofSeconds(120))
                     .build();
 
-            self.linesInResponse = HTTP_CLIENT.send(request, HttpResponse.BodyHandlers.ofLines()).body();
-            new Thread("GTN Trade SSE Reader") {
-                @Override
-                public void run() {
-                    self.webSocketListener.onOpen();
-                    try {
-                        self.linesInResponse.forEach(TradeStreaming::onMessage);
-                        self.linesInResponse.close();
-                        self.webSocketListener.onClose("Session closed");
-                    } catch (Exception e) {
-                        //ignore
-                    }
+            linesInResponse = shared.getHttpClient().send(request, HttpResponse.BodyHandlers.ofLines()).body();
+            event.record("trade", endpoint, true);
+            shared.getExecutionMode().newThread("GTN Trade SSE Reader", () -> {
+                webSocketListener.onOpen();
+                try {
+                    linesInResponse.forEach(this::onMessage);
+                    linesInResponse.close();
+                    StreamCloseEvent.record("trade", "Session closed");
+                    webSocketListener.onClose("Session closed");
+                } catch (Exception e) {
+                    //ignore
                 }
-            }.start();
+            }).start();
 
         } catch (Exception e) {
+            event.record("trade", endpoint, false);
             try {
-                if (self.linesInResponse != null) self.linesInResponse.close();
+                if (linesInResponse != null) linesInResponse.close();
             } catch (Exception ex) {
                 //ignore
             } finally {
-                self.webSocketListener.onClose("Error:" + e.toString());
+                webSocketListener.onClose("Error:" + e.toString());
             }
         }
     }
@@ -116,13 +115,14 @@ public class TradeStreaming implements StreamingService{
      */
     public  void disconnect() {
         try {
-            if (self.linesInResponse != null) self.linesInResponse.close();
+            if (linesInResponse != null) {
+                linesInResponse.close();
+                StreamCloseEvent.record("trade", "Disconnected");
+            }
         } catch (Exception e) {
             // ignore
         }
-        if (self != null) {
-            self.webSocketListener = null;
-        }
+        webSocketListener = null;
     }
 }
 
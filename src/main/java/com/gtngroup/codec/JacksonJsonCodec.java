@@ -0,0 +1,168 @@
+package com.gtngroup.codec;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * Codec backed by the Jackson streaming parser and generator.
+ * Builds the same JSONObject trees as org.json, including its number types
+ * (Integer, Long or BigInteger for integers and BigDecimal for decimals),
+ * without the character level tokenizing of JSONTokener.
+ * Requires com.fasterxml.jackson.core:jackson-core in the classpath
+ */
+public class JacksonJsonCodec implements JsonCodec {
+
+    private final JsonFactory factory = new JsonFactory();
+
+    @Override
+    public JSONObject decode(String json) {
+        try (JsonParser parser = factory.createParser(json)) {
+            return decode(parser);
+        } catch (IOException e) {
+            throw new JSONException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public JSONObject decode(Reader reader) {
+        try (JsonParser parser = factory.createParser(reader)) {
+            return decode(parser);
+        } catch (IOException e) {
+            throw new JSONException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public String encode(Map<String, ?> map) {
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = factory.createGenerator(writer)) {
+            writeValue(generator, map);
+        } catch (IOException e) {
+            throw new JSONException(e.getMessage(), e);
+        }
+        return writer.toString();
+    }
+
+    private static JSONObject decode(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new JSONException("A JSONObject text must begin with '{'");
+        }
+        return readObject(parser);
+    }
+
+    private static JSONObject readObject(JsonParser parser) throws IOException {
+        JSONObject object = new JSONObject();
+        String name;
+        while ((name = parser.nextFieldName()) != null) {
+            if (object.has(name)) {
+                throw new JSONException("Duplicate key \"" + name + "\""); // as org.json does
+            }
+            object.put(name, readValue(parser, parser.nextToken()));
+        }
+        return object;
+    }
+
+    private static JSONArray readArray(JsonParser parser) throws IOException {
+        JSONArray array = new JSONArray();
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            array.put(readValue(parser, token));
+        }
+        return array;
+    }
+
+    private static Object readValue(JsonParser parser, JsonToken token) throws IOException {
+        switch (token) {
+            case START_OBJECT:
+                return readObject(parser);
+            case START_ARRAY:
+                return readArray(parser);
+            case VALUE_STRING:
+                return parser.getText();
+            case VALUE_NUMBER_INT:
+                switch (parser.getNumberType()) {
+                    case INT:
+                        return parser.getIntValue();
+                    case LONG:
+                        return parser.getLongValue();
+                    default:
+                        return parser.getBigIntegerValue();
+                }
+            case VALUE_NUMBER_FLOAT:
+                BigDecimal decimal = parser.getDecimalValue();
+                if (decimal.signum() == 0 && parser.getText().charAt(0) == '-') {
+                    return -0.0d; // BigDecimal has no negative zero
+                }
+                return decimal;
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            case VALUE_NULL:
+                return JSONObject.NULL;
+            default:
+                throw new JSONException("Unexpected token " + token);
+        }
+    }
+
+    private static void writeValue(JsonGenerator generator, Object value) throws IOException {
+        if (value == null || value == JSONObject.NULL) {
+            generator.writeNull();
+        } else if (value instanceof String) {
+            generator.writeString((String) value);
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            generator.writeNumber(((Number) value).longValue());
+        } else if (value instanceof BigDecimal) {
+            generator.writeNumber((BigDecimal) value);
+        } else if (value instanceof BigInteger) {
+            generator.writeNumber((BigInteger) value);
+        } else if (value instanceof Double || value instanceof Float) {
+            generator.writeNumber(((Number) value).doubleValue());
+        } else if (value instanceof Boolean) {
+            generator.writeBoolean((Boolean) value);
+        } else if (value instanceof JSONObject) {
+            writeValue(generator, ((JSONObject) value).toMap());
+        } else if (value instanceof JSONArray) {
+            writeValue(generator, ((JSONArray) value).toList());
+        } else if (value instanceof Map) {
+            generator.writeStartObject();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                if (entry.getValue() == null) {
+                    continue; // as org.json does
+                }
+                generator.writeFieldName(String.valueOf(entry.getKey()));
+                writeValue(generator, entry.getValue());
+            }
+            generator.writeEndObject();
+        } else if (value instanceof Collection) {
+            generator.writeStartArray();
+            for (Object item : (Collection<?>) value) {
+                writeValue(generator, item);
+            }
+            generator.writeEndArray();
+        } else if (value instanceof Object[]) {
+            generator.writeStartArray();
+            for (Object item : (Object[]) value) {
+                writeValue(generator, item);
+            }
+            generator.writeEndArray();
+        } else {
+            generator.writeString(value.toString());
+        }
+    }
+}
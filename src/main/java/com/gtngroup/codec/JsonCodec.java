@@ -0,0 +1,42 @@
+package com.gtngroup.codec;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.Reader;
+import java.util.Map;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * Encodes request payloads and decodes REST responses and streaming messages.
+ * Implementations must be thread safe, since a single instance is shared by the session
+ */
+public interface JsonCodec {
+
+    /**
+     * Decode a JSON object
+     *
+     * @param json text
+     * @return the object
+     * @throws JSONException if the text is not a JSON object
+     */
+    JSONObject decode(String json) throws JSONException;
+
+    /**
+     * Decode a JSON object
+     *
+     * @param reader of the JSON text
+     * @return the object
+     * @throws JSONException if the text is not a JSON object
+     */
+    JSONObject decode(Reader reader) throws JSONException;
+
+    /**
+     * Encode a map as a JSON object
+     *
+     * @param map to encode
+     * @return the JSON text
+     */
+    String encode(Map<String, ?> map);
+}
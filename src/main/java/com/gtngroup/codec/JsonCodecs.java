@@ -0,0 +1,53 @@
+package com.gtngroup.codec;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ */
+public class JsonCodecs {
+
+    private static volatile JsonCodec defaultCodec = new OrgJsonCodec();
+
+    private JsonCodecs() {
+    }
+
+    /**
+     * Find a built-in codec by name
+     *
+     * @param name "org.json" or "jackson"
+     * @return a new codec
+     */
+    public static JsonCodec of(String name) {
+        switch (name.trim().toLowerCase()) {
+            case "org.json":
+            case "orgjson":
+                return new OrgJsonCodec();
+            case "jackson":
+                try {
+                    Class.forName("com.fasterxml.jackson.core.JsonFactory");
+                } catch (ClassNotFoundException e) {
+                    throw new IllegalArgumentException("jackson codec requires com.fasterxml.jackson.core:jackson-core in the classpath");
+                }
+                return new JacksonJsonCodec();
+            default:
+                throw new IllegalArgumentException("Unknown JSON codec " + name);
+        }
+    }
+
+    /**
+     * Get the codec used when no session is involved, i.e. Params.toString()
+     *
+     * @return the codec
+     */
+    public static JsonCodec getDefault() {
+        return defaultCodec;
+    }
+
+    /**
+     * Set the codec used when no session is involved
+     *
+     * @param codec to use
+     */
+    public static void setDefault(JsonCodec codec) {
+        defaultCodec = codec;
+    }
+}
@@ -0,0 +1,30 @@
+package com.gtngroup.codec;
+
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import java.io.Reader;
+import java.util.Map;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * Default codec, backed by org.json
+ */
+public class OrgJsonCodec implements JsonCodec {
+
+    @Override
+    public JSONObject decode(String json) {
+        return new JSONObject(json);
+    }
+
+    @Override
+    public JSONObject decode(Reader reader) {
+        return new JSONObject(new JSONTokener(reader));
+    }
+
+    @Override
+    public String encode(Map<String, ?> map) {
+        return new JSONObject(map).toString();
+    }
+}
@@ -0,0 +1,81 @@
+package com.gtngroup.jfr;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * Helpers of the JDK Flight Recorder events of the SDK.
+ * Events are disabled unless a recording enables them, i.e.
+ * -XX:StartFlightRecording:settings=profile or jcmd PID JFR.start
+ */
+public class Events {
+
+    private static final int MAX_CACHED = 4096;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    // least recently used first, so the customers of a busy session stay cached however many others pass by
+    private static final Map<String, String> hashCache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > MAX_CACHED;
+        }
+    };
+    private static final SecretKeySpec HASH_KEY = new SecretKeySpec(randomKey(), "HmacSHA256");
+
+    private Events() {
+    }
+
+    /**
+     * Customer numbers are not recorded as is. Recordings carry the first 8 bytes of their HMAC-SHA256 instead,
+     * which is enough to correlate the events of a customer. The key is random per process, so a customer number
+     * cannot be found by hashing the candidates, and hashes of different processes do not match
+     *
+     * @param customerNumber to hash, or null for the server session
+     * @return the hash in hex, or an empty string for the server session
+     */
+    public static String customerHash(String customerNumber) {
+        if (customerNumber == null) {
+            return "";
+        }
+        String hash;
+        synchronized (hashCache) {
+            hash = hashCache.get(customerNumber);
+        }
+        if (hash == null) {
+            hash = hmac(customerNumber);
+            synchronized (hashCache) {
+                hashCache.put(customerNumber, hash);
+            }
+        }
+        return hash;
+    }
+
+    private static String hmac(String value) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(HASH_KEY);
+            byte[] digest = mac.doFinal(value.getBytes(StandardCharsets.UTF_8));
+            char[] hex = new char[16];
+            for (int i = 0; i < 8; i++) {
+                hex[i * 2] = HEX[(digest[i] >> 4) & 0x0F];
+                hex[i * 2 + 1] = HEX[digest[i] & 0x0F];
+            }
+            return new String(hex);
+        } catch (GeneralSecurityException e) {
+            // every JRE has HmacSHA256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] randomKey() {
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        return key;
+    }
+}
@@ -0,0 +1,50 @@
+package com.gtngroup.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * Dispatch of a streaming message to the MessageListener, including the JSON decoding.
+ * Disabled by default because of the message rates. When enabled, only dispatches over the threshold
+ * (1 ms by default) are recorded, i.e. -XX:StartFlightRecording:com.gtngroup.MessageDispatch#enabled=true
+ */
+@Name("com.gtngroup.MessageDispatch")
+@Label("GTN Message Dispatch")
+@Description("Decoding and dispatch of a streaming message to the listener")
+@Category({"GTN SDK", "Streaming"})
+@Enabled(false)
+@Threshold("1 ms")
+@StackTrace(false)
+public class MessageDispatchEvent extends Event {
+
+    @Label("Stream")
+    @Description("trade or market-data")
+    private String stream;
+
+    @Label("Length")
+    @Description("Length of the message text")
+    private int length;
+
+    /**
+     * End the event and commit it if within the settings of the recording
+     *
+     * @param stream trade or market-data
+     * @param length of the message text
+     */
+    public void record(String stream, int length) {
+        end();
+        if (shouldCommit()) {
+            this.stream = stream;
+            this.length = length;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.gtngroup.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * A REST request attempt, from sending until the response body is received
+ */
+@Name("com.gtngroup.Request")
+@Label("GTN Request")
+@Description("REST request attempt to the GTN API")
+@Category({"GTN SDK", "REST"})
+@StackTrace(false)
+public class RequestEvent extends Event {
+
+    @Label("Endpoint")
+    @Description("Endpoint template, with ids replaced by {id}")
+    private String endpoint;
+
+    @Label("Method")
+    private String method;
+
+    @Label("Customer Hash")
+    private String customerHash;
+
+    @Label("Status")
+    @Description("HTTP status, or -1 if no response was received")
+    private int status;
+
+    @Label("Bytes Out")
+    @DataAmount
+    private long bytesOut;
+
+    @Label("Bytes In")
+    @DataAmount
+    private long bytesIn;
+
+    /**
+     * End the event and commit it if within the settings of the recording
+     *
+     * @param endpoint       template
+     * @param method         GET, POST, PATCH or DELETE
+     * @param customerNumber requesting, or null for the server session
+     * @param status         http status, or -1
+     * @param bytesOut       size of the request body
+     * @param bytesIn        size of the response body
+     */
+    public void record(String endpoint, String method, String customerNumber, int status, long bytesOut, long bytesIn) {
+        end();
+        if (shouldCommit()) {
+            this.endpoint = endpoint;
+            this.method = method;
+            this.customerHash = Events.customerHash(customerNumber);
+            this.status = status;
+            this.bytesOut = bytesOut;
+            this.bytesIn = bytesIn;
+            commit();
+        }
+    }
+}
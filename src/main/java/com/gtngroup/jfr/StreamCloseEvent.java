@@ -0,0 +1,43 @@
+package com.gtngroup.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * Close of the trade (SSE) or market data (WebSocket) stream
+ */
+@Name("com.gtngroup.StreamClose")
+@Label("GTN Stream Close")
+@Description("Close of a trade or market data stream")
+@Category({"GTN SDK", "Streaming"})
+@StackTrace(false)
+public class StreamCloseEvent extends Event {
+
+    @Label("Stream")
+    @Description("trade or market-data")
+    private String stream;
+
+    @Label("Reason")
+    private String reason;
+
+    /**
+     * Commit the event if enabled
+     *
+     * @param stream trade or market-data
+     * @param reason of the close
+     */
+    public static void record(String stream, String reason) {
+        StreamCloseEvent event = new StreamCloseEvent();
+        if (event.shouldCommit()) {
+            event.stream = stream;
+            event.reason = reason;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.gtngroup.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * Connection of the trade (SSE) or market data (WebSocket) stream, until it is open or failed
+ */
+@Name("com.gtngroup.StreamConnect")
+@Label("GTN Stream Connect")
+@Description("Connection of a trade or market data stream")
+@Category({"GTN SDK", "Streaming"})
+@StackTrace(false)
+public class StreamConnectEvent extends Event {
+
+    @Label("Stream")
+    @Description("trade or market-data")
+    private String stream;
+
+    @Label("Endpoint")
+    private String endpoint;
+
+    @Label("Connected")
+    private boolean connected;
+
+    /**
+     * End the event and commit it if within the settings of the recording
+     *
+     * @param stream    trade or market-data
+     * @param endpoint  connected to
+     * @param connected false if the connection failed
+     */
+    public void record(String stream, String endpoint, boolean connected) {
+        end();
+        if (shouldCommit()) {
+            this.stream = stream;
+            this.endpoint = endpoint;
+            this.connected = connected;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.gtngroup.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * Refresh of a server or customer access token
+ */
+@Name("com.gtngroup.TokenRefresh")
+@Label("GTN Token Refresh")
+@Description("Refresh of a server or customer access token")
+@Category({"GTN SDK", "Auth"})
+@StackTrace(false)
+public class TokenRefreshEvent extends Event {
+
+    @Label("Type")
+    @Description("server or customer")
+    private String type;
+
+    @Label("Customer Hash")
+    private String customerHash;
+
+    @Label("Status")
+    @Description("HTTP status of the refresh, or -1 on error")
+    private int status;
+
+    /**
+     * End the event and commit it if within the settings of the recording
+     *
+     * @param customerNumber refreshed, or null for the server token
+     * @param status         http status, or -1
+     */
+    public void record(String customerNumber, int status) {
+        end();
+        if (shouldCommit()) {
+            this.type = customerNumber == null ? "server" : "customer";
+            this.customerHash = Events.customerHash(customerNumber);
+            this.status = status;
+            commit();
+        }
+    }
+}
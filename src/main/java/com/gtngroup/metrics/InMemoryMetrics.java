@@ -0,0 +1,178 @@
+package com.gtngroup.metrics;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.json.JSONObject;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * Keeps the metrics in memory, with HdrHistogram latency histograms.
+ * Values are cumulative since creation, except the streaming message rates which are
+ * measured since the previous snapshot.
+ * Requires org.hdrhistogram:HdrHistogram in the classpath
+ */
+public class InMemoryMetrics implements Metrics {
+
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final Map<String, EndpointMetrics> endpoints = new ConcurrentHashMap<>();
+    private final Map<String, RefreshMetrics> refreshes = new ConcurrentHashMap<>();
+    private final Map<String, StreamMetrics> streams = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> evictions = new ConcurrentHashMap<>();
+
+    @Override
+    public void inFlight(String endpoint, int delta) {
+        endpoint(endpoint).inFlight.addAndGet(delta);
+    }
+
+    @Override
+    public void recordRequest(String endpoint, String method, int status, long nanos, long bytesOut, long bytesIn) {
+        EndpointMetrics metrics = endpoint(endpoint);
+        metrics.latency.recordValue(Math.max(0, nanos / 1000));
+        metrics.status.computeIfAbsent(status, k -> new LongAdder()).increment();
+        metrics.bytesOut.add(bytesOut);
+        metrics.bytesIn.add(bytesIn);
+    }
+
+    @Override
+    public void recordRetry(String endpoint) {
+        endpoint(endpoint).retries.increment();
+    }
+
+    @Override
+    public void recordHedge(String endpoint) {
+        endpoint(endpoint).hedges.increment();
+    }
+
+    @Override
+    public void recordTokenRefresh(String type, long nanos, boolean success) {
+        RefreshMetrics metrics = refreshes.computeIfAbsent(type, k -> new RefreshMetrics());
+        metrics.duration.recordValue(Math.max(0, nanos / 1000));
+        if (!success) {
+            metrics.failures.increment();
+        }
+    }
+
+    @Override
+    public void recordTokenRefreshLag(String type, long nanos) {
+        refreshes.computeIfAbsent(type, k -> new RefreshMetrics()).lag.recordValue(Math.max(0, nanos / 1000));
+    }
+
+    @Override
+    public void recordSessionEviction(String reason) {
+        evictions.computeIfAbsent(reason, k -> new LongAdder()).increment();
+    }
+
+    @Override
+    public void recordStreamMessage(String stream) {
+        streams.computeIfAbsent(stream, k -> new StreamMetrics()).messages.increment();
+    }
+
+    /**
+     * Get the current values. Latencies are in milliseconds
+     *
+     * @return requests by endpoint template, token refreshes by type, session evictions by reason and
+     * streaming messages by stream
+     */
+    @Override
+    public JSONObject snapshot() {
+        JSONObject requests = new JSONObject();
+        endpoints.forEach((endpoint, metrics) -> {
+            JSONObject status = new JSONObject();
+            metrics.status.forEach((code, count) -> status.put(Integer.toString(code), count.sum()));
+            requests.put(endpoint, new JSONObject()
+                    .put("latency", toJSON(metrics.latency.copy()))
+                    .put("status", status)
+                    .put("bytes_out", metrics.bytesOut.sum())
+                    .put("bytes_in", metrics.bytesIn.sum())
+                    .put("retries", metrics.retries.sum())
+                    .put("hedges", metrics.hedges.sum())
+                    .put("in_flight", metrics.inFlight.get()));
+        });
+
+        JSONObject tokenRefresh = new JSONObject();
+        refreshes.forEach((type, metrics) -> tokenRefresh.put(type, new JSONObject()
+                .put("duration", toJSON(metrics.duration.copy()))
+                .put("lag", toJSON(metrics.lag.copy()))
+                .put("failures", metrics.failures.sum())));
+
+        JSONObject sessionEvictions = new JSONObject();
+        evictions.forEach((reason, count) -> sessionEvictions.put(reason, count.sum()));
+
+        JSONObject streaming = new JSONObject();
+        long now = System.nanoTime();
+        streams.forEach((stream, metrics) -> {
+            long total = metrics.messages.sum();
+            double rate;
+            synchronized (metrics) {
+                double seconds = (now - metrics.lastSnapshot) / 1e9;
+                rate = seconds > 0 ? (total - metrics.lastCount) / seconds : 0;
+                metrics.lastSnapshot = now;
+                metrics.lastCount = total;
+            }
+            streaming.put(stream, new JSONObject()
+                    .put("messages", total)
+                    .put("messages_per_second", Math.round(rate * 10) / 10.0));
+        });
+
+        return new JSONObject()
+                .put("requests", requests)
+                .put("token_refresh", tokenRefresh)
+                .put("session_evictions", sessionEvictions)
+                .put("streaming", streaming);
+    }
+
+    /**
+     * Remove all recorded values
+     */
+    public void reset() {
+        endpoints.clear();
+        refreshes.clear();
+        streams.clear();
+        evictions.clear();
+    }
+
+    private EndpointMetrics endpoint(String endpoint) {
+        EndpointMetrics metrics = endpoints.get(endpoint);
+        return metrics != null ? metrics : endpoints.computeIfAbsent(endpoint, k -> new EndpointMetrics());
+    }
+
+    private static JSONObject toJSON(Histogram histogram) {
+        return new JSONObject()
+                .put("count", histogram.getTotalCount())
+                .put("mean", histogram.getMean() / 1000)
+                .put("p50", histogram.getValueAtPercentile(50) / 1000.0)
+                .put("p90", histogram.getValueAtPercentile(90) / 1000.0)
+                .put("p99", histogram.getValueAtPercentile(99) / 1000.0)
+                .put("p999", histogram.getValueAtPercentile(99.9) / 1000.0)
+                .put("max", histogram.getMaxValue() / 1000.0);
+    }
+
+    private static class EndpointMetrics {
+        private final Histogram latency = new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+        private final Map<Integer, LongAdder> status = new ConcurrentHashMap<>();
+        private final LongAdder bytesOut = new LongAdder();
+        private final LongAdder bytesIn = new LongAdder();
+        private final LongAdder retries = new LongAdder();
+        private final LongAdder hedges = new LongAdder();
+        private final AtomicInteger inFlight = new AtomicInteger();
+    }
+
+    private static class RefreshMetrics {
+        private final Histogram duration = new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+        private final Histogram lag = new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+        private final LongAdder failures = new LongAdder();
+    }
+
+    private static class StreamMetrics {
+        private final LongAdder messages = new LongAdder();
+        private long lastSnapshot = System.nanoTime();
+        private long lastCount;
+    }
+}
@@ -0,0 +1,96 @@
+package com.gtngroup.metrics;
+
+import org.json.JSONObject;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * Receives the performance events of the SDK. Implementations must be thread safe and
+ * cheap, since they are called on the request and streaming paths.
+ * Endpoints are reported as templates, with path segments holding ids replaced by {id}
+ */
+public interface Metrics {
+
+    /**
+     * @return false if events are discarded, so that callers can skip preparing them
+     */
+    default boolean isEnabled() {
+        return true;
+    }
+
+    /**
+     * A request attempt was sent or completed
+     *
+     * @param endpoint template
+     * @param delta    +1 when sent, -1 when completed
+     */
+    void inFlight(String endpoint, int delta);
+
+    /**
+     * A request attempt completed
+     *
+     * @param endpoint template
+     * @param method   GET, POST, PATCH or DELETE
+     * @param status   http status, or -1 if no response was received
+     * @param nanos    latency until the response body was received
+     * @param bytesOut size of the request body
+     * @param bytesIn  size of the response body
+     */
+    void recordRequest(String endpoint, String method, int status, long nanos, long bytesOut, long bytesIn);
+
+    /**
+     * A failed request attempt is retried
+     *
+     * @param endpoint template
+     */
+    void recordRetry(String endpoint);
+
+    /**
+     * A hedged copy of a request was sent
+     *
+     * @param endpoint template
+     */
+    void recordHedge(String endpoint);
+
+    /**
+     * An access token was refreshed
+     *
+     * @param type    "server" or "customer"
+     * @param nanos   duration of the refresh
+     * @param success true if a new token was received
+     */
+    void recordTokenRefresh(String type, long nanos, boolean success);
+
+    /**
+     * A token refresh started later than it was due, i.e. while the refresh workers were busy.
+     * The delay tells whether refresh_concurrency keeps up with the tokens falling due
+     *
+     * @param type  "server" or "customer"
+     * @param nanos delay after the due time
+     */
+    default void recordTokenRefreshLag(String type, long nanos) {
+    }
+
+    /**
+     * A customer session was dropped from the session cache of the SDK, i.e. to size max_sessions
+     * and session_idle_timeout by the evictions of each reason
+     *
+     * @param reason "idle", "size" or "expired"
+     */
+    default void recordSessionEviction(String reason) {
+    }
+
+    /**
+     * A streaming message was received
+     *
+     * @param stream "trade" or "market-data"
+     */
+    void recordStreamMessage(String stream);
+
+    /**
+     * Get the current values
+     *
+     * @return the snapshot
+     */
+    JSONObject snapshot();
+}
@@ -0,0 +1,50 @@
+package com.gtngroup.metrics;
+
+import org.json.JSONObject;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * Default metrics, discarding all events
+ */
+public class NoopMetrics implements Metrics {
+
+    public static final NoopMetrics INSTANCE = new NoopMetrics();
+
+    private NoopMetrics() {
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return false;
+    }
+
+    @Override
+    public void inFlight(String endpoint, int delta) {
+    }
+
+    @Override
+    public void recordRequest(String endpoint, String method, int status, long nanos, long bytesOut, long bytesIn) {
+    }
+
+    @Override
+    public void recordRetry(String endpoint) {
+    }
+
+    @Override
+    public void recordHedge(String endpoint) {
+    }
+
+    @Override
+    public void recordTokenRefresh(String type, long nanos, boolean success) {
+    }
+
+    @Override
+    public void recordStreamMessage(String stream) {
+    }
+
+    @Override
+    public JSONObject snapshot() {
+        return new JSONObject();
+    }
+}
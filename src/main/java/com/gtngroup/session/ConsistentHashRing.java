@@ -0,0 +1,84 @@
+package com.gtngroup.session;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * Assigns each customer to one node of the cluster. Every node is placed on a hash ring at a number of
+ * points, and a customer belongs to the node at the first point after the hash of the customer number.
+ * Adding or removing a node moves only the customers of that node, about 1/n of all.
+ * The hash is stable across JVMs, so all nodes given the same node list agree on the owners
+ */
+public final class ConsistentHashRing {
+
+    /**
+     * Points of each node on the ring. Enough for an even spread of the customers over a few dozen nodes
+     */
+    public static final int DEFAULT_POINTS = 160;
+
+    private final TreeMap<Long, String> ring = new TreeMap<>();
+    private final List<String> nodes;
+
+    /**
+     * @param nodes ids of all nodes of the cluster
+     */
+    public ConsistentHashRing(Collection<String> nodes) {
+        this(nodes, DEFAULT_POINTS);
+    }
+
+    /**
+     * @param nodes  ids of all nodes of the cluster
+     * @param points of each node on the ring
+     */
+    public ConsistentHashRing(Collection<String> nodes, int points) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("At least one node is required");
+        }
+        this.nodes = Collections.unmodifiableList(new ArrayList<>(nodes));
+        for (String node : this.nodes) {
+            for (int i = 0; i < points; i++) {
+                ring.put(hash(node + "#" + i), node);
+            }
+        }
+    }
+
+    /**
+     * @param customerNumber to find the owner of
+     * @return id of the node owning the customer
+     */
+    public String getOwner(String customerNumber) {
+        Map.Entry<Long, String> entry = ring.ceilingEntry(hash(customerNumber));
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+
+    /**
+     * @return ids of all nodes of the cluster
+     */
+    public List<String> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * 64 bit FNV-1a of the UTF-8 bytes, with the MurmurHash3 finaliser for an even spread of similar keys
+     */
+    private static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,208 @@
+package com.gtngroup.session;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * Session store in a directory, shared by the SDK processes given the same directory, i.e. several nodes
+ * on one host or on a shared volume. A reference implementation for testing a cluster, not for production.
+ * <p>
+ * Each token is a file, replaced atomically on update. Leases are files too, and are taken and released
+ * under a lock of the directory, which excludes the other processes as well as the other stores of this JVM.
+ * Tokens are written in plain text, readable by the owner only, so the directory must be private to the service
+ */
+public class FileSessionStore implements SessionStore {
+
+    private static final Logger LOGGER = LogManager.getLogger(FileSessionStore.class);
+
+    private static final String TOKEN = ".token";
+    private static final String LEASE = ".lease";
+    private static final String LOCK = ".lock";
+    private static final Map<Path, ReentrantLock> MONITORS = new ConcurrentHashMap<>(); // file locks are per JVM
+
+    private final Path directory;
+    private final ReentrantLock monitor;
+
+    /**
+     * Open the store, creating the directory if it does not exist
+     *
+     * @param directory of the store
+     * @throws IOException if the directory cannot be created
+     */
+    public FileSessionStore(Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory).toAbsolutePath().normalize();
+        this.monitor = MONITORS.computeIfAbsent(this.directory, path -> new ReentrantLock());
+    }
+
+    @Override
+    public JSONObject get(String customerNumber) {
+        try {
+            return new JSONObject(Files.readString(file(customerNumber, TOKEN), StandardCharsets.UTF_8));
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | JSONException e) {
+            LOGGER.warn("Error reading the session of customer " + customerNumber + ". " + e);
+            return null;
+        }
+    }
+
+    @Override
+    public void put(String customerNumber, JSONObject token) {
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(directory, name(customerNumber), ".tmp"); // owner only
+            Files.writeString(temp, token.toString(), StandardCharsets.UTF_8);
+            Files.move(temp, file(customerNumber, TOKEN), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.error("Error writing the session of customer " + customerNumber, e);
+            deleteQuietly(temp);
+        }
+    }
+
+    @Override
+    public void remove(String customerNumber) {
+        deleteQuietly(file(customerNumber, TOKEN));
+    }
+
+    @Override
+    public boolean lease(String customerNumber, String nodeId, long millis) {
+        try (DirectoryLock lock = lockDirectory()) {
+            String holder = lock.holder(customerNumber);
+            if (holder != null && !holder.equals(nodeId)) {
+                return false;
+            }
+            lock.setHolder(customerNumber, nodeId, System.currentTimeMillis() + millis);
+            return true;
+        } catch (IOException e) {
+            LOGGER.error("Error taking the refresh lease of customer " + customerNumber, e);
+            return false;
+        }
+    }
+
+    @Override
+    public void release(String customerNumber, String nodeId) {
+        try (DirectoryLock lock = lockDirectory()) {
+            if (nodeId.equals(lock.holder(customerNumber))) {
+                lock.removeHolder(customerNumber);
+            }
+        } catch (IOException e) {
+            LOGGER.error("Error releasing the refresh lease of customer " + customerNumber, e);
+        }
+    }
+
+    /**
+     * Lock the directory against the other processes and the other stores of this JVM
+     *
+     * @return the lock, giving access to the leases until closed
+     * @throws IOException if the lock file cannot be locked
+     */
+    private DirectoryLock lockDirectory() throws IOException {
+        monitor.lock();
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(directory.resolve(LOCK), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            return new DirectoryLock(channel, channel.lock());
+        } catch (IOException | RuntimeException e) {
+            if (channel != null) {
+                channel.close();
+            }
+            monitor.unlock();
+            throw e;
+        }
+    }
+
+    /**
+     * Lock of the directory. The leases are read and written through it, so only while it is held
+     */
+    private final class DirectoryLock implements AutoCloseable {
+
+        private final FileChannel channel;
+        private final FileLock fileLock;
+
+        private DirectoryLock(FileChannel channel, FileLock fileLock) {
+            this.channel = channel;
+            this.fileLock = fileLock;
+        }
+
+        /**
+         * @param customerNumber of the lease
+         * @return the node holding the lease, or null if none or expired
+         */
+        private String holder(String customerNumber) throws IOException {
+            String[] content;
+            try {
+                content = Files.readString(lease(customerNumber), StandardCharsets.UTF_8).split("\n");
+            } catch (NoSuchFileException e) {
+                return null;
+            }
+            try {
+                return content.length == 2 && Long.parseLong(content[1].trim()) > System.currentTimeMillis() ? content[0] : null;
+            } catch (NumberFormatException e) {
+                return null; // written partially by a crashed process
+            }
+        }
+
+        private void setHolder(String customerNumber, String nodeId, long expiry) throws IOException {
+            Files.writeString(lease(customerNumber), nodeId + "\n" + expiry, StandardCharsets.UTF_8);
+        }
+
+        private void removeHolder(String customerNumber) throws IOException {
+            Files.deleteIfExists(lease(customerNumber));
+        }
+
+        private Path lease(String customerNumber) throws IOException {
+            if (!fileLock.isValid()) {
+                throw new IOException("Lock of " + directory + " released");
+            }
+            return file(customerNumber, LEASE);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                channel.close(); // releases the file lock
+            } finally {
+                monitor.unlock();
+            }
+        }
+    }
+
+    private Path file(String customerNumber, String suffix) {
+        return directory.resolve(name(customerNumber) + suffix);
+    }
+
+    /**
+     * @return file name of the customer, safe for any customer number
+     */
+    private static String name(String customerNumber) {
+        return HexFormat.of().formatHex(customerNumber.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file != null) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                LOGGER.warn("Error deleting " + file + ". " + e);
+            }
+        }
+    }
+}
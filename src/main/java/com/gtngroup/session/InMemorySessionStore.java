@@ -0,0 +1,65 @@
+package com.gtngroup.session;
+
+import org.json.JSONObject;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * Session store in the memory of the JVM, shared by the GTNAPI instances given the same store.
+ * Useful to run several nodes in one process, i.e. in tests
+ */
+public class InMemorySessionStore implements SessionStore {
+
+    private final Map<String, JSONObject> tokens = new ConcurrentHashMap<>();
+    private final Map<String, Lease> leases = new ConcurrentHashMap<>();
+
+    @Override
+    public JSONObject get(String customerNumber) {
+        return tokens.get(customerNumber);
+    }
+
+    @Override
+    public void put(String customerNumber, JSONObject token) {
+        tokens.put(customerNumber, token);
+    }
+
+    @Override
+    public void remove(String customerNumber) {
+        tokens.remove(customerNumber);
+    }
+
+    @Override
+    public boolean lease(String customerNumber, String nodeId, long millis) {
+        long now = System.currentTimeMillis();
+        Lease lease = leases.compute(customerNumber, (key, current) ->
+                current == null || current.nodeId.equals(nodeId) || current.expiry <= now
+                        ? new Lease(nodeId, now + millis) : current);
+        return lease.nodeId.equals(nodeId);
+    }
+
+    @Override
+    public void release(String customerNumber, String nodeId) {
+        leases.computeIfPresent(customerNumber, (key, current) -> current.nodeId.equals(nodeId) ? null : current);
+    }
+
+    /**
+     * @return number of tokens in the store
+     */
+    public int size() {
+        return tokens.size();
+    }
+
+    private static class Lease {
+
+        private final String nodeId;
+        private final long expiry;
+
+        private Lease(String nodeId, long expiry) {
+            this.nodeId = nodeId;
+            this.expiry = expiry;
+        }
+    }
+}
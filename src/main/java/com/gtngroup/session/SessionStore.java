@@ -0,0 +1,59 @@
+package com.gtngroup.session;
+
+import org.json.JSONObject;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * Customer sessions shared by the SDK nodes of a cluster, so a customer logged in on one node can be
+ * served by any other without logging in again. see Params.setSessionStore()
+ * <p>
+ * Each node keeps a local copy of the tokens it uses, and reads the store when it meets a customer it does
+ * not hold, or when its copy is about to expire. A token is refreshed by the node owning the customer, and
+ * the refresh is guarded by a lease, so no two nodes refresh the same token even while the nodes change.
+ * Implementations must be thread safe, and visible to all nodes sharing the sessions
+ */
+public interface SessionStore {
+
+    /**
+     * Get the token of a customer
+     *
+     * @param customerNumber of the token
+     * @return the token as received, or null if not stored
+     */
+    JSONObject get(String customerNumber);
+
+    /**
+     * Keep a new or refreshed token, replacing the previous token of the customer
+     *
+     * @param customerNumber of the token
+     * @param token          as received
+     */
+    void put(String customerNumber, JSONObject token);
+
+    /**
+     * Forget the token of a customer, i.e. whose session expired
+     *
+     * @param customerNumber of the token
+     */
+    void remove(String customerNumber);
+
+    /**
+     * Take the lease to refresh the token of a customer. The lease is granted if no other node holds it,
+     * or its lease has expired. A node already holding the lease extends it
+     *
+     * @param customerNumber of the token
+     * @param nodeId         requesting the lease
+     * @param millis         until the lease expires, if not released
+     * @return true if granted
+     */
+    boolean lease(String customerNumber, String nodeId, long millis);
+
+    /**
+     * Release the lease to refresh the token of a customer, if held by the node
+     *
+     * @param customerNumber of the token
+     * @param nodeId         holding the lease
+     */
+    void release(String customerNumber, String nodeId);
+}
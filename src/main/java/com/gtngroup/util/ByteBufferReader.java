@@ -0,0 +1,180 @@
+package com.gtngroup.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * Reader over a list of byte buffers, as received from the HTTP client.
+ * Decodes directly from the buffers, without copying them to an array or a string. Only the bytes of a
+ * character split between two buffers are copied, to complete it.
+ * Malformed input is replaced as by new String(bytes, charset), so a bad byte never hides the one after it.
+ * The buffers are read through duplicates, so their positions are not changed
+ */
+public class ByteBufferReader extends Reader {
+
+    private static final int CHAR_BUFFER_SIZE = 2048;
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+    private final List<ByteBuffer> buffers;
+    private final CharsetDecoder decoder;
+    private final ByteBuffer carry = ByteBuffer.allocate(32).flip(); // bytes of a character split between buffers
+    private CharBuffer chars = CharBuffer.allocate(CHAR_BUFFER_SIZE).flip();
+    private int bufferIndex;
+    private ByteBuffer input;
+    private boolean endOfInput;
+    private int mark = -1;
+    private int markLimit;
+
+    /**
+     * @param buffers of UTF-8 content
+     */
+    public ByteBufferReader(List<ByteBuffer> buffers) {
+        this(buffers, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param buffers of the content
+     * @param charset of the content
+     */
+    public ByteBufferReader(List<ByteBuffer> buffers, Charset charset) {
+        this.buffers = buffers;
+        this.decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    @Override
+    public int read() {
+        if (!chars.hasRemaining() && !fill()) {
+            return -1;
+        }
+        return chars.get();
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) {
+        if (len == 0) {
+            return 0;
+        }
+        int count = 0;
+        while (count < len && (chars.hasRemaining() || fill())) {
+            int n = Math.min(len - count, chars.remaining());
+            chars.get(cbuf, off + count, n);
+            count += n;
+        }
+        return count == 0 ? -1 : count;
+    }
+
+    @Override
+    public boolean ready() {
+        return true;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    @Override
+    public void mark(int readAheadLimit) {
+        mark = chars.position();
+        markLimit = readAheadLimit;
+    }
+
+    @Override
+    public void reset() throws IOException {
+        if (mark < 0) {
+            throw new IOException("Mark invalid");
+        }
+        chars.position(mark);
+    }
+
+    @Override
+    public void close() {
+        // nothing to release
+    }
+
+    /**
+     * Decode the next characters, keeping those after the mark
+     *
+     * @return false at the end of the content
+     */
+    private boolean fill() {
+        int kept = 0;
+        if (mark >= 0 && chars.position() - mark <= markLimit) {
+            chars.position(mark);
+            kept = chars.remaining();
+            mark = 0;
+        } else {
+            chars.position(chars.limit());
+            mark = -1;
+        }
+        if (chars.capacity() - kept < CHAR_BUFFER_SIZE / 2) {
+            chars = CharBuffer.allocate(chars.capacity() * 2).put(chars).flip();
+        }
+        chars.compact();
+        while (chars.position() == kept && !endOfInput) {
+            decode();
+        }
+        chars.flip().position(kept);
+        return chars.hasRemaining();
+    }
+
+    /**
+     * Decode from the current buffer, or complete a character split between buffers
+     */
+    private void decode() {
+        ByteBuffer next = nextInput();
+        if (carry.hasRemaining()) {
+            if (next == null) {
+                decoder.decode(carry, chars, true); // truncated at the end of the content
+                finish();
+                return;
+            }
+            carry.compact().put(next.get()).flip();
+            decoder.decode(carry, chars, false);
+            return;
+        }
+        if (next == null) {
+            decoder.decode(EMPTY, chars, true);
+            finish();
+            return;
+        }
+        CoderResult result = decoder.decode(next, chars, false);
+        if (result.isUnderflow() && next.hasRemaining()) {
+            carry.clear().put(next).flip();
+        }
+    }
+
+    private void finish() {
+        decoder.flush(chars);
+        endOfInput = true;
+    }
+
+    /**
+     * @return the buffer to read next, or null if all have been read
+     */
+    private ByteBuffer nextInput() {
+        while (bufferIndex < buffers.size()) {
+            if (input == null) {
+                input = buffers.get(bufferIndex).duplicate();
+            }
+            if (input.hasRemaining()) {
+                return input;
+            }
+            input = null;
+            bufferIndex++;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,115 @@
+package com.gtngroup.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * Endpoint with path variables, i.e. /trade/bo/v1.2.1/customer/{customerNumber}/orders.
+ * Parsed once, and expanded with percent-encoded values on each call. The expanded endpoint is passed to the SDK
+ * as any other, which resolves it against the API URL
+ * <pre>
+ * EndpointTemplate ORDERS = EndpointTemplate.of("/trade/bo/v1.2.1/customer/{customerNumber}/orders");
+ * api.get(ORDERS.expand(customerNumber), params, customerNumber);
+ * </pre>
+ */
+public class EndpointTemplate {
+
+    private final String template;
+    private final String[] literals;
+    private final String[] variables;
+    private final int literalLength;
+
+    private EndpointTemplate(String template) {
+        this.template = template;
+
+        List<String> literalList = new ArrayList<>();
+        List<String> variableList = new ArrayList<>();
+        int position = 0;
+        int length = 0;
+        while (true) {
+            int open = template.indexOf('{', position);
+            if (open < 0) {
+                break;
+            }
+            int close = template.indexOf('}', open);
+            if (close < 0) {
+                throw new IllegalArgumentException("Unclosed variable in endpoint template " + template);
+            }
+            literalList.add(template.substring(position, open));
+            variableList.add(template.substring(open + 1, close).trim());
+            length += open - position;
+            position = close + 1;
+        }
+        literalList.add(template.substring(position));
+        length += template.length() - position;
+
+        this.literals = literalList.toArray(new String[0]);
+        this.variables = variableList.toArray(new String[0]);
+        this.literalLength = length;
+    }
+
+    /**
+     * Parse an endpoint template
+     *
+     * @param template with variables in braces
+     * @return the template
+     */
+    public static EndpointTemplate of(String template) {
+        if (template.isEmpty() || template.charAt(0) != '/') {
+            template = "/" + template;
+        }
+        return new EndpointTemplate(template);
+    }
+
+    /**
+     * Expand the template with values in the order of the variables
+     *
+     * @param values of the variables
+     * @return the endpoint
+     */
+    public String expand(Object... values) {
+        if (values.length != variables.length) {
+            throw new IllegalArgumentException(String.format("Endpoint %s requires %d values, %d given",
+                    template, variables.length, values.length));
+        }
+        StringBuilder endpoint = new StringBuilder(literalLength + 16 * variables.length);
+        for (int i = 0; i < variables.length; i++) {
+            endpoint.append(literals[i]);
+            Utils.urlEncode(String.valueOf(values[i]), endpoint);
+        }
+        return endpoint.append(literals[variables.length]).toString();
+    }
+
+    /**
+     * Expand the template with values by variable name
+     *
+     * @param values of the variables
+     * @return the endpoint
+     */
+    public String expand(Params values) {
+        StringBuilder endpoint = new StringBuilder(literalLength + 16 * variables.length);
+        for (int i = 0; i < variables.length; i++) {
+            Object value = values.get(variables[i]);
+            if (value == null) {
+                throw new IllegalArgumentException(String.format("No value for %s of endpoint %s", variables[i], template));
+            }
+            endpoint.append(literals[i]);
+            Utils.urlEncode(value.toString(), endpoint);
+        }
+        return endpoint.append(literals[variables.length]).toString();
+    }
+
+    /**
+     * @return the template, with the variables
+     */
+    public String getTemplate() {
+        return template;
+    }
+
+    @Override
+    public String toString() {
+        return template;
+    }
+}
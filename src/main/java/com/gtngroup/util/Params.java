@@ -1,9 +1,16 @@
 package com.gtngroup.util;
 
+import java.net.http.HttpClient;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
-import org.json.*;
+import com.gtngroup.codec.JsonCodec;
+import com.gtngroup.codec.JsonCodecs;
+import com.gtngroup.metrics.Metrics;
+import com.gtngroup.session.SessionStore;
 
 /**
  * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
@@ -58,8 +65,7 @@ public class Params extends HashMap<String, Object> {
     }
 
     public String toString() {
-        JSONObject jsonObject = new JSONObject(this);
-        return jsonObject.toString();
+        return JsonCodecs.getDefault().encode(this);
     }
 
     public Params setURL(String url) {
@@ -72,6 +78,18 @@ public class Params extends HashMap<String, Object> {
         return this;
     }
 
+    /**
+     * URL of the market data websocket, if not on the API URL. i.e. a local stub
+     *
+     * @param url with the ws or wss scheme
+     * @return the params
+     */
+    public Params setMarketDataURL(String url) {
+        url = url.trim();
+        this.add("market_data_url", url.endsWith("/") ? url.substring(0, url.length() - 1) : url);
+        return this;
+    }
+
     public Params setAppKey(String appKey) {
         this.add("app_key", appKey);
         return this;
@@ -122,4 +140,199 @@ public class Params extends HashMap<String, Object> {
         return this;
     }
 
+    /**
+     * Run the HTTP clients, token refresh and stream readers on PLATFORM or VIRTUAL threads.
+     * VIRTUAL requires Java 21 or later, platform threads are used otherwise
+     *
+     * @param executionMode PLATFORM (default) or VIRTUAL
+     * @return the params
+     */
+    public Params setExecutionMode(String executionMode) {
+        this.add("execution_mode", executionMode);
+        return this;
+    }
+
+    /**
+     * Executor of the HTTP clients. overrides the default of the execution mode
+     *
+     * @param executor to use
+     * @return the params
+     */
+    public Params setExecutor(Executor executor) {
+        this.add("executor", executor);
+        return this;
+    }
+
+    /**
+     * Default maximum number of requests in flight when calling GTNAPI.bulk()
+     *
+     * @param concurrency limit, 16 by default
+     * @return the params
+     */
+    public Params setBulkConcurrency(int concurrency) {
+        this.add("bulk_concurrency", Integer.toString(concurrency));
+        return this;
+    }
+
+    /**
+     * Maximum number of token refreshes in parallel. Refreshes due meanwhile wait in the order of expiry
+     *
+     * @param concurrency limit, 8 by default
+     * @return the params
+     */
+    public Params setRefreshConcurrency(int concurrency) {
+        this.add("refresh_concurrency", Integer.toString(concurrency));
+        return this;
+    }
+
+    /**
+     * JSON codec of REST payloads, responses and streaming messages
+     *
+     * @param codec "org.json" (default) or "jackson". jackson requires jackson-core in the classpath
+     * @return the params
+     */
+    public Params setJsonCodec(String codec) {
+        this.add("json_codec", codec);
+        return this;
+    }
+
+    /**
+     * JSON codec of REST payloads, responses and streaming messages
+     *
+     * @param codec implementation to use
+     * @return the params
+     */
+    public Params setJsonCodec(JsonCodec codec) {
+        this.add("json_codec", codec);
+        return this;
+    }
+
+    /**
+     * Share a single in-flight GET between callers requesting the same endpoint, query and token
+     * at the same time. Not enabled by default. Each caller gets its own copy of the response, free to modify
+     *
+     * @param enabled true to enable
+     * @return the params
+     */
+    public Params setRequestCoalescing(boolean enabled) {
+        this.add("request_coalescing", Boolean.toString(enabled));
+        return this;
+    }
+
+    /**
+     * Record the latency, status, size and retries of requests, token refresh durations and
+     * streaming message rates. Not enabled by default
+     *
+     * @param metrics to record to. i.e. new InMemoryMetrics()
+     * @return the params
+     */
+    public Params setMetrics(Metrics metrics) {
+        this.add("metrics", metrics);
+        return this;
+    }
+
+    /**
+     * Maximum number of customer sessions held. Logging in a customer beyond it evicts the session least
+     * recently used by a request
+     *
+     * @param maxSessions maximum number of sessions. 0 (default) for no limit
+     * @return the params
+     */
+    public Params setMaxSessions(int maxSessions) {
+        this.add("max_sessions", Integer.toString(maxSessions));
+        return this;
+    }
+
+    /**
+     * Evict the session of a customer not used by a request for the given time, instead of refreshing its
+     * token. The idle time is checked when the token is due for refresh
+     *
+     * @param millis of idle time. 0 (default) to keep idle sessions while their refresh token is valid
+     * @return the params
+     */
+    public Params setSessionIdleTimeout(long millis) {
+        this.add("session_idle_timeout", Long.toString(millis));
+        return this;
+    }
+
+    /**
+     * Share the customer sessions with the other nodes of a cluster, so each customer is logged in once
+     * for the cluster and its token is refreshed by a single node. Not enabled by default
+     *
+     * @param store of the sessions. i.e. a store backed by a shared cache or database
+     * @return the params
+     */
+    public Params setSessionStore(SessionStore store) {
+        this.add("session_store", store);
+        return this;
+    }
+
+    /**
+     * Nodes of the cluster sharing the session store. The customers are spread over the nodes by a
+     * consistent hash, and each node refreshes the tokens of its own customers only. If not set, any node
+     * refreshes the tokens it holds, still one node at a time
+     *
+     * @param nodeId of this node. must be one of the nodes
+     * @param nodes  ids of all nodes of the cluster
+     * @return the params
+     */
+    public Params setSessionNodes(String nodeId, Collection<String> nodes) {
+        this.add("node_id", nodeId);
+        this.add("session_nodes", new ArrayList<>(nodes));
+        return this;
+    }
+
+    /**
+     * Sign the next server assertion in the background before the current one is due for renewal, so a
+     * re-login of the server never waits for the RSA signing. The assertion is reused for up to 23 hours either way
+     *
+     * @param presign true to enable. false by default
+     * @return the params
+     */
+    public Params setPresignAssertion(boolean presign) {
+        this.add("presign_assertion", Boolean.toString(presign));
+        return this;
+    }
+
+    /**
+     * HTTP version of the REST and streaming requests
+     *
+     * @param version HTTP_2 (default, falls back to HTTP/1.1 if not supported by the server) or HTTP_1_1
+     * @return the params
+     */
+    public Params setHttpVersion(String version) {
+        this.add("http_version", version);
+        return this;
+    }
+
+    /**
+     * @param millis connect timeout of new connections. 10 seconds by default
+     * @return the params
+     */
+    public Params setConnectTimeout(long millis) {
+        this.add("connect_timeout", Long.toString(millis));
+        return this;
+    }
+
+    /**
+     * @param millis timeout of REST requests, until the response headers are received. 30 seconds by default
+     * @return the params
+     */
+    public Params setRequestTimeout(long millis) {
+        this.add("request_timeout", Long.toString(millis));
+        return this;
+    }
+
+    /**
+     * Use the given HTTP client, i.e. to share its connections between sessions.
+     * The HTTP version, connect timeout and executor settings are ignored in this case
+     *
+     * @param httpClient to use
+     * @return the params
+     */
+    public Params setHttpClient(HttpClient httpClient) {
+        this.add("http_client", httpClient);
+        return this;
+    }
+
 }
@@ -0,0 +1,83 @@
+package com.gtngroup.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * Shares a single in-flight call between all callers asking for the same key at the same time.
+ * The key is released as soon as the call completes, so later callers start a new call.
+ * A mutable result is copied for each caller, so callers do not see each other's changes
+ *
+ * @param <K> key type
+ * @param <V> result type
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final UnaryOperator<V> copier;
+
+    /**
+     * Share immutable results as they are
+     */
+    public SingleFlight() {
+        this(UnaryOperator.identity());
+    }
+
+    /**
+     * @param copier of the result for each caller, including the one starting the call
+     */
+    public SingleFlight(UnaryOperator<V> copier) {
+        this.copier = copier;
+    }
+
+    /**
+     * Run the call, or join the one already in flight for the key
+     *
+     * @param key  of the call
+     * @param call to start if none is in flight
+     * @return future of the result. each caller gets its own future, so cancelling one does not affect the others
+     */
+    public CompletableFuture<V> execute(K key, Supplier<CompletableFuture<V>> call) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            return existing.thenApply(copier);
+        }
+
+        try {
+            call.get().whenComplete((value, throwable) -> {
+                inFlight.remove(key, flight);
+                if (throwable != null) {
+                    flight.completeExceptionally(throwable);
+                } else {
+                    flight.complete(value);
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.remove(key, flight);
+            flight.completeExceptionally(e);
+        }
+        return flight.thenApply(copier);
+    }
+
+    /**
+     * @return number of calls served by joining one already in flight
+     */
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    /**
+     * @return number of calls in flight
+     */
+    public int getInFlight() {
+        return inFlight.size();
+    }
+}
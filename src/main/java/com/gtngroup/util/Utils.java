@@ -4,6 +4,8 @@ import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Map;
 
 /**
@@ -78,4 +80,142 @@ public class Utils {
     public static JSONObject returnStatus(int status, Map<String, Object> response){
         return new JSONObject().put("http_status", status).put("auth_status", response);
     }
+
+    /**
+     * Percent-encode a path segment or query parameter as per RFC 3986.
+     * Unreserved characters (letters, digits, '-', '.', '_' and '~') are kept as is
+     *
+     * @param value  to encode
+     * @param target to append the encoded value to
+     */
+    public static void urlEncode(String value, StringBuilder target) {
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (isUnreserved(c)) {
+                target.append(c);
+            } else {
+                for (byte b : value.substring(i, Character.isHighSurrogate(c) && i + 1 < length ? i + 2 : i + 1)
+                        .getBytes(StandardCharsets.UTF_8)) {
+                    target.append('%').append(HEX[(b >> 4) & 0x0F]).append(HEX[b & 0x0F]);
+                }
+                if (Character.isHighSurrogate(c) && i + 1 < length) {
+                    i++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Build the query string of a request, percent-encoding the names and values.
+     * The params are sorted by name, so the same params always give the same URL, as the keys of the response
+     * cache and of the request coalescing require
+     *
+     * @param params of the query
+     * @return the query string starting with '?', or an empty string if no params
+     */
+    public static String toQueryString(Params params) {
+        if (params.isEmpty()) {
+            return "";
+        }
+        String[] names = params.keySet().toArray(new String[0]);
+        Arrays.sort(names);
+        StringBuilder query = new StringBuilder(params.size() * 24);
+        for (String name : names) {
+            query.append(query.length() == 0 ? '?' : '&');
+            urlEncode(name, query);
+            query.append('=');
+            urlEncode(String.valueOf(params.get(name)), query);
+        }
+        return query.toString();
+    }
+
+    /**
+     * Reduce a request path to its endpoint template, for grouping metrics.
+     * Segments holding ids, i.e. containing digits, are replaced by {id}. Version segments such as v1.0 are kept
+     * ex:- /trade/orders/12345 to /trade/orders/{id}
+     *
+     * @param path of the request, without the query string
+     * @return the endpoint template
+     */
+    public static String toEndpointTemplate(String path) {
+        if (path == null || path.isEmpty()) {
+            return "/";
+        }
+        StringBuilder template = null;
+        int start = 0;
+        int length = path.length();
+        while (start <= length) {
+            int end = path.indexOf('/', start);
+            if (end < 0) {
+                end = length;
+            }
+            boolean id = isIdSegment(path, start, end);
+            if (id && template == null) {
+                template = new StringBuilder(length).append(path, 0, start);
+            }
+            if (template != null) {
+                template.append(id ? "{id}" : path.substring(start, end));
+                if (end < length) {
+                    template.append('/');
+                }
+            }
+            start = end + 1;
+        }
+        return template == null ? path : template.toString();
+    }
+
+    /**
+     * Deep copy of a JSON object, i.e. to hand a shared response to a caller who may modify it.
+     * Nested objects and arrays are copied, other values are immutable and shared
+     *
+     * @param object to copy, or null
+     * @return the copy, or null
+     */
+    public static JSONObject copy(JSONObject object) {
+        if (object == null) {
+            return null;
+        }
+        JSONObject copy = new JSONObject();
+        for (String key : object.keySet()) {
+            copy.put(key, copyValue(object.opt(key)));
+        }
+        return copy;
+    }
+
+    private static Object copyValue(Object value) {
+        if (value instanceof JSONObject) {
+            return copy((JSONObject) value);
+        }
+        if (value instanceof JSONArray) {
+            JSONArray array = (JSONArray) value;
+            JSONArray copy = new JSONArray();
+            for (int i = 0; i < array.length(); i++) {
+                copy.put(copyValue(array.opt(i)));
+            }
+            return copy;
+        }
+        return value;
+    }
+
+    private static boolean isIdSegment(String path, int start, int end) {
+        boolean digit = false;
+        boolean version = end - start > 1 && (path.charAt(start) == 'v' || path.charAt(start) == 'V');
+        for (int i = start; i < end; i++) {
+            char c = path.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digit = true;
+            } else if (i > start && c != '.') {
+                version = false;
+            }
+        }
+        return digit && !version;
+    }
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private static boolean isUnreserved(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                || c == '-' || c == '.' || c == '_' || c == '~';
+    }
 }
@@ -0,0 +1,237 @@
+package com.gtngroup;
+
+import com.gtngroup.util.Params;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * Ordering, concurrency and failures of bulk requests and logins
+ */
+class BulkExecutorTest {
+
+    private static final BulkExecutor.ResultMapper<Integer, String, String> MAPPER =
+            (index, item, value, error) -> error == null ? index + ":" + value : index + ":" + error.getMessage();
+
+    @Test
+    void resultsFollowTheOrderOfTheItems() throws Exception {
+        List<Integer> items = List.of(0, 1, 2, 3, 4, 5, 6, 7);
+        List<CompletableFuture<String>> pending = new CopyOnWriteArrayList<>();
+        List<String> completed = new CopyOnWriteArrayList<>();
+        CompletableFuture<List<String>> results = BulkExecutor.execute(items, item -> {
+            CompletableFuture<String> future = new CompletableFuture<>();
+            pending.add(future);
+            return future;
+        }, MAPPER, items.size(), completed::add);
+
+        assertEquals(8, pending.size());
+        for (int i = pending.size() - 1; i >= 0; i--) {
+            pending.get(i).complete("v" + i);
+        }
+        assertEquals(List.of("0:v0", "1:v1", "2:v2", "3:v3", "4:v4", "5:v5", "6:v6", "7:v7"), results.get(5, TimeUnit.SECONDS));
+        assertEquals("7:v7", completed.get(0)); // the listener is called as the results complete
+        assertEquals(8, completed.size());
+    }
+
+    @Test
+    void tasksInFlightAreBounded() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            items.add(i);
+        }
+        try {
+            List<String> results = BulkExecutor.execute(items, item -> CompletableFuture.supplyAsync(() -> {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                inFlight.decrementAndGet();
+                return "v";
+            }, executor), MAPPER, 3, null).get(10, TimeUnit.SECONDS);
+
+            assertEquals(50, results.size());
+            assertEquals(3, maxInFlight.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void failedItemsDoNotFailTheOthers() throws Exception {
+        List<String> results = BulkExecutor.<Integer, String, String>execute(List.of(0, 1, 2, 3), item -> {
+            if (item == 1) {
+                throw new IllegalStateException("not started");
+            }
+            return item == 2
+                    ? CompletableFuture.failedFuture(new IllegalStateException("failed"))
+                    : CompletableFuture.completedFuture("v" + item);
+        }, MAPPER, 2, null).get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of("0:v0", "1:not started", "2:failed", "3:v3"), results);
+    }
+
+    @Test
+    void failedMapperGivesAFailedResult() throws Exception {
+        RuntimeException mapperError = new RuntimeException("bad value");
+        List<Object> results = BulkExecutor.<Integer, String, Object>execute(List.of(0, 1, 2),
+                item -> CompletableFuture.completedFuture("v" + item),
+                (index, item, value, error) -> {
+                    if ("v1".equals(value)) {
+                        throw mapperError;
+                    }
+                    return error != null ? error : value;
+                }, 2, null).get(5, TimeUnit.SECONDS);
+
+        assertEquals("v0", results.get(0));
+        assertSame(mapperError, results.get(1));
+        assertEquals("v2", results.get(2));
+    }
+
+    @Test
+    void mapperFailingOnTheErrorFailsTheExecution() {
+        CompletableFuture<List<String>> results = BulkExecutor.<Integer, String, String>execute(List.of(0, 1, 2),
+                item -> CompletableFuture.completedFuture("v" + item),
+                (index, item, value, error) -> {
+                    if (index == 1) {
+                        throw new IllegalStateException("cannot map");
+                    }
+                    return value;
+                }, 1, null);
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> results.get(5, TimeUnit.SECONDS));
+        assertEquals("cannot map", e.getCause().getMessage());
+    }
+
+    @Test
+    void emptyCollectionCompletesAtOnce() throws Exception {
+        assertTrue(BulkExecutor.execute(Collections.<Integer>emptyList(), item -> null, MAPPER, 4, null).get().isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> BulkExecutor.execute(List.of(1), item -> null, MAPPER, 0, null));
+    }
+
+    @Test
+    void requestsOfUnknownCustomersFailWithARequestException() throws Exception {
+        Shared shared = new Shared();
+        shared.init("http://127.0.0.1:1", "key", "secret", "", "INST", "user", "TRADE", "1");
+        List<BulkRequest> requests = List.of(
+                BulkRequest.get("/trade/orders", new Params(), "C1"),
+                BulkRequest.post("/trade/orders", new Params("symbol", "AAPL"), "C2"));
+
+        List<BulkResult> results = BulkExecutor.execute(shared.getRequests(), requests, 2, null).get(5, TimeUnit.SECONDS);
+
+        for (int i = 0; i < requests.size(); i++) {
+            assertEquals(i, results.get(i).getIndex());
+            assertSame(requests.get(i), results.get(i).getRequest());
+            assertFalse(results.get(i).isSuccess());
+            assertNull(results.get(i).getResponse());
+            assertEquals(-1, results.get(i).getError().getStatusCode());
+        }
+    }
+
+    @Test
+    void bulkLoginReportsEachCustomer() throws Exception {
+        ExecutorService executor = Executors.newCachedThreadPool();
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/trade/auth/customer/token", BulkExecutorTest::customerToken);
+        server.setExecutor(executor);
+        server.start();
+        try {
+            Shared shared = new Shared();
+            shared.init("http://127.0.0.1:" + server.getAddress().getPort(), "key", "secret", "", "INST", "user", "TRADE", "1");
+            shared.setExecution(ExecutionMode.PLATFORM, null);
+            shared.setHttpClient(HttpClient.Version.HTTP_1_1, Duration.ofSeconds(5), Duration.ofSeconds(5), null);
+            shared.restoreToken(null, new JSONObject().put("accessToken", "server"));
+
+            List<String> customers = List.of("C1", "X2", "C3", "C4", "X5");
+            List<LoginResult> notified = new CopyOnWriteArrayList<>();
+            List<LoginResult> results = BulkExecutor.login(shared.getAuth(), customers, 2, notified::add)
+                    .get(10, TimeUnit.SECONDS);
+
+            assertEquals(5, results.size());
+            assertEquals(5, notified.size());
+            for (int i = 0; i < customers.size(); i++) {
+                LoginResult result = results.get(i);
+                boolean valid = customers.get(i).startsWith("C");
+                assertEquals(i, result.getIndex());
+                assertEquals(customers.get(i), result.getCustomerNumber());
+                assertEquals(valid, result.isSuccess());
+                assertEquals(valid ? 200 : 401, result.getHttpStatus());
+                assertNull(result.getError());
+                assertEquals(valid, shared.getCustomerAccessToken(customers.get(i)) != null);
+            }
+        } finally {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void failedLoginCarriesTheError() throws Exception {
+        IllegalStateException failure = new IllegalStateException("no route");
+        List<LoginResult> results = BulkExecutor.<String, JSONObject, LoginResult>execute(List.of("C1"),
+                customerNumber -> CompletableFuture.failedFuture(failure),
+                (index, customerNumber, response, error) -> new LoginResult(index, customerNumber,
+                        response == null ? new JSONObject() : response, error), 1, null).get(5, TimeUnit.SECONDS);
+
+        assertFalse(results.get(0).isSuccess());
+        assertEquals(-1, results.get(0).getHttpStatus());
+        assertInstanceOf(IllegalStateException.class, results.get(0).getError());
+    }
+
+    private static void customerToken(HttpExchange exchange) throws IOException {
+        JSONObject request = new JSONObject(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+        String customerNumber = request.getString("customerNumber");
+        int status;
+        JSONObject body;
+        if (customerNumber.startsWith("C")) {
+            long now = System.currentTimeMillis();
+            status = 200;
+            body = new JSONObject().put("status", "SUCCESS")
+                    .put("accessToken", "access-" + customerNumber)
+                    .put("refreshToken", "refresh")
+                    .put("accessTokenExpiresAt", now + 3_600_000)
+                    .put("refreshTokenExpiresAt", now + 24 * 3_600_000L);
+        } else {
+            status = 401;
+            body = new JSONObject().put("status", "FAILED").put("message", "Unknown customer");
+        }
+        byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.gtngroup;
+
+import com.gtngroup.codec.JsonCodec;
+import com.gtngroup.codec.JsonCodecs;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Flow;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * Charset of the response body, and parsing it with each codec
+ */
+class JsonBodyHandlerTest {
+
+    private static final String JSON = "{\"name\":\"Société Générale\",\"price\":12.5}";
+
+    @Test
+    void charsetIsTakenFromTheContentType() {
+        assertEquals(StandardCharsets.UTF_8, JsonBodyHandler.charset(headers("application/json")));
+        assertEquals(StandardCharsets.ISO_8859_1, JsonBodyHandler.charset(headers("application/json; charset=ISO-8859-1")));
+        assertEquals(StandardCharsets.ISO_8859_1, JsonBodyHandler.charset(headers("application/json;Charset=\"iso-8859-1\"")));
+        assertEquals(StandardCharsets.UTF_8, JsonBodyHandler.charset(headers("application/json; charset=unknown-charset")));
+        assertEquals(StandardCharsets.UTF_8, JsonBodyHandler.charset(HttpHeaders.of(Map.of(), (name, value) -> true)));
+    }
+
+    @Test
+    void utf8BodyIsParsed() {
+        byte[] body = JSON.getBytes(StandardCharsets.UTF_8);
+        for (String codec : List.of("org.json", "jackson")) {
+            assertBody(body, "application/json", JsonCodecs.of(codec));
+        }
+    }
+
+    @Test
+    void bodyInOtherCharsetIsParsed() {
+        byte[] body = JSON.getBytes(StandardCharsets.ISO_8859_1);
+        for (String codec : List.of("org.json", "jackson")) {
+            assertBody(body, "application/json; charset=ISO-8859-1", JsonCodecs.of(codec));
+        }
+    }
+
+    private static void assertBody(byte[] body, String contentType, JsonCodec codec) {
+        JsonBodyHandler.JsonBody received = receive(body, contentType);
+        assertEquals(body.length, received.length());
+        assertEquals(JSON, received.toString());
+        JSONObject json = received.toJSONObject(codec);
+        assertEquals("Société Générale", json.getString("name"));
+        assertEquals(12.5, json.getDouble("price"));
+    }
+
+    /**
+     * Deliver the body as the HTTP client does, split in the middle of the first accented character
+     */
+    private static JsonBodyHandler.JsonBody receive(byte[] body, String contentType) {
+        HttpResponse.BodySubscriber<JsonBodyHandler.JsonBody> subscriber = new JsonBodyHandler().apply(new ResponseInfo(contentType));
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+            }
+
+            @Override
+            public void cancel() {
+            }
+        });
+        int split = JSON.indexOf('é') + 1;
+        subscriber.onNext(List.of(ByteBuffer.wrap(body, 0, split).slice()));
+        subscriber.onNext(List.of(ByteBuffer.wrap(body, split, body.length - split).slice()));
+        subscriber.onComplete();
+        return subscriber.getBody().toCompletableFuture().join();
+    }
+
+    private static HttpHeaders headers(String contentType) {
+        return HttpHeaders.of(Map.of("Content-Type", List.of(contentType)), (name, value) -> true);
+    }
+
+    private static class ResponseInfo implements HttpResponse.ResponseInfo {
+
+        private final HttpHeaders headers;
+
+        private ResponseInfo(String contentType) {
+            this.headers = JsonBodyHandlerTest.headers(contentType);
+        }
+
+        @Override
+        public int statusCode() {
+            return 200;
+        }
+
+        @Override
+        public HttpHeaders headers() {
+            return headers;
+        }
+
+        @Override
+        public HttpClient.Version version() {
+            return HttpClient.Version.HTTP_1_1;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.gtngroup;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * Persistence, encryption and compaction of the token store
+ */
+class MappedTokenStoreTest {
+
+    private static final String SECRET = "app-secret";
+    private static final int HEADER_LENGTH = 24; // magic, version and salt
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void tokensAreRestoredWhenReopened() throws Exception {
+        Path file = directory.resolve("tokens");
+        try (MappedTokenStore store = new MappedTokenStore(file, SECRET)) {
+            store.put(null, token("server", 3_600_000));
+            store.put("C1", token("first", 3_600_000));
+            store.put("C1", token("refreshed", 3_600_000));
+            store.put("C2", token("second", 3_600_000));
+            store.put("C3", token("third", 3_600_000));
+            store.remove("C3");
+            assertEquals(3, store.size());
+        }
+
+        try (MappedTokenStore store = new MappedTokenStore(file, SECRET)) {
+            assertEquals("server", store.getServerToken().getString("accessToken"));
+            Map<String, JSONObject> customers = store.getCustomerTokens();
+            assertEquals(Set.of("C1", "C2"), customers.keySet());
+            assertEquals("refreshed", customers.get("C1").getString("accessToken"));
+            assertEquals("second", customers.get("C2").getString("accessToken"));
+        }
+    }
+
+    @Test
+    void expiredTokensAreDropped() throws Exception {
+        Path file = directory.resolve("tokens");
+        try (MappedTokenStore store = new MappedTokenStore(file, SECRET)) {
+            store.put("C1", token("live", 3_600_000));
+            store.put("C2", token("expired", -1_000));
+        }
+
+        try (MappedTokenStore store = new MappedTokenStore(file, SECRET)) {
+            assertEquals(Set.of("C1"), store.getCustomerTokens().keySet());
+            assertEquals(1, store.size());
+        }
+    }
+
+    @Test
+    void tokensAreNotWrittenInPlainText() throws Exception {
+        Path file = directory.resolve("tokens");
+        try (MappedTokenStore store = new MappedTokenStore(file, SECRET)) {
+            store.put("C1", token("plain-access-token", 3_600_000));
+        }
+        String content = new String(Files.readAllBytes(file), StandardCharsets.ISO_8859_1);
+        assertFalse(content.contains("plain-access-token"));
+        assertFalse(content.contains("C1"));
+    }
+
+    @Test
+    void otherSecretRestoresNothing() throws Exception {
+        Path file = directory.resolve("tokens");
+        try (MappedTokenStore store = new MappedTokenStore(file, SECRET)) {
+            store.put("C1", token("access", 3_600_000));
+        }
+
+        try (MappedTokenStore store = new MappedTokenStore(file, "other-secret")) {
+            assertTrue(store.getCustomerTokens().isEmpty());
+            assertNull(store.getServerToken());
+            store.put("C2", token("not written", 3_600_000));
+        }
+
+        try (MappedTokenStore store = new MappedTokenStore(file, SECRET)) {
+            assertEquals(Set.of("C1"), store.getCustomerTokens().keySet());
+            assertEquals("access", store.getCustomerTokens().get("C1").getString("accessToken"));
+        }
+    }
+
+    @Test
+    void otherFileIsRejected() throws Exception {
+        Path file = directory.resolve("other");
+        Files.writeString(file, "{\"not\": \"a token store\"}");
+        assertThrows(IOException.class, () -> new MappedTokenStore(file, SECRET));
+    }
+
+    @Test
+    void corruptRecordIsSkippedAndTheFileKept() throws Exception {
+        Path file = directory.resolve("tokens");
+        try (MappedTokenStore store = new MappedTokenStore(file, SECRET)) {
+            store.put("C1", token("first", 3_600_000));
+            store.put("C2", token("second", 3_600_000));
+            store.put("C3", token("third", 3_600_000));
+        }
+        byte[] content = Files.readAllBytes(file);
+        ByteBuffer log = ByteBuffer.wrap(content);
+        int second = HEADER_LENGTH + 4 + log.getInt(HEADER_LENGTH);
+        content[second + 4 + log.getInt(second) - 1] ^= 1; // tag of the record of C2
+        Files.write(file, content);
+
+        for (int i = 0; i < 2; i++) {
+            try (MappedTokenStore store = new MappedTokenStore(file, SECRET)) {
+                assertEquals(Set.of("C1", "C3"), store.getCustomerTokens().keySet());
+                store.put("C4", token("not written", 3_600_000));
+            }
+        }
+        assertArrayEquals(content, Files.readAllBytes(file));
+    }
+
+    @Test
+    void partiallyWrittenRecordIsDropped() throws Exception {
+        Path file = directory.resolve("tokens");
+        try (MappedTokenStore store = new MappedTokenStore(file, SECRET)) {
+            store.put("C1", token("first", 3_600_000));
+        }
+        byte[] content = Files.readAllBytes(file);
+        int end = HEADER_LENGTH + 4 + ByteBuffer.wrap(content).getInt(HEADER_LENGTH);
+        for (int i = end + 4; i < end + 100; i++) {
+            content[i] = 1; // the body of a record whose length was not written yet
+        }
+        Files.write(file, content);
+
+        try (MappedTokenStore store = new MappedTokenStore(file, SECRET)) {
+            assertEquals(Set.of("C1"), store.getCustomerTokens().keySet());
+            store.put("C2", token("second", 3_600_000));
+        }
+        try (MappedTokenStore store = new MappedTokenStore(file, SECRET)) {
+            assertEquals(Set.of("C1", "C2"), store.getCustomerTokens().keySet());
+        }
+    }
+
+    @Test
+    void compactionBoundsTheFile() throws Exception {
+        Path file = directory.resolve("tokens");
+        try (MappedTokenStore store = new MappedTokenStore(file, SECRET)) {
+            for (int i = 0; i < 30_000; i++) { // about 6 MB of records
+                store.put("C" + (i % 10), token("access-" + i, 3_600_000));
+            }
+            assertEquals(10, store.size());
+        }
+        assertTrue(Files.size(file) < 4 * 1024 * 1024, "size " + Files.size(file));
+
+        try (MappedTokenStore store = new MappedTokenStore(file, SECRET)) {
+            assertEquals("access-29999", store.getCustomerTokens().get("C9").getString("accessToken"));
+        }
+    }
+
+    private static JSONObject token(String accessToken, long lifetimeMillis) {
+        long now = System.currentTimeMillis();
+        return new JSONObject()
+                .put("accessToken", accessToken)
+                .put("refreshToken", "refresh")
+                .put("accessTokenExpiresAt", now + lifetimeMillis)
+                .put("refreshTokenExpiresAt", now + lifetimeMillis);
+    }
+}
@@ -0,0 +1,175 @@
+package com.gtngroup;
+
+import com.gtngroup.util.Params;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * Refresh of a rejected session token, against a local server standing in for the API
+ */
+class RequestsTest {
+
+    private static final String ORDERS = "/trade/orders";
+    private static final String CUSTOMER_TOKEN_REFRESH = "/trade/auth/customer/token/refresh";
+
+    @TempDir
+    Path directory;
+
+    private final AtomicInteger orderCalls = new AtomicInteger();
+    private final AtomicInteger refreshCalls = new AtomicInteger();
+    private volatile String validToken = "access-2"; // the restored access-1 is rejected
+    private volatile int refreshStatus = 200;
+    private volatile int rejectStatus = 401;
+    private volatile String rejectBody = "{\"message\": \"Unauthorized\"}";
+
+    private ExecutorService executor;
+    private HttpServer server;
+    private MappedTokenStore store;
+    private Shared shared;
+
+    @BeforeEach
+    void start() throws IOException {
+        executor = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext(ORDERS, this::orders);
+        server.createContext(CUSTOMER_TOKEN_REFRESH, this::refresh);
+        server.setExecutor(executor);
+        server.start();
+
+        Path tokens = directory.resolve("tokens");
+        try (MappedTokenStore previous = new MappedTokenStore(tokens, "secret")) {
+            previous.put(null, token("server"));
+            previous.put("C1", token("access-1"));
+        }
+        store = new MappedTokenStore(tokens, "secret");
+
+        shared = new Shared();
+        shared.init("http://127.0.0.1:" + server.getAddress().getPort(), "key", "secret", "", "INST", "user", "TRADE", "1");
+        shared.setExecution(ExecutionMode.PLATFORM, null);
+        shared.setHttpClient(HttpClient.Version.HTTP_1_1, Duration.ofSeconds(5), Duration.ofSeconds(5), null);
+        shared.setTokenStore(store);
+        shared.getAuth().init(); // resumes the sessions of the token store
+    }
+
+    @AfterEach
+    void stop() throws IOException {
+        shared.getAuth().logout();
+        store.close();
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentRejectionsShareOneRefresh() throws Exception {
+        List<CompletableFuture<JSONObject>> responses = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            responses.add(shared.getRequests().getAsync(ORDERS, new Params(), "C1"));
+        }
+        for (CompletableFuture<JSONObject> response : responses) {
+            assertEquals(200, response.get().getInt("http_status"));
+        }
+        assertEquals(1, refreshCalls.get());
+        assertEquals(40, orderCalls.get());
+        assertEquals("access-2", shared.getCustomerAccessToken("C1"));
+    }
+
+    @Test
+    void failedRefreshIsNotRetried() throws Exception {
+        refreshStatus = 401;
+        JSONObject response = shared.getRequests().get(ORDERS, "C1");
+        assertEquals(401, response.getInt("http_status"));
+        assertEquals(1, refreshCalls.get());
+        assertEquals(1, orderCalls.get());
+        assertEquals("access-1", shared.getCustomerAccessToken("C1"));
+    }
+
+    @Test
+    void explicitTokenIsNotRefreshed() throws Exception {
+        JSONObject response = shared.getRequests().post(ORDERS, new Params(), "explicit", "C1");
+        assertEquals(401, response.getInt("http_status"));
+        assertEquals(0, refreshCalls.get());
+        assertEquals(1, orderCalls.get());
+    }
+
+    @Test
+    void expiredTokenMessageIsRefreshed() throws Exception {
+        rejectStatus = 400;
+        rejectBody = "{\"message\": \"Token has expired\"}";
+        assertEquals(200, shared.getRequests().get(ORDERS, "C1").getInt("http_status"));
+        assertEquals(1, refreshCalls.get());
+        assertEquals(2, orderCalls.get());
+    }
+
+    @Test
+    void largeErrorBodyIsNotSearched() throws Exception {
+        rejectStatus = 400;
+        rejectBody = "{\"message\": \"Token has expired\", \"detail\": \"" + "x".repeat(4096) + "\"}";
+        assertEquals(400, shared.getRequests().get(ORDERS, "C1").getInt("http_status"));
+        assertEquals(0, refreshCalls.get());
+        assertEquals(1, orderCalls.get());
+    }
+
+    private void orders(HttpExchange exchange) throws IOException {
+        orderCalls.incrementAndGet();
+        if (("Bearer " + validToken).equals(exchange.getRequestHeaders().getFirst("Authorization"))) {
+            respond(exchange, 200, "{\"orders\": []}");
+        } else {
+            respond(exchange, rejectStatus, rejectBody);
+        }
+    }
+
+    private void refresh(HttpExchange exchange) throws IOException {
+        refreshCalls.incrementAndGet();
+        try {
+            Thread.sleep(100); // long enough for the other rejections to join it
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (refreshStatus == 200) {
+            respond(exchange, 200, token(validToken).toString());
+        } else {
+            respond(exchange, refreshStatus, "{\"message\": \"Invalid refresh token\"}");
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static JSONObject token(String accessToken) {
+        long now = System.currentTimeMillis();
+        return new JSONObject()
+                .put("accessToken", accessToken)
+                .put("refreshToken", "refresh")
+                .put("accessTokenExpiresAt", now + 3_600_000)
+                .put("refreshTokenExpiresAt", now + 24 * 3_600_000L);
+    }
+}
@@ -0,0 +1,178 @@
+package com.gtngroup;
+
+import com.gtngroup.exception.RequestException;
+import org.junit.jupiter.api.Test;
+
+import javax.net.ssl.SSLSession;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * Retry decisions, backoff and hedging delays of the resilience policy
+ */
+class ResiliencePolicyTest {
+
+    @Test
+    void postIsCoveredOnlyWhenIdempotent() {
+        ResiliencePolicy policy = new ResiliencePolicy();
+        assertTrue(policy.appliesTo("GET"));
+        assertTrue(policy.appliesTo("DELETE"));
+        assertFalse(policy.appliesTo("POST"));
+        assertFalse(policy.appliesTo("PATCH"));
+        assertTrue(policy.setIdempotentPost(true).appliesTo("POST"));
+    }
+
+    @Test
+    void errorsAreRetriedUnlessRejectedBeforeSending() {
+        ResiliencePolicy policy = new ResiliencePolicy();
+        assertTrue(policy.isRetryable(null, new IOException("reset")));
+        assertTrue(policy.isRetryable(null, new CompletionException(new IOException("reset"))));
+        RequestException rejected = new RequestException("Request rejected by the client throttle", 429, "");
+        assertFalse(policy.isRetryable(null, rejected));
+        assertFalse(policy.isRetryable(null, new CompletionException(rejected)));
+    }
+
+    @Test
+    void responsesAreRetriedByStatus() {
+        ResiliencePolicy policy = new ResiliencePolicy();
+        assertTrue(policy.isRetryable(new Response(503), null));
+        assertTrue(policy.isRetryable(new Response(429), null));
+        assertFalse(policy.isRetryable(new Response(400), null));
+
+        policy.setRetryStatus(502);
+        assertTrue(policy.isRetryable(new Response(502), null));
+        assertFalse(policy.isRetryable(new Response(503), null));
+    }
+
+    @Test
+    void backoffIsBoundedByTheCeilingOfTheAttempt() {
+        ResiliencePolicy policy = new ResiliencePolicy().setBackoff(100, 300);
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(policy.getBackoffNanos(1, null) <= TimeUnit.MILLISECONDS.toNanos(100));
+            assertTrue(policy.getBackoffNanos(2, null) <= TimeUnit.MILLISECONDS.toNanos(200));
+            assertTrue(policy.getBackoffNanos(10, null) <= TimeUnit.MILLISECONDS.toNanos(300));
+            assertTrue(policy.getBackoffNanos(64, null) >= 0); // no overflow of the shift
+        }
+    }
+
+    @Test
+    void throttledRetryWaitsForRetryAfter() {
+        ResiliencePolicy policy = new ResiliencePolicy().setBackoff(100, 300);
+        Response response = new Response(429, "Retry-After", "2");
+        assertTrue(policy.getBackoffNanos(1, response) >= TimeUnit.SECONDS.toNanos(2));
+
+        Response date = new Response(429, "Retry-After", "Wed, 21 Oct 2015 07:28:00 GMT");
+        assertTrue(policy.getBackoffNanos(1, date) <= TimeUnit.MILLISECONDS.toNanos(100));
+    }
+
+    @Test
+    void fixedHedgeDelayTakesPrecedence() {
+        ResiliencePolicy policy = new ResiliencePolicy().setHedgeAfterMillis(50).setHedgePercentile(95);
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(50), policy.getHedgeNanos());
+        assertEquals(0, new ResiliencePolicy().getHedgeNanos());
+    }
+
+    @Test
+    void percentileHedgeWaitsForEnoughSamples() {
+        ResiliencePolicy policy = new ResiliencePolicy().setHedgePercentile(90);
+        for (int i = 1; i < 100; i++) {
+            policy.recordLatency(i);
+        }
+        assertEquals(0, policy.getHedgeNanos());
+        policy.recordLatency(100);
+        assertEquals(90, policy.getHedgeNanos());
+    }
+
+    @Test
+    void percentileFollowsTheRecentLatencies() {
+        ResiliencePolicy policy = new ResiliencePolicy().setHedgePercentile(95);
+        for (int i = 0; i < 1024; i++) {
+            policy.recordLatency(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(10), policy.getHedgeNanos());
+        for (int i = 0; i < 1024; i++) {
+            policy.recordLatency(TimeUnit.MILLISECONDS.toNanos(50));
+        }
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(50), policy.getHedgeNanos());
+    }
+
+    @Test
+    void latenciesAreNotRecordedWithoutPercentileHedging() {
+        ResiliencePolicy policy = new ResiliencePolicy();
+        for (int i = 0; i < 200; i++) {
+            policy.recordLatency(i);
+        }
+        policy.setHedgePercentile(50);
+        assertEquals(0, policy.getHedgeNanos());
+    }
+
+    /**
+     * Response with a status and headers only
+     */
+    private static class Response implements HttpResponse<String> {
+
+        private final int status;
+        private final HttpHeaders headers;
+
+        private Response(int status, String... nameAndValue) {
+            this.status = status;
+            this.headers = HttpHeaders.of(nameAndValue.length == 0
+                    ? Map.of() : Map.of(nameAndValue[0], List.of(nameAndValue[1])), (name, value) -> true);
+        }
+
+        @Override
+        public int statusCode() {
+            return status;
+        }
+
+        @Override
+        public HttpRequest request() {
+            return null;
+        }
+
+        @Override
+        public Optional<HttpResponse<String>> previousResponse() {
+            return Optional.empty();
+        }
+
+        @Override
+        public HttpHeaders headers() {
+            return headers;
+        }
+
+        @Override
+        public String body() {
+            return "";
+        }
+
+        @Override
+        public Optional<SSLSession> sslSession() {
+            return Optional.empty();
+        }
+
+        @Override
+        public URI uri() {
+            return null;
+        }
+
+        @Override
+        public HttpClient.Version version() {
+            return HttpClient.Version.HTTP_1_1;
+        }
+    }
+}
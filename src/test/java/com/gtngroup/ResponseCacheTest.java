@@ -0,0 +1,136 @@
+package com.gtngroup;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * Rules, keys, freshness and eviction of the response cache
+ */
+class ResponseCacheTest {
+
+    private static final String API_URL = "https://api.example.com";
+    private static final String ENDPOINT = "/market-data/realtime/keys";
+
+    @Test
+    void rulesCoverTheEndpointAndTheEndpointsUnderIt() {
+        ResponseCache cache = new ResponseCache(10).addRule("market-data/realtime", 1000);
+        assertTrue(cache.isCacheable("/market-data/realtime"));
+        assertTrue(cache.isCacheable(ENDPOINT));
+        assertFalse(cache.isCacheable("/market-data/realtime-keys"));
+        assertFalse(cache.isCacheable("/market-data"));
+    }
+
+    @Test
+    void mostSpecificRuleApplies() throws Exception {
+        ResponseCache cache = new ResponseCache(10)
+                .addRule("/market-data", 10_000)
+                .addRule(ENDPOINT, 1);
+        String key = key("C1");
+        cache.put(key, ENDPOINT, response(), null);
+        Thread.sleep(20);
+        assertFalse(cache.get(key).isFresh());
+    }
+
+    @Test
+    void hitsAndMissesAreCounted() {
+        ResponseCache cache = new ResponseCache(10).addRule(ENDPOINT, 10_000);
+        String key = key("C1");
+        assertNull(cache.get(key));
+        cache.put(key, ENDPOINT, response(), "\"v1\"");
+        ResponseCache.Entry entry = cache.get(key);
+        assertEquals("\"v1\"", entry.getETag());
+        assertEquals(1, entry.getResponse().getJSONArray("keys").length());
+
+        JSONObject stats = cache.getStats();
+        assertEquals(1, stats.getLong("hits"));
+        assertEquals(1, stats.getLong("misses"));
+        assertEquals(1, stats.getInt("size"));
+    }
+
+    @Test
+    void callersGetTheirOwnCopy() {
+        ResponseCache cache = new ResponseCache(10).addRule(ENDPOINT, 10_000);
+        String key = key("C1");
+        JSONObject response = response();
+        cache.put(key, ENDPOINT, response, null);
+        response.getJSONArray("keys").put("MSFT");
+
+        JSONObject first = cache.get(key).getResponse();
+        first.getJSONArray("keys").put("IBM");
+        first.put("extra", true);
+
+        JSONObject second = cache.get(key).getResponse();
+        assertEquals(1, second.getJSONArray("keys").length());
+        assertFalse(second.has("extra"));
+    }
+
+    @Test
+    void staleEntryIsAMissUntilRevalidated() throws Exception {
+        ResponseCache cache = new ResponseCache(10).addRule(ENDPOINT, 50);
+        String key = key("C1");
+        cache.put(key, ENDPOINT, response(), "\"v1\"");
+        Thread.sleep(80);
+
+        ResponseCache.Entry stale = cache.get(key);
+        assertFalse(stale.isFresh());
+        assertEquals(1, cache.getMisses());
+
+        cache.revalidated(key, stale, ENDPOINT);
+        ResponseCache.Entry entry = cache.get(key);
+        assertTrue(entry.isFresh());
+        assertEquals("\"v1\"", entry.getETag());
+        assertEquals(1, cache.getRevalidations());
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsEvicted() {
+        ResponseCache cache = new ResponseCache(2).addRule(ENDPOINT, 10_000);
+        cache.put(key("C1"), ENDPOINT, response(), null);
+        cache.put(key("C2"), ENDPOINT, response(), null);
+        cache.get(key("C1"));
+        cache.put(key("C3"), ENDPOINT, response(), null);
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertTrue(cache.get(key("C1")).isFresh());
+        assertNull(cache.get(key("C2")));
+    }
+
+    @Test
+    void keysSeparateSessionsAndCustomers() {
+        String key = key("C1");
+        assertEquals(key, ResponseCache.key(API_URL, "GTN", "market-data/realtime/keys", "C1"));
+        assertNotEquals(key, key("C2"));
+        assertNotEquals(key, key(null));
+        assertNotEquals(key, ResponseCache.key("https://uat.example.com", "GTN", ENDPOINT, "C1"));
+        assertNotEquals(key, ResponseCache.key(API_URL, "OTHER", ENDPOINT, "C1"));
+        assertNotEquals(key, ResponseCache.key(API_URL, "GTN", ENDPOINT + "?exchange=NSDQ", "C1"));
+    }
+
+    @Test
+    void clearRemovesAllEntries() {
+        ResponseCache cache = new ResponseCache(10).addRule(ENDPOINT, 10_000);
+        cache.put(key("C1"), ENDPOINT, response(), null);
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertNull(cache.get(key("C1")));
+    }
+
+    private static String key(String customerNumber) {
+        return ResponseCache.key(API_URL, "GTN", ENDPOINT, customerNumber);
+    }
+
+    private static JSONObject response() {
+        return new JSONObject().put("keys", new JSONArray().put("AAPL"));
+    }
+}
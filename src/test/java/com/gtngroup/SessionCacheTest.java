@@ -0,0 +1,138 @@
+package com.gtngroup;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * Customer sessions, their idle time and the CLOCK eviction order
+ */
+class SessionCacheTest {
+
+    @Test
+    void putTellsNewSessionsFromRefreshedOnes() {
+        SessionCache cache = new SessionCache();
+        Token first = token("a");
+        Token second = token("b");
+        assertTrue(cache.put("C1", first));
+        assertFalse(cache.put("C1", second));
+        assertSame(second, cache.get("C1"));
+        assertSame(second, cache.use("C1"));
+        assertNull(cache.use("C2"));
+        assertEquals(List.of("C1"), cache.getCustomers());
+    }
+
+    @Test
+    void evictionFollowsTheOrderOfArrival() {
+        SessionCache cache = new SessionCache();
+        cache.setLimits(2, 0);
+        cache.put("C1", token("a"));
+        cache.put("C2", token("a"));
+        assertFalse(cache.isOverCapacity());
+        cache.put("C3", token("a"));
+        assertTrue(cache.isOverCapacity());
+        assertEquals("C1", cache.nextEviction());
+    }
+
+    @Test
+    void usedSessionIsGivenASecondChance() throws Exception {
+        SessionCache cache = new SessionCache();
+        cache.put("C1", token("a"));
+        cache.put("C2", token("a"));
+        cache.put("C3", token("a"));
+        Thread.sleep(1_100); // uses are recorded at a resolution of a second
+        cache.use("C1");
+
+        assertEquals("C2", cache.nextEviction());
+        assertEquals("C3", cache.nextEviction());
+        assertEquals("C1", cache.nextEviction());
+        assertNull(cache.nextEviction());
+    }
+
+    @Test
+    void removedSessionsAreSkipped() {
+        SessionCache cache = new SessionCache();
+        cache.put("C1", token("a"));
+        cache.put("C2", token("a"));
+        assertTrue(cache.remove("C1"));
+        assertFalse(cache.remove("C1"));
+        assertEquals("C2", cache.nextEviction());
+        assertNull(cache.nextEviction());
+    }
+
+    @Test
+    void sessionIsIdleAfterTheTimeout() throws Exception {
+        SessionCache cache = new SessionCache();
+        cache.put("C1", token("a"));
+        assertFalse(cache.isIdle("C1")); // no timeout
+        cache.setLimits(0, 50);
+        Thread.sleep(80);
+        assertTrue(cache.isIdle("C1"));
+        assertFalse(cache.isIdle("C2"));
+    }
+
+    @Test
+    void statsCountTheEvictionsByReason() {
+        SessionCache cache = new SessionCache();
+        cache.setLimits(10, 60_000);
+        cache.put("C1", token("a"));
+        cache.recordEviction(EvictionReason.SIZE);
+        cache.recordEviction(EvictionReason.SIZE);
+        cache.recordEviction(EvictionReason.IDLE);
+
+        JSONObject stats = cache.getStats();
+        assertEquals(1, stats.getInt("size"));
+        assertEquals(10, stats.getInt("max_sessions"));
+        assertEquals(60_000, stats.getLong("idle_timeout"));
+        assertEquals(2, stats.getJSONObject("evicted").getLong("size"));
+        assertEquals(1, stats.getJSONObject("evicted").getLong("idle"));
+        assertEquals(0, stats.getJSONObject("evicted").getLong("expired"));
+    }
+
+    @Test
+    void concurrentLoginsEvictOneSessionEach() throws Exception {
+        Shared shared = new Shared();
+        Set<String> evicted = ConcurrentHashMap.newKeySet();
+        shared.setSessionLimits(50, 0, (customerNumber, reason) -> evicted.add(customerNumber));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> logins = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                int offset = thread * 100;
+                logins.add(executor.submit(() -> {
+                    for (int i = 0; i < 100; i++) {
+                        shared.restoreToken("C" + (offset + i), new JSONObject().put("accessToken", "a"));
+                    }
+                }));
+            }
+            for (Future<?> login : logins) {
+                login.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(50, shared.getActiveCustomers().size());
+        assertEquals(750, evicted.size());
+        assertEquals(750, shared.getSessionCacheStats().getJSONObject("evicted").getLong("size"));
+    }
+
+    private static Token token(String accessToken) {
+        return Token.of(new JSONObject().put("accessToken", accessToken));
+    }
+}
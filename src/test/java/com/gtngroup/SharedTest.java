@@ -0,0 +1,51 @@
+package com.gtngroup;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * Endpoints of the session
+ */
+class SharedTest {
+
+    @Test
+    void endpointIsResolvedUnderTheAPIPath() {
+        Shared shared = new Shared();
+        shared.init("https://api.example.com/gtn", "key", "secret", null, "INST", null, "TRADE", "1");
+        assertEquals("https://api.example.com/gtn/trade/orders", shared.getURI("/trade/orders").toString());
+        assertEquals("https://api.example.com/gtn/trade/orders", shared.getURI("trade/orders").toString());
+        assertEquals("https://api.example.com/gtn/trade/orders?symbol=A%20B&exchange=NSDQ",
+                shared.getURI("/trade/orders?symbol=A%20B&exchange=NSDQ").toString());
+        assertEquals("https://api.example.com/gtn/trade/customer/J%C3%BCrgen",
+                shared.getURI("/trade/customer/J%C3%BCrgen").toString());
+    }
+
+    @Test
+    void colonInTheFirstSegmentIsNotAScheme() {
+        Shared shared = new Shared();
+        shared.init("https://api.example.com", "key", "secret", null, "INST", null, "TRADE", "1");
+        assertEquals("https://api.example.com/market:data/quotes", shared.getURI("/market:data/quotes").toString());
+        assertEquals("https://api.example.com/quotes/AAPL:NSDQ", shared.getURI("quotes/AAPL:NSDQ").toString());
+    }
+
+    @Test
+    void tokenEndpointsAreAuthURLs() {
+        assertTrue(Shared.isAuthURL("/trade/auth/token"));
+        assertTrue(Shared.isAuthURL("/trade/auth/customer/token/refresh"));
+        assertTrue(Shared.isAuthURL("microinvest/v1.0/auth/client/token"));
+        assertTrue(Shared.isAuthURL("/microinvest/v1.0/auth/server/refresh-token?source=sdk"));
+    }
+
+    @Test
+    void businessEndpointsUnderAuthAreNot() {
+        assertFalse(Shared.isAuthURL("/trade/bo/v1.2.1/customer/auth/limits"));
+        assertFalse(Shared.isAuthURL("/trade/auth/token/history"));
+        assertFalse(Shared.isAuthURL("/trade/auth"));
+        assertFalse(Shared.isAuthURL("/market-data/realtime/keys?auth/token"));
+    }
+}
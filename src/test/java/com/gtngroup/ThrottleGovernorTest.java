@@ -0,0 +1,116 @@
+package com.gtngroup;
+
+import com.gtngroup.exception.RequestException;
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpHeaders;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * Pacing of the client side throttle. Rates are low enough that no permit accrues during a test
+ */
+class ThrottleGovernorTest {
+
+    private static final String APP = "app";
+
+    @Test
+    void burstIsSentWithoutWaiting() throws Exception {
+        ThrottleGovernor governor = new ThrottleGovernor(1, 5);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, governor.acquire(APP, null));
+        }
+        long wait = governor.acquire(APP, null);
+        assertTrue(wait > TimeUnit.MILLISECONDS.toNanos(900) && wait <= TimeUnit.SECONDS.toNanos(1), "wait " + wait);
+        assertEquals(1, governor.getStats().getLong("delayed"));
+    }
+
+    @Test
+    void queuedRequestsAreSpreadAtTheRate() throws Exception {
+        ThrottleGovernor governor = new ThrottleGovernor(10, 1);
+        governor.acquire(APP, null);
+        long first = governor.acquire(APP, null);
+        long second = governor.acquire(APP, null);
+        assertTrue(second - first > TimeUnit.MILLISECONDS.toNanos(90), "first " + first + " second " + second);
+    }
+
+    @Test
+    void failFastRejectsWhenNoPermit() throws Exception {
+        ThrottleGovernor governor = new ThrottleGovernor(1, 1).setPolicy(ThrottleGovernor.Policy.FAIL_FAST);
+        governor.acquire(APP, null);
+        RequestException e = assertThrows(RequestException.class, () -> governor.acquire(APP, null));
+        assertEquals(429, e.getStatusCode());
+        assertEquals(1, governor.getStats().getLong("rejected"));
+    }
+
+    @Test
+    void longQueueIsRejected() throws Exception {
+        ThrottleGovernor governor = new ThrottleGovernor(1, 1).setMaxQueueMillis(500);
+        governor.acquire(APP, null);
+        assertThrows(RequestException.class, () -> governor.acquire(APP, null));
+    }
+
+    @Test
+    void customerRejectionReturnsTheAppPermit() throws Exception {
+        ThrottleGovernor governor = new ThrottleGovernor(1, 10)
+                .setCustomerLimit(1, 1)
+                .setPolicy(ThrottleGovernor.Policy.FAIL_FAST);
+        governor.acquire(APP, "C1");
+        assertThrows(RequestException.class, () -> governor.acquire(APP, "C1"));
+        for (int i = 2; i <= 10; i++) {
+            assertEquals(0, governor.acquire(APP, "C" + i)); // 9 app permits left, not 8
+        }
+        assertThrows(RequestException.class, () -> governor.acquire(APP, "C11"));
+        assertEquals(11, governor.getStats().getInt("customer_buckets"));
+    }
+
+    @Test
+    void serverThrottlePausesWithoutRefill() throws Exception {
+        ThrottleGovernor governor = new ThrottleGovernor(100, 1);
+        governor.acquire(APP, null);
+        governor.onResponse(APP, 429, headers("Retry-After", "1"));
+        Thread.sleep(200); // would refill the bucket if permits accrued during the pause
+
+        long first = governor.acquire(APP, null);
+        long firstAt = System.nanoTime() + first;
+        long second = governor.acquire(APP, null);
+        long secondAt = System.nanoTime() + second;
+        assertTrue(first > TimeUnit.MILLISECONDS.toNanos(700), "first " + first);
+        // the rate is halved to 50 per second, and the permits of the pause are not granted at once when it ends
+        assertTrue(secondAt - firstAt >= TimeUnit.MILLISECONDS.toNanos(15), "first " + firstAt + " second " + secondAt);
+        assertEquals(1, governor.getStats().getLong("server_throttled"));
+    }
+
+    @Test
+    void exhaustedRateLimitPausesUntilTheReset() throws Exception {
+        ThrottleGovernor governor = new ThrottleGovernor(1000, 10);
+        governor.acquire(APP, null);
+        governor.onResponse(APP, 200, headers("RateLimit-Remaining", "0", "RateLimit-Reset", "2"));
+
+        long wait = governor.acquire(APP, null);
+        assertTrue(wait > TimeUnit.MILLISECONDS.toNanos(1900), "wait " + wait);
+    }
+
+    @Test
+    void responsesOfUnknownAppKeysAreIgnored() {
+        ThrottleGovernor governor = new ThrottleGovernor(1, 1);
+        governor.onResponse("other", 429, headers("Retry-After", "1"));
+        assertEquals(0, governor.getStats().getLong("server_throttled"));
+    }
+
+    private static HttpHeaders headers(String... namesAndValues) {
+        Map<String, List<String>> headers = new HashMap<>();
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            headers.put(namesAndValues[i], List.of(namesAndValues[i + 1]));
+        }
+        return HttpHeaders.of(headers, (name, value) -> true);
+    }
+}
@@ -0,0 +1,151 @@
+package com.gtngroup;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * Scheduling of the token refreshes, with a refresher standing in for the token endpoints
+ */
+class TokenRefreshSchedulerTest {
+
+    private final Shared shared = new Shared();
+    private final List<String> calls = new CopyOnWriteArrayList<>();
+    private TokenRefreshScheduler scheduler;
+
+    @AfterEach
+    void stop() {
+        if (scheduler != null) {
+            scheduler.stop();
+        }
+    }
+
+    @Test
+    void dueTokenIsRefreshedAndRescheduled() throws Exception {
+        start(customerNumber -> {
+            shared.restoreToken(customerNumber, token(3_600_000));
+            return CompletableFuture.completedFuture(true);
+        }, 1);
+        shared.restoreToken("C1", token(1_000));
+        scheduler.schedule("C1", shared.getToken("C1"));
+
+        await(() -> scheduler.getStats().getLong("refreshed") == 1);
+        assertEquals(List.of("C1"), calls);
+        assertEquals(1, scheduler.getStats().getInt("scheduled"));
+        Thread.sleep(100);
+        assertEquals(1, calls.size()); // the new token is not due for an hour
+    }
+
+    @Test
+    void serverTokenIsRefreshedWithoutCustomer() throws Exception {
+        start(customerNumber -> {
+            shared.restoreToken(null, token(3_600_000));
+            return CompletableFuture.completedFuture(true);
+        }, 1);
+        shared.restoreToken(null, token(1_000));
+        scheduler.schedule(null, shared.getToken(null));
+
+        await(() -> scheduler.getStats().getLong("refreshed") == 1);
+        assertEquals(1, calls.size());
+        assertNull(calls.get(0));
+    }
+
+    @Test
+    void failedRefreshIsCountedAndKeptScheduled() throws Exception {
+        start(customerNumber -> CompletableFuture.completedFuture(false), 1);
+        shared.restoreToken("C1", token(1_000));
+        scheduler.schedule("C1", shared.getToken("C1"));
+
+        await(() -> scheduler.getStats().getLong("failed") == 1);
+        assertEquals(1, scheduler.getStats().getInt("scheduled"));
+        assertEquals(0, scheduler.getStats().getLong("refreshed"));
+    }
+
+    @Test
+    void tokenDroppedDuringTheRefreshIsNotRescheduled() throws Exception {
+        start(customerNumber -> CompletableFuture.completedFuture(true), 1);
+        scheduler.schedule("C1", Token.of(token(1_000))); // not held by the session
+
+        await(() -> calls.size() == 1);
+        await(() -> scheduler.getStats().getInt("scheduled") == 0);
+        assertEquals(0, scheduler.getStats().getLong("refreshed"));
+    }
+
+    @Test
+    void refreshesInParallelAreBounded() throws Exception {
+        List<CompletableFuture<Boolean>> pending = new CopyOnWriteArrayList<>();
+        start(customerNumber -> {
+            CompletableFuture<Boolean> refresh = new CompletableFuture<>();
+            pending.add(refresh);
+            return refresh;
+        }, 3);
+        for (int i = 0; i < 10; i++) {
+            shared.restoreToken("C" + i, token(1_000));
+            scheduler.schedule("C" + i, shared.getToken("C" + i));
+        }
+
+        await(() -> calls.size() == 3);
+        Thread.sleep(100);
+        assertEquals(3, calls.size());
+        assertEquals(3, scheduler.getStats().getInt("in_flight"));
+
+        pending.get(0).complete(true);
+        await(() -> calls.size() == 4);
+    }
+
+    @Test
+    void cancelledTokenIsNotRefreshed() throws Exception {
+        CompletableFuture<Boolean> first = new CompletableFuture<>();
+        start(customerNumber -> first.thenApply(success -> {
+            shared.restoreToken(customerNumber, token(3_600_000));
+            return success;
+        }), 1);
+        shared.restoreToken("C1", token(1_000));
+        shared.restoreToken("C2", token(1_000));
+        scheduler.schedule("C1", shared.getToken("C1"));
+        await(() -> calls.size() == 1);
+
+        scheduler.schedule("C2", shared.getToken("C2")); // waits for the permit held by C1
+        scheduler.cancel("C2");
+        first.complete(true);
+        Thread.sleep(200);
+        assertEquals(List.of("C1"), calls);
+    }
+
+    private void start(Function<String, CompletableFuture<Boolean>> refresher, int concurrency) {
+        scheduler = new TokenRefreshScheduler(shared, customerNumber -> {
+            calls.add(customerNumber);
+            return refresher.apply(customerNumber);
+        }, concurrency);
+        scheduler.start();
+    }
+
+    private static JSONObject token(long lifetimeMillis) {
+        long now = System.currentTimeMillis();
+        return new JSONObject()
+                .put("accessToken", "access")
+                .put("refreshToken", "refresh")
+                .put("accessTokenExpiresAt", now + lifetimeMillis)
+                .put("refreshTokenExpiresAt", now + 24 * 3_600_000L);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long until = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < until, "timed out");
+            Thread.sleep(10);
+        }
+    }
+}
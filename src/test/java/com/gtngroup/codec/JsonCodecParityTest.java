@@ -0,0 +1,130 @@
+package com.gtngroup.codec;
+
+import com.gtngroup.util.ByteBufferReader;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * The Jackson codec builds the same trees as the default org.json codec, down to the number types
+ */
+class JsonCodecParityTest {
+
+    private final JsonCodec orgJson = JsonCodecs.of("org.json");
+    private final JsonCodec jackson = JsonCodecs.of("jackson");
+
+    @Test
+    void restResponsesDecodeAlike() throws IOException {
+        assertParity(load("customer-account.json"));
+        assertParity(load("edge-cases.json"));
+    }
+
+    @Test
+    void streamMessagesDecodeAlike() throws IOException {
+        assertParity(load("market-data.json"));
+        String event = load("order-event.txt");
+        assertTrue(event.startsWith("data:"));
+        assertParity(event.substring(5)); // as TradeStreaming strips the SSE field name
+    }
+
+    @Test
+    void numbersKeepTheirTypes() throws IOException {
+        JSONObject json = jackson.decode(load("edge-cases.json"));
+        assertEquals(Integer.class, json.get("int").getClass());
+        assertEquals(Long.class, json.get("long").getClass());
+        assertEquals("123456789012345678901234567890", json.get("bigInteger").toString());
+        assertEquals("0.1000000000000000055511151231257827", json.getBigDecimal("precise").toPlainString());
+        assertEquals(JSONObject.NULL, json.get("nullValue"));
+        assertEquals("quote \" backslash \\ slash / tab \t newline \n return \r", json.getString("escapes"));
+        assertEquals("café 東京 📈", json.getString("unicode"));
+    }
+
+    @Test
+    void duplicateKeysAreRejectedByBoth() {
+        for (String json : List.of("{\"a\":1,\"a\":2}", "{\"a\":null,\"a\":2}", "{\"o\":{\"b\":[],\"b\":{}}}")) {
+            assertThrows(JSONException.class, () -> orgJson.decode(json), json);
+            assertThrows(JSONException.class, () -> jackson.decode(json), json);
+        }
+    }
+
+    @Test
+    void notAnObjectIsRejectedByBoth() {
+        for (String json : List.of("[1,2]", "\"text\"", "{\"a\":", "")) {
+            assertThrows(JSONException.class, () -> orgJson.decode(json), json);
+            assertThrows(JSONException.class, () -> jackson.decode(json), json);
+        }
+    }
+
+    @Test
+    void encodedPayloadsDecodeAlike() {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("customerNumber", "1000045871");
+        payload.put("price", 14.35);
+        payload.put("quantity", 10000);
+        payload.put("big", new BigInteger("123456789012345678901234567890"));
+        payload.put("remarks", "rebalance / Q4 \"core\" allocation é");
+        payload.put("skipped", null);
+        payload.put("legs", List.of(Map.of("side", "BUY"), Map.of("side", "SELL")));
+        payload.put("tree", new JSONObject().put("a", new JSONArray().put(1).put(JSONObject.NULL)));
+
+        JSONObject fromOrgJson = orgJson.decode(orgJson.encode(payload));
+        JSONObject fromJackson = orgJson.decode(jackson.encode(payload));
+        assertSameTree(fromOrgJson, fromJackson, "");
+        assertFalse(fromJackson.has("skipped"));
+    }
+
+    private void assertParity(String json) {
+        JSONObject expected = orgJson.decode(json);
+        assertSameTree(expected, jackson.decode(json), "");
+        assertSameTree(expected, jackson.decode(new StringReader(json)), "");
+        List<ByteBuffer> buffers = List.of(ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8)));
+        assertSameTree(expected, jackson.decode(new ByteBufferReader(buffers)), "");
+        assertSameTree(expected, orgJson.decode(new ByteBufferReader(buffers)), "");
+    }
+
+    /**
+     * Compare the values and their classes, as JSONObject.similar() compares numbers by value only
+     */
+    private static void assertSameTree(Object expected, Object actual, String path) {
+        assertEquals(expected.getClass(), actual.getClass(), path);
+        if (expected instanceof JSONObject) {
+            JSONObject object = (JSONObject) expected;
+            assertEquals(object.keySet(), ((JSONObject) actual).keySet(), path);
+            for (String key : object.keySet()) {
+                assertSameTree(object.get(key), ((JSONObject) actual).get(key), path + "/" + key);
+            }
+        } else if (expected instanceof JSONArray) {
+            JSONArray array = (JSONArray) expected;
+            assertEquals(array.length(), ((JSONArray) actual).length(), path);
+            for (int i = 0; i < array.length(); i++) {
+                assertSameTree(array.get(i), ((JSONArray) actual).get(i), path + "/" + i);
+            }
+        } else {
+            assertEquals(expected, actual, path);
+        }
+    }
+
+    private static String load(String name) throws IOException {
+        try (InputStream in = JsonCodecParityTest.class.getResourceAsStream("/fixtures/" + name)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8).trim();
+        }
+    }
+}
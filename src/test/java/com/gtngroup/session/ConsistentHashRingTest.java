@@ -0,0 +1,112 @@
+package com.gtngroup.session;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * Owners of the customers on the hash ring, as the node list changes
+ */
+class ConsistentHashRingTest {
+
+    private static final int CUSTOMERS = 100_000;
+    private static final List<String> NODES = List.of("node-a", "node-b", "node-c", "node-d", "node-e");
+
+    @Test
+    void ownersDoNotDependOnTheOrderOfTheNodes() {
+        ConsistentHashRing ring = new ConsistentHashRing(NODES);
+        Random random = new Random(42);
+        for (int i = 0; i < 5; i++) {
+            List<String> shuffled = new ArrayList<>(NODES);
+            Collections.shuffle(shuffled, random);
+            ConsistentHashRing other = new ConsistentHashRing(shuffled);
+            for (int c = 0; c < CUSTOMERS; c += 7) {
+                assertEquals(ring.getOwner(customer(c)), other.getOwner(customer(c)));
+            }
+        }
+    }
+
+    @Test
+    void removingANodeMovesOnlyItsCustomers() {
+        ConsistentHashRing before = new ConsistentHashRing(NODES);
+        List<String> remaining = new ArrayList<>(NODES);
+        remaining.remove("node-c");
+        ConsistentHashRing after = new ConsistentHashRing(remaining);
+
+        int moved = 0;
+        for (int c = 0; c < CUSTOMERS; c++) {
+            String owner = before.getOwner(customer(c));
+            if (owner.equals("node-c")) {
+                assertNotEquals("node-c", after.getOwner(customer(c)));
+                moved++;
+            } else {
+                assertEquals(owner, after.getOwner(customer(c)));
+            }
+        }
+        assertTrue(moved > 0);
+    }
+
+    @Test
+    void addingANodeMovesCustomersOnlyToIt() {
+        ConsistentHashRing before = new ConsistentHashRing(NODES);
+        List<String> grown = new ArrayList<>(NODES);
+        grown.add("node-f");
+        ConsistentHashRing after = new ConsistentHashRing(grown);
+
+        int moved = 0;
+        for (int c = 0; c < CUSTOMERS; c++) {
+            String owner = after.getOwner(customer(c));
+            if (!owner.equals(before.getOwner(customer(c)))) {
+                assertEquals("node-f", owner);
+                moved++;
+            }
+        }
+        // about 1/6 of the customers
+        assertTrue(moved > CUSTOMERS / 6 * 0.7 && moved < CUSTOMERS / 6 * 1.3, "moved " + moved);
+    }
+
+    @Test
+    void customersAreSpreadEvenly() {
+        List<String> nodes = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            nodes.add("10.0.0." + (i + 1) + ":8080");
+        }
+        ConsistentHashRing ring = new ConsistentHashRing(nodes);
+        Map<String, Integer> counts = new HashMap<>();
+        for (int c = 0; c < CUSTOMERS; c++) {
+            counts.merge(ring.getOwner(customer(c)), 1, Integer::sum);
+        }
+
+        assertEquals(10, counts.size());
+        int mean = CUSTOMERS / nodes.size();
+        for (Map.Entry<String, Integer> count : counts.entrySet()) {
+            assertTrue(count.getValue() > mean * 0.75 && count.getValue() < mean * 1.25, count.toString());
+        }
+    }
+
+    @Test
+    void singleNodeOwnsAllCustomers() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("only"));
+        for (int c = 0; c < 1_000; c++) {
+            assertEquals("only", ring.getOwner(customer(c)));
+        }
+        assertEquals(List.of("only"), ring.getNodes());
+        assertThrows(IllegalArgumentException.class, () -> new ConsistentHashRing(List.of()));
+    }
+
+    private static String customer(int i) {
+        return "C" + (1_000_000 + i);
+    }
+}
@@ -0,0 +1,95 @@
+package com.gtngroup.session;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * Tokens and refresh leases of the file session store, shared by stores of the same directory
+ */
+class FileSessionStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void tokensAreSharedThroughTheDirectory() throws Exception {
+        FileSessionStore first = new FileSessionStore(directory);
+        FileSessionStore second = new FileSessionStore(directory);
+        first.put("C/1", new JSONObject().put("accessToken", "a"));
+        assertEquals("a", second.get("C/1").getString("accessToken"));
+
+        second.remove("C/1");
+        assertNull(first.get("C/1"));
+    }
+
+    @Test
+    void unreadableTokenIsIgnored() throws Exception {
+        FileSessionStore store = new FileSessionStore(directory);
+        store.put("C1", new JSONObject().put("accessToken", "a"));
+        try (Stream<Path> files = Files.list(directory)) {
+            Files.writeString(files.filter(file -> file.toString().endsWith(".token")).findFirst().orElseThrow(), "{");
+        }
+        assertNull(store.get("C1"));
+    }
+
+    @Test
+    void leaseIsHeldByOneNodeUntilReleased() throws Exception {
+        FileSessionStore first = new FileSessionStore(directory);
+        FileSessionStore second = new FileSessionStore(directory);
+        assertTrue(first.lease("C1", "node-1", 10_000));
+        assertTrue(first.lease("C1", "node-1", 10_000)); // extended
+        assertFalse(second.lease("C1", "node-2", 10_000));
+        assertTrue(second.lease("C2", "node-2", 10_000));
+
+        second.release("C1", "node-2"); // not the holder
+        assertFalse(second.lease("C1", "node-2", 10_000));
+        first.release("C1", "node-1");
+        assertTrue(second.lease("C1", "node-2", 10_000));
+    }
+
+    @Test
+    void expiredLeaseIsTakenOver() throws Exception {
+        FileSessionStore store = new FileSessionStore(directory);
+        assertTrue(store.lease("C1", "node-1", 50));
+        Thread.sleep(80);
+        assertTrue(store.lease("C1", "node-2", 10_000));
+        assertFalse(store.lease("C1", "node-1", 10_000));
+    }
+
+    @Test
+    void concurrentNodesGetOneLease() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> leases = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                FileSessionStore store = new FileSessionStore(directory);
+                String nodeId = "node-" + i;
+                leases.add(executor.submit(() -> store.lease("C1", nodeId, 10_000)));
+            }
+            int granted = 0;
+            for (Future<Boolean> lease : leases) {
+                granted += lease.get() ? 1 : 0;
+            }
+            assertEquals(1, granted);
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.gtngroup.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * Decoding of buffered content, compared with new String(bytes, charset)
+ */
+class ByteBufferReaderTest {
+
+    private static final String TEXT = "{\"name\":\"Société Générale €\",\"emoji\":\"📈📉\",\"cjk\":\"東京\"}";
+
+    @Test
+    void characterSplitBetweenBuffersIsDecoded() throws IOException {
+        byte[] bytes = TEXT.getBytes(StandardCharsets.UTF_8);
+        for (int split = 0; split <= bytes.length; split++) {
+            assertEquals(TEXT, read(StandardCharsets.UTF_8, split(bytes, split)), "split at " + split);
+        }
+    }
+
+    @Test
+    void everyByteInItsOwnBuffer() throws IOException {
+        byte[] bytes = TEXT.getBytes(StandardCharsets.UTF_8);
+        List<ByteBuffer> buffers = new ArrayList<>();
+        for (byte b : bytes) {
+            buffers.add(ByteBuffer.wrap(new byte[]{b}));
+        }
+        assertEquals(TEXT, read(StandardCharsets.UTF_8, buffers));
+    }
+
+    @Test
+    void supplementaryCharactersAreSurrogatePairs() throws IOException {
+        String text = new String(Character.toChars(0x1F4C8)) + new String(Character.toChars(0x10FFFF));
+        assertEquals(text, read(StandardCharsets.UTF_8, List.of(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)))));
+        assertEquals(4, text.length());
+    }
+
+    @Test
+    void malformedInputIsReplacedWithoutLosingTheNextByte() throws IOException {
+        assertMatchesString(bytes(0xC3, '"', '}'));                // truncated sequence before a delimiter
+        assertMatchesString(bytes(0xE2, 0x82, '"'));
+        assertMatchesString(bytes(0xF0, 0x9F, 0x93, ','));
+        assertMatchesString(bytes(0xC0, 0xAF));                    // overlong '/'
+        assertMatchesString(bytes(0xE0, 0x80, 0xAF));
+        assertMatchesString(bytes(0xED, 0xA0, 0x80));              // lone surrogate
+        assertMatchesString(bytes(0xF4, 0x90, 0x80, 0x80));        // beyond U+10FFFF
+        assertMatchesString(bytes(0x80, 0xBF, 'a'));               // stray continuations
+        assertMatchesString(bytes('a', 0xE2, 0x82));               // truncated at the end
+        assertEquals("�\"}", read(StandardCharsets.UTF_8, List.of(ByteBuffer.wrap(bytes(0xC3, '"', '}')))));
+    }
+
+    @Test
+    void randomInputMatchesTheStringDecoding() throws IOException {
+        Random random = new Random(42);
+        for (int i = 0; i < 2_000; i++) {
+            byte[] bytes = new byte[random.nextInt(64)];
+            random.nextBytes(bytes);
+            String expected = new String(bytes, StandardCharsets.UTF_8);
+            assertEquals(expected, read(StandardCharsets.UTF_8, split(bytes, bytes.length == 0 ? 0 : random.nextInt(bytes.length))));
+        }
+    }
+
+    @Test
+    void otherCharsetsAreDecoded() throws IOException {
+        String text = "{\"name\":\"Société Générale\"}";
+        byte[] latin = text.getBytes(StandardCharsets.ISO_8859_1);
+        assertEquals(text, read(StandardCharsets.ISO_8859_1, split(latin, 20)));
+        byte[] utf16 = text.getBytes(StandardCharsets.UTF_16BE);
+        for (int split = 0; split <= utf16.length; split++) {
+            assertEquals(text, read(StandardCharsets.UTF_16BE, split(utf16, split)), "split at " + split);
+        }
+    }
+
+    @Test
+    void largeContentIsReadInChunks() throws IOException {
+        StringBuilder text = new StringBuilder();
+        while (text.length() < 100_000) {
+            text.append(TEXT);
+        }
+        byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+        List<ByteBuffer> buffers = new ArrayList<>();
+        for (int offset = 0; offset < bytes.length; offset += 16 * 1024) {
+            buffers.add(ByteBuffer.wrap(bytes, offset, Math.min(16 * 1024, bytes.length - offset)).slice());
+        }
+        assertEquals(text.toString(), read(StandardCharsets.UTF_8, buffers));
+    }
+
+    @Test
+    void markIsKeptAcrossRefills() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 10_000; i++) {
+            text.append((char) ('a' + i % 26));
+        }
+        Reader reader = new ByteBufferReader(List.of(ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.UTF_8))));
+        for (int i = 0; i < text.length(); i++) {
+            reader.mark(1); // as JSONTokener.more() does on every value
+            assertEquals(text.charAt(i), reader.read());
+            reader.reset();
+            assertEquals(text.charAt(i), reader.read());
+        }
+        assertEquals(-1, reader.read());
+
+        Reader limited = new ByteBufferReader(List.of(ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.UTF_8))));
+        limited.mark(1);
+        limited.read(new char[5_000]);
+        assertThrows(IOException.class, limited::reset);
+    }
+
+    @Test
+    void buffersAreNotConsumed() throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(TEXT.getBytes(StandardCharsets.UTF_8));
+        read(StandardCharsets.UTF_8, List.of(buffer));
+        assertEquals(0, buffer.position());
+        assertEquals(TEXT, read(StandardCharsets.UTF_8, List.of(buffer)));
+    }
+
+    private static void assertMatchesString(byte[] bytes) throws IOException {
+        String expected = new String(bytes, StandardCharsets.UTF_8);
+        for (int split = 0; split <= bytes.length; split++) {
+            assertEquals(expected, read(StandardCharsets.UTF_8, split(bytes, split)), "split at " + split);
+        }
+    }
+
+    private static String read(Charset charset, List<ByteBuffer> buffers) throws IOException {
+        StringBuilder text = new StringBuilder();
+        try (Reader reader = new ByteBufferReader(buffers, charset)) {
+            char[] chars = new char[100];
+            int n;
+            while ((n = reader.read(chars, 0, chars.length)) >= 0) {
+                text.append(chars, 0, n);
+            }
+        }
+        return text.toString();
+    }
+
+    private static List<ByteBuffer> split(byte[] bytes, int at) {
+        return List.of(ByteBuffer.wrap(bytes, 0, at).slice(), ByteBuffer.wrap(bytes, at, bytes.length - at).slice());
+    }
+
+    private static byte[] bytes(int... values) {
+        byte[] bytes = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = (byte) values[i];
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,54 @@
+package com.gtngroup.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * Parsing and expansion of the endpoint templates
+ */
+class EndpointTemplateTest {
+
+    private static final EndpointTemplate ORDER =
+            EndpointTemplate.of("/trade/bo/v1.2.1/customer/{customerNumber}/orders/{ orderId }");
+
+    @Test
+    void valuesAreExpandedInOrder() {
+        assertEquals("/trade/bo/v1.2.1/customer/C1/orders/42", ORDER.expand("C1", 42));
+        assertEquals("/trade/bo/v1.2.1/customer/C1/orders/42",
+                ORDER.expand(new Params().add("orderId", 42).add("customerNumber", "C1")));
+    }
+
+    @Test
+    void valuesAreEncodedAsPathSegments() {
+        assertEquals("/trade/bo/v1.2.1/customer/a%2Fb%3Fc/orders/x%20y%23z", ORDER.expand("a/b?c", "x y#z"));
+        assertEquals("/trade/bo/v1.2.1/customer/J%C3%BCrgen/orders/%E2%82%AC", ORDER.expand("Jürgen", "€"));
+    }
+
+    @Test
+    void leadingSlashIsAdded() {
+        assertEquals("/trade/orders/{id}", EndpointTemplate.of("trade/orders/{id}").getTemplate());
+        assertEquals("/trade/orders/{id}", EndpointTemplate.of("/trade/orders/{id}").getTemplate());
+        assertEquals("/trade/orders/1", EndpointTemplate.of("trade/orders/{id}").expand(1));
+        assertEquals("/", EndpointTemplate.of("").expand());
+        assertEquals("/1", EndpointTemplate.of("{id}").expand(1));
+    }
+
+    @Test
+    void templateWithoutVariables() {
+        EndpointTemplate token = EndpointTemplate.of("/trade/auth/token");
+        assertEquals("/trade/auth/token", token.expand());
+        assertEquals("/trade/auth/token", token.expand(new Params()));
+    }
+
+    @Test
+    void wrongValuesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> ORDER.expand("C1"));
+        assertThrows(IllegalArgumentException.class, () -> ORDER.expand("C1", 1, 2));
+        assertThrows(IllegalArgumentException.class, () -> ORDER.expand(new Params().add("customerNumber", "C1")));
+        assertThrows(IllegalArgumentException.class, () -> EndpointTemplate.of("/trade/orders/{id"));
+    }
+}
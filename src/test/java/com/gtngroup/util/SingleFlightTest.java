@@ -0,0 +1,99 @@
+package com.gtngroup.util;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * Coalescing of concurrent calls by key
+ */
+class SingleFlightTest {
+
+    @Test
+    void concurrentCallersShareOneCall() {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        CompletableFuture<String> call = new CompletableFuture<>();
+        AtomicInteger calls = new AtomicInteger();
+
+        CompletableFuture<String> first = flight.execute("key", () -> {
+            calls.incrementAndGet();
+            return call;
+        });
+        CompletableFuture<String> second = flight.execute("key", () -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture("other");
+        });
+        assertEquals(1, flight.getInFlight());
+        call.complete("result");
+
+        assertEquals("result", first.join());
+        assertEquals("result", second.join());
+        assertEquals(1, calls.get());
+        assertEquals(1, flight.getCoalesced());
+        assertEquals(0, flight.getInFlight());
+    }
+
+    @Test
+    void completedCallIsNotShared() {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        assertEquals("a", flight.execute("key", () -> CompletableFuture.completedFuture("a")).join());
+        assertEquals("b", flight.execute("key", () -> CompletableFuture.completedFuture("b")).join());
+        assertEquals(0, flight.getCoalesced());
+    }
+
+    @Test
+    void failureIsSharedAndReleasesTheKey() {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        CompletableFuture<String> call = new CompletableFuture<>();
+        CompletableFuture<String> first = flight.execute("key", () -> call);
+        CompletableFuture<String> second = flight.execute("key", () -> call);
+        call.completeExceptionally(new IllegalStateException("failed"));
+
+        assertThrows(CompletionException.class, first::join);
+        assertThrows(CompletionException.class, second::join);
+        assertEquals(0, flight.getInFlight());
+
+        CompletableFuture<String> thrown = flight.execute("key", () -> {
+            throw new IllegalStateException("not started");
+        });
+        assertTrue(thrown.isCompletedExceptionally());
+        assertEquals(0, flight.getInFlight());
+    }
+
+    @Test
+    void cancellingOneCallerDoesNotAffectTheOthers() {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        CompletableFuture<String> call = new CompletableFuture<>();
+        CompletableFuture<String> first = flight.execute("key", () -> call);
+        CompletableFuture<String> second = flight.execute("key", () -> call);
+        first.cancel(true);
+        call.complete("result");
+
+        assertFalse(call.isCancelled());
+        assertEquals("result", second.join());
+    }
+
+    @Test
+    void eachCallerGetsItsOwnCopy() {
+        SingleFlight<String, JSONObject> flight = new SingleFlight<>(Utils::copy);
+        CompletableFuture<JSONObject> call = new CompletableFuture<>();
+        CompletableFuture<JSONObject> first = flight.execute("key", () -> call);
+        CompletableFuture<JSONObject> second = flight.execute("key", () -> call);
+        call.complete(new JSONObject().put("value", 1));
+
+        first.join().put("value", 2);
+        assertEquals(1, second.join().getInt("value"));
+        assertNotSame(call.join(), first.join());
+    }
+}
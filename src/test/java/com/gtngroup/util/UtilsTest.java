@@ -0,0 +1,63 @@
+package com.gtngroup.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * Encoding of the query strings and endpoint templates of the requests
+ */
+class UtilsTest {
+
+    @Test
+    void emptyParamsGiveNoQuery() {
+        assertEquals("", Utils.toQueryString(new Params()));
+    }
+
+    @Test
+    void queryIsSortedByName() {
+        Params forward = new Params();
+        Params backward = new Params();
+        for (int i = 0; i < 50; i++) {
+            forward.add("p" + i, i);
+            backward.add("p" + (49 - i), 49 - i);
+        }
+        assertEquals(Utils.toQueryString(forward), Utils.toQueryString(backward));
+        assertEquals("?a%20b=1&b=2&c=3", Utils.toQueryString(new Params().add("c", 3).add("a b", 1).add("b", 2)));
+        assertEquals("?A=1&B=2&a=3", Utils.toQueryString(new Params().add("a", 3).add("B", 2).add("A", 1)));
+    }
+
+    @Test
+    void reservedCharactersAreEncoded() {
+        assertEquals("?q=a%26b%3Dc%3Fd%2Fe%23f%2Bg%25h", Utils.toQueryString(new Params("q", "a&b=c?d/e#f+g%h")));
+        assertEquals("?name=John%20Smith", Utils.toQueryString(new Params("name", "John Smith")));
+        assertEquals("?k=-._~azAZ09", Utils.toQueryString(new Params("k", "-._~azAZ09")));
+        assertEquals("?a%5B%5D=1", Utils.toQueryString(new Params().add("a[]", 1)));
+    }
+
+    @Test
+    void nonAsciiIsEncodedAsUtf8() {
+        assertEquals("?city=S%C3%A3o%20Paulo", Utils.toQueryString(new Params("city", "São Paulo")));
+        assertEquals("?s=%E2%82%AC%F0%9F%98%80", Utils.toQueryString(new Params("s", "€😀")));
+    }
+
+    @Test
+    void loneSurrogateIsEncodedAsReplacement() {
+        StringBuilder target = new StringBuilder();
+        Utils.urlEncode("\uD83D", target);
+        assertEquals("%3F", target.toString());
+    }
+
+    @Test
+    void idSegmentsAreReplaced() {
+        assertEquals("/trade/orders/{id}", Utils.toEndpointTemplate("/trade/orders/12345"));
+        assertEquals("/trade/bo/v1.2.1/customer/{id}/orders", Utils.toEndpointTemplate("/trade/bo/v1.2.1/customer/C0042/orders"));
+        assertEquals("/microinvest/v1.0/auth/client/token", Utils.toEndpointTemplate("/microinvest/v1.0/auth/client/token"));
+        assertEquals("trade/orders/{id}/", Utils.toEndpointTemplate("trade/orders/7/"));
+        assertEquals("/v2/{id}", Utils.toEndpointTemplate("/v2/v2a"));
+        assertEquals("/", Utils.toEndpointTemplate(""));
+        assertEquals("/", Utils.toEndpointTemplate(null));
+    }
+}
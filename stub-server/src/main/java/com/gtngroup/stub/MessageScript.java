@@ -0,0 +1,148 @@
+package com.gtngroup.stub;
+
+import java.io.IOException;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongFunction;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * Messages sent on a streaming connection of the stub: the content, the rate, and when to fail.
+ * Messages are paced in bursts every millisecond, which keeps rates of 100k msgs/s without a timer per message
+ */
+public class MessageScript {
+
+    private static final long TICK_NANOS = 1_000_000;
+
+    private final LongFunction<String> generator;
+    private long rate = 1000;
+    private long limit;
+    private long errorEvery;
+    private long startDelay;
+
+    /**
+     * @param generator of the JSON message by its sequence number, starting from 0
+     */
+    public MessageScript(LongFunction<String> generator) {
+        this.generator = generator;
+    }
+
+    /**
+     * Market data price messages, cycling through the symbols
+     *
+     * @param symbols as SOURCE~SYMBOL, i.e. DFM~EMAAR
+     * @return the script
+     */
+    public static MessageScript prices(String... symbols) {
+        String[] keys = symbols.length == 0 ? new String[]{"DFM~EMAAR"} : symbols;
+        return new MessageScript(sequence -> {
+            String key = keys[(int) (sequence % keys.length)];
+            long price = 1_000 + sequence % 500;
+            return "{\"messageType\":\"PRICE\",\"key\":\"" + key
+                    + "\",\"sequence\":" + sequence
+                    + ",\"lastTradedPrice\":" + price / 100 + "." + price % 100
+                    + ",\"lastTradedQty\":" + (100 + sequence % 900)
+                    + ",\"lastTradedTime\":" + System.currentTimeMillis() + "}";
+        });
+    }
+
+    /**
+     * Trade order events
+     *
+     * @param customerNumber of the orders
+     * @return the script
+     */
+    public static MessageScript orders(String customerNumber) {
+        return new MessageScript(sequence -> "{\"event\":\"ORDER\",\"eventTime\":" + System.currentTimeMillis()
+                + ",\"data\":{\"customerNumber\":\"" + customerNumber
+                + "\",\"orderId\":\"STUB-" + sequence
+                + "\",\"symbol\":\"EMAAR\",\"exchange\":\"DFM\",\"side\":\"BUY\",\"orderStatus\":\"FILLED\""
+                + ",\"price\":14.35,\"quantity\":100,\"filledQuantity\":100}}");
+    }
+
+    /**
+     * @param perSecond messages per second, or 0 to send as fast as the connection takes them. 1000 by default
+     * @return the script
+     */
+    public MessageScript setRate(long perSecond) {
+        this.rate = perSecond;
+        return this;
+    }
+
+    /**
+     * @param count of messages after which the connection is closed by the server, or 0 to never close
+     * @return the script
+     */
+    public MessageScript setLimit(long count) {
+        this.limit = count;
+        return this;
+    }
+
+    /**
+     * @param every send an error event instead of each n-th message, or 0 for none
+     * @return the script
+     */
+    public MessageScript setErrorEvery(long every) {
+        this.errorEvery = every;
+        return this;
+    }
+
+    /**
+     * @param millis delay before the first message
+     * @return the script
+     */
+    public MessageScript setStartDelay(long millis) {
+        this.startDelay = millis;
+        return this;
+    }
+
+    /**
+     * Send the messages until the limit is reached, the connection is no longer active or fails
+     *
+     * @param sender of the connection
+     * @param active false once the connection is closed
+     * @return number of messages sent
+     * @throws IOException if the connection fails
+     */
+    protected long run(Sender sender, BooleanSupplier active) throws IOException {
+        if (startDelay > 0) {
+            LockSupport.parkNanos(startDelay * 1_000_000);
+        }
+        long start = System.nanoTime();
+        long sent = 0;
+        long burst = rate <= 0 ? 1024 : Math.max(1, rate / 100);
+        while (active.getAsBoolean() && (limit <= 0 || sent < limit)) {
+            long due = rate <= 0 ? sent + burst : (System.nanoTime() - start) * rate / 1_000_000_000L;
+            if (due <= sent) {
+                LockSupport.parkNanos(TICK_NANOS);
+                continue;
+            }
+            // after a stall, catch up gradually instead of flooding the client
+            due = Math.min(due, sent + burst);
+            if (limit > 0) {
+                due = Math.min(due, limit);
+            }
+            while (sent < due) {
+                if (errorEvery > 0 && (sent + 1) % errorEvery == 0) {
+                    sender.send("{\"event\":\"ERROR\",\"sequence\":" + sent + ",\"message\":\"Injected error\"}");
+                } else {
+                    sender.send(generator.apply(sent));
+                }
+                sent++;
+            }
+            sender.flush();
+        }
+        return sent;
+    }
+
+    /**
+     * Writes messages to a streaming connection
+     */
+    protected interface Sender {
+
+        void send(String message) throws IOException;
+
+        void flush() throws IOException;
+    }
+}
@@ -0,0 +1,73 @@
+package com.gtngroup.stub;
+
+import jakarta.websocket.CloseReason;
+import jakarta.websocket.Endpoint;
+import jakarta.websocket.EndpointConfig;
+import jakarta.websocket.MessageHandler;
+import jakarta.websocket.RemoteEndpoint;
+import jakarta.websocket.Session;
+
+import java.io.IOException;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * WebSocket price endpoint of the stub. Messages of the script start after the client sends its token,
+ * as done by MarketDataStreaming on open
+ */
+public class PriceEndpoint extends Endpoint {
+
+    private final StubHub hub;
+    private volatile boolean active;
+
+    protected PriceEndpoint(StubHub hub) {
+        this.hub = hub;
+    }
+
+    @Override
+    public void onOpen(Session session, EndpointConfig config) {
+        hub.webSocketOpened();
+        session.addMessageHandler(String.class, (MessageHandler.Whole<String>) message -> {
+            if (!active && message.contains("\"token\"")) {
+                active = true;
+                Thread thread = new Thread(() -> stream(session), "GTN Stub Price Stream");
+                thread.setDaemon(true);
+                thread.start();
+            }
+        });
+    }
+
+    @Override
+    public void onClose(Session session, CloseReason closeReason) {
+        active = false;
+    }
+
+    @Override
+    public void onError(Session session, Throwable throwable) {
+        active = false;
+    }
+
+    private void stream(Session session) {
+        RemoteEndpoint.Basic remote = session.getBasicRemote();
+        try {
+            remote.setBatchingAllowed(true);
+            hub.getPriceScript().run(new MessageScript.Sender() {
+                @Override
+                public void send(String message) throws IOException {
+                    remote.sendText(message);
+                    hub.messageSent();
+                }
+
+                @Override
+                public void flush() throws IOException {
+                    remote.flushBatch();
+                }
+            }, () -> active && session.isOpen() && hub.isRunning());
+            if (session.isOpen()) {
+                session.close(new CloseReason(CloseReason.CloseCodes.NORMAL_CLOSURE, "Stream limit reached"));
+            }
+        } catch (IOException | RuntimeException e) {
+            // client went away, or the hub stopped
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.gtngroup.stub;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * Response of a REST route of the stub, with scripted latency and errors.
+ * Latencies and errors are drawn from a seeded random, so a run can be reproduced
+ * <pre>
+ * hub.route("GET", "/trade/bo/v1.2.1/customer/account", Route.json(account)
+ *         .setLatency(5, 50)
+ *         .setErrorRate(0.01, 503));
+ * hub.getRoute("POST", "/trade/auth/customer/token/refresh").failNext(3, 500);
+ * </pre>
+ */
+public class Route {
+
+    private final Function<StubRequest, String> responder;
+    private int status = 200;
+    private long minLatency;
+    private long maxLatency;
+    private double errorRate;
+    private int errorStatus = 500;
+    private long retryAfter = 1;
+    private final AtomicInteger failNext = new AtomicInteger();
+    private volatile int failNextStatus = 500;
+    private Random random = new Random(0);
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+
+    private Route(Function<StubRequest, String> responder) {
+        this.responder = responder;
+    }
+
+    /**
+     * @param body fixed JSON response
+     * @return the route
+     */
+    public static Route json(String body) {
+        return new Route(request -> body);
+    }
+
+    /**
+     * @param responder building the JSON response of each request
+     * @return the route
+     */
+    public static Route of(Function<StubRequest, String> responder) {
+        return new Route(responder);
+    }
+
+    /**
+     * @param status http status of successful responses. 200 by default
+     * @return the route
+     */
+    public Route setStatus(int status) {
+        this.status = status;
+        return this;
+    }
+
+    /**
+     * Delay each response by a uniformly distributed latency
+     *
+     * @param minMillis minimum latency
+     * @param maxMillis maximum latency
+     * @return the route
+     */
+    public Route setLatency(long minMillis, long maxMillis) {
+        this.minLatency = minMillis;
+        this.maxLatency = Math.max(minMillis, maxMillis);
+        return this;
+    }
+
+    /**
+     * Fail a share of the requests
+     *
+     * @param rate   of the failed requests, 0 to 1
+     * @param status http status of the failed requests, i.e. 429, 500 or 503
+     * @return the route
+     */
+    public Route setErrorRate(double rate, int status) {
+        this.errorRate = rate;
+        this.errorStatus = status;
+        return this;
+    }
+
+    /**
+     * @param seconds sent as Retry-After with 429 and 503 errors. 1 by default
+     * @return the route
+     */
+    public Route setRetryAfter(long seconds) {
+        this.retryAfter = seconds;
+        return this;
+    }
+
+    /**
+     * Fail the next requests, regardless of the error rate
+     *
+     * @param count  of requests to fail
+     * @param status http status of the failed requests
+     * @return the route
+     */
+    public Route failNext(int count, int status) {
+        this.failNextStatus = status;
+        this.failNext.set(count);
+        return this;
+    }
+
+    /**
+     * @param seed of the latencies and errors. 0 by default
+     * @return the route
+     */
+    public Route setSeed(long seed) {
+        this.random = new Random(seed);
+        return this;
+    }
+
+    /**
+     * @return number of requests received
+     */
+    public long getRequests() {
+        return requests.get();
+    }
+
+    /**
+     * @return number of requests failed on purpose
+     */
+    public long getErrors() {
+        return errors.get();
+    }
+
+    /**
+     * @return latency of the next response in millis
+     */
+    protected long nextLatency() {
+        if (maxLatency <= 0) {
+            return 0;
+        }
+        synchronized (this) {
+            return minLatency + (maxLatency > minLatency ? (long) (random.nextDouble() * (maxLatency - minLatency)) : 0);
+        }
+    }
+
+    /**
+     * @return status of the next response if it is to fail, or 0
+     */
+    protected int nextError() {
+        requests.incrementAndGet();
+        int error = 0;
+        if (failNext.get() > 0 && failNext.getAndDecrement() > 0) {
+            error = failNextStatus;
+        } else if (errorRate > 0) {
+            synchronized (this) {
+                if (random.nextDouble() < errorRate) {
+                    error = errorStatus;
+                }
+            }
+        }
+        if (error != 0) {
+            errors.incrementAndGet();
+        }
+        return error;
+    }
+
+    protected int getStatus() {
+        return status;
+    }
+
+    protected long getRetryAfter() {
+        return retryAfter;
+    }
+
+    protected String respond(StubRequest request) {
+        return responder.apply(request);
+    }
+}
@@ -0,0 +1,388 @@
+package com.gtngroup.stub;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import jakarta.websocket.DeploymentException;
+import jakarta.websocket.server.ServerEndpointConfig;
+import org.glassfish.tyrus.server.TyrusServerContainer;
+import org.glassfish.tyrus.spi.ServerContainer;
+import org.glassfish.tyrus.spi.ServerContainerFactory;
+import org.json.JSONObject;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * Embeddable stub of the GTN API hub. Answers the server and customer token endpoints of both channels,
+ * configurable REST routes, the trade SSE stream and the market data WebSocket price stream
+ * <pre>
+ * StubHub hub = new StubHub()
+ *         .route("GET", "/trade/bo/v1.2.1/customer/account", Route.json(account).setLatency(5, 20))
+ *         .setPriceStream("/market-data/websocket/price", MessageScript.prices("DFM~EMAAR").setRate(100_000))
+ *         .start();
+ *
+ * GTNAPI api = new GTNAPI(new Params()
+ *         .setURL(hub.getURL())
+ *         .setMarketDataURL(hub.getMarketDataURL())
+ *         ...);
+ * </pre>
+ */
+public class StubHub {
+
+    private final Map<String, Route> routes = new ConcurrentHashMap<>();
+    private int port;
+    private int webSocketPort;
+    private long accessTokenLifetime = 3_600_000;
+    private long refreshTokenLifetime = 86_400_000;
+    private String tradeStreamPath = "/trade/sse/v1.2.1";
+    private MessageScript tradeScript = MessageScript.orders("STUB");
+    private String priceStreamPath = "/market-data/websocket/price";
+    private MessageScript priceScript = MessageScript.prices();
+
+    private HttpServer server;
+    private ServerContainer webSocketServer;
+    private ExecutorService executor;
+    private volatile boolean running;
+
+    private final AtomicLong tokens = new AtomicLong();
+    private final LongAdder notFound = new LongAdder();
+    private final LongAdder streams = new LongAdder();
+    private final LongAdder webSockets = new LongAdder();
+    private final LongAdder messages = new LongAdder();
+
+    public StubHub() {
+        authRoutes("/trade/auth/token", "/trade/auth/token/refresh",
+                "/trade/auth/customer/token", "/trade/auth/customer/token/refresh");
+        authRoutes("/microinvest/v1.0/auth/server/token", "/microinvest/v1.0/auth/server/refresh-token",
+                "/microinvest/v1.0/auth/client/token", "/microinvest/v1.0/auth/client/refresh-token");
+    }
+
+    /**
+     * @param port of the REST and SSE endpoints, or 0 for any free port (default)
+     * @return the hub
+     */
+    public StubHub setPort(int port) {
+        this.port = port;
+        return this;
+    }
+
+    /**
+     * @param port of the WebSocket endpoint, or 0 for any free port (default)
+     * @return the hub
+     */
+    public StubHub setWebSocketPort(int port) {
+        this.webSocketPort = port;
+        return this;
+    }
+
+    /**
+     * Lifetime of the issued tokens. Short lifetimes exercise the token refresh of the SDK
+     *
+     * @param accessMillis  access token lifetime. 1 hour by default
+     * @param refreshMillis refresh token lifetime. 24 hours by default
+     * @return the hub
+     */
+    public StubHub setTokenLifetime(long accessMillis, long refreshMillis) {
+        this.accessTokenLifetime = accessMillis;
+        this.refreshTokenLifetime = refreshMillis;
+        return this;
+    }
+
+    /**
+     * Add or replace a REST route. Paths may hold {name} segments matching any value,
+     * i.e. /trade/oms/v1.2.1/order/{id}
+     *
+     * @param method GET, POST, PATCH or DELETE
+     * @param path   of the route, without the query string
+     * @param route  response of the route
+     * @return the hub
+     */
+    public StubHub route(String method, String path, Route route) {
+        routes.put(method.toUpperCase() + " " + path, route);
+        return this;
+    }
+
+    /**
+     * Get a route to change its script, including the token routes
+     *
+     * @param method GET, POST, PATCH or DELETE
+     * @param path   of the route as added
+     * @return the route, or null if not found
+     */
+    public Route getRoute(String method, String path) {
+        return routes.get(method.toUpperCase() + " " + path);
+    }
+
+    /**
+     * @param path   of the trade SSE endpoint. /trade/sse/v1.2.1 by default
+     * @param script of the order events
+     * @return the hub
+     */
+    public StubHub setTradeStream(String path, MessageScript script) {
+        this.tradeStreamPath = path;
+        this.tradeScript = script;
+        return this;
+    }
+
+    /**
+     * @param path   of the WebSocket price endpoint. /market-data/websocket/price by default
+     * @param script of the price messages
+     * @return the hub
+     */
+    public StubHub setPriceStream(String path, MessageScript script) {
+        this.priceStreamPath = path;
+        this.priceScript = script;
+        return this;
+    }
+
+    /**
+     * Start the REST, SSE and WebSocket endpoints
+     *
+     * @return the hub
+     * @throws IOException if a port is not available
+     */
+    public synchronized StubHub start() throws IOException {
+        // without it, small responses wait for the delayed ACK of the client
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "GTN Stub Worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 1024);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+
+        webSocketServer = ServerContainerFactory.createServerContainer(Collections.emptyMap());
+        try {
+            webSocketServer.addEndpoint(ServerEndpointConfig.Builder.create(PriceEndpoint.class, priceStreamPath)
+                    .configurator(new ServerEndpointConfig.Configurator() {
+                        @Override
+                        public <T> T getEndpointInstance(Class<T> endpointClass) {
+                            return endpointClass.cast(new PriceEndpoint(StubHub.this));
+                        }
+                    })
+                    .build());
+            webSocketServer.start("/", webSocketPort);
+        } catch (DeploymentException e) {
+            throw new IOException("Error starting the WebSocket endpoint", e);
+        }
+
+        running = true;
+        server.start();
+        return this;
+    }
+
+    /**
+     * Stop all endpoints and close the streaming connections
+     */
+    public synchronized void stop() {
+        running = false;
+        if (server != null) {
+            server.stop(0);
+            webSocketServer.stop();
+            executor.shutdownNow();
+            server = null;
+        }
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * @return URL of the REST and SSE endpoints, to set as the API URL of the SDK
+     */
+    public String getURL() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * @return URL of the WebSocket endpoint, to set as the market data URL of the SDK
+     */
+    public String getMarketDataURL() {
+        return "ws://127.0.0.1:" + ((TyrusServerContainer) webSocketServer).getPort();
+    }
+
+    /**
+     * @return requests and errors by route, tokens issued, streaming connections and messages sent
+     */
+    public JSONObject getStats() {
+        JSONObject byRoute = new JSONObject();
+        routes.forEach((key, route) -> {
+            if (route.getRequests() > 0) {
+                byRoute.put(key, new JSONObject().put("requests", route.getRequests()).put("errors", route.getErrors()));
+            }
+        });
+        return new JSONObject()
+                .put("routes", byRoute)
+                .put("not_found", notFound.sum())
+                .put("tokens", tokens.get())
+                .put("sse_connections", streams.sum())
+                .put("websocket_sessions", webSockets.sum())
+                .put("messages", messages.sum());
+    }
+
+    protected MessageScript getPriceScript() {
+        return priceScript;
+    }
+
+    protected void webSocketOpened() {
+        webSockets.increment();
+    }
+
+    protected void messageSent() {
+        messages.increment();
+    }
+
+    private void authRoutes(String serverToken, String serverRefresh, String customerToken, String customerRefresh) {
+        route("POST", serverToken, Route.of(request -> token("server")));
+        route("POST", serverRefresh, Route.of(request -> token("server")));
+        route("POST", customerToken, Route.of(request -> token("customer")));
+        route("POST", customerRefresh, Route.of(request -> token("customer")));
+    }
+
+    private String token(String type) {
+        long now = System.currentTimeMillis();
+        long id = tokens.incrementAndGet();
+        return new JSONObject()
+                .put("status", "SUCCESS")
+                .put("accessToken", "stub-" + type + "-access-" + id)
+                .put("refreshToken", "stub-" + type + "-refresh-" + id)
+                .put("accessTokenExpiresAt", now + accessTokenLifetime)
+                .put("refreshTokenExpiresAt", now + refreshTokenLifetime)
+                .toString();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            String path = exchange.getRequestURI().getPath();
+            if ("GET".equals(method) && path.equals(tradeStreamPath)) {
+                stream(exchange);
+                return;
+            }
+
+            Route route = findRoute(method, path);
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            if (route == null) {
+                notFound.increment();
+                send(exchange, 404, "{\"status\":\"FAILED\",\"message\":\"No stub route for " + method + " " + path + "\"}");
+                return;
+            }
+
+            long latency = route.nextLatency();
+            if (latency > 0) {
+                TimeUnit.MILLISECONDS.sleep(latency);
+            }
+            int error = route.nextError();
+            if (error != 0) {
+                if (error == 429 || error == 503) {
+                    exchange.getResponseHeaders().add("Retry-After", Long.toString(route.getRetryAfter()));
+                }
+                send(exchange, error, "{\"status\":\"FAILED\",\"message\":\"Injected error\"}");
+                return;
+            }
+            StubRequest request = new StubRequest(method, path, exchange.getRequestURI().getRawQuery(),
+                    exchange.getRequestHeaders(), body);
+            send(exchange, route.getStatus(), route.respond(request));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private Route findRoute(String method, String path) {
+        Route route = routes.get(method + " " + path);
+        if (route != null) {
+            return route;
+        }
+        for (Map.Entry<String, Route> entry : routes.entrySet()) {
+            String key = entry.getKey();
+            if (key.indexOf('{') > 0 && key.startsWith(method + " ")
+                    && matches(key.substring(method.length() + 1), path)) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static boolean matches(String template, String path) {
+        String[] templateSegments = template.split("/");
+        String[] pathSegments = path.split("/");
+        if (templateSegments.length != pathSegments.length) {
+            return false;
+        }
+        for (int i = 0; i < templateSegments.length; i++) {
+            if (!templateSegments[i].startsWith("{") && !templateSegments[i].equals(pathSegments[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void stream(HttpExchange exchange) throws IOException {
+        streams.increment();
+        exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream out = new BufferedOutputStream(exchange.getResponseBody(), 64 * 1024);
+        try {
+            tradeScript.run(new MessageScript.Sender() {
+                @Override
+                public void send(String message) throws IOException {
+                    out.write(("data:" + message + "\n\n").getBytes(StandardCharsets.UTF_8));
+                    messages.increment();
+                }
+
+                @Override
+                public void flush() throws IOException {
+                    out.flush();
+                }
+            }, this::isRunning);
+            out.close();
+        } catch (IOException e) {
+            // client went away
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    /**
+     * Run the stub until stopped
+     *
+     * @param args REST port, WebSocket port and message rate. i.e. 8080 8081 100000
+     * @throws Exception on error
+     */
+    public static void main(String[] args) throws Exception {
+        long rate = args.length > 2 ? Long.parseLong(args[2]) : 1000;
+        StubHub hub = new StubHub()
+                .setPort(args.length > 0 ? Integer.parseInt(args[0]) : 8080)
+                .setWebSocketPort(args.length > 1 ? Integer.parseInt(args[1]) : 8081)
+                .setTradeStream("/trade/sse/v1.2.1", MessageScript.orders("STUB").setRate(rate))
+                .setPriceStream("/market-data/websocket/price", MessageScript.prices("DFM~EMAAR", "ADX~ADCB").setRate(rate))
+                .start();
+        Runtime.getRuntime().addShutdownHook(new Thread(hub::stop));
+        System.out.printf("GTN stub hub at %s, market data at %s%n", hub.getURL(), hub.getMarketDataURL());
+        Thread.currentThread().join();
+    }
+}
@@ -0,0 +1,57 @@
+package com.gtngroup.stub;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * (C) Copyright 2010-2025 Global Trading Network. All Rights Reserved.
+ * <p>
+ * A request received by the stub, as given to the responders of the routes
+ */
+public class StubRequest {
+
+    private final String method;
+    private final String path;
+    private final String query;
+    private final Map<String, List<String>> headers;
+    private final String body;
+
+    protected StubRequest(String method, String path, String query, Map<String, List<String>> headers, String body) {
+        this.method = method;
+        this.path = path;
+        this.query = query;
+        this.headers = headers;
+        this.body = body;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * @return the raw query string, or null if none
+     */
+    public String getQuery() {
+        return query;
+    }
+
+    /**
+     * @param name of the header, case insensitive
+     * @return the first value, or null if not sent
+     */
+    public String getHeader(String name) {
+        List<String> values = headers.get(name);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    /**
+     * @return the request body, or an empty string if none
+     */
+    public String getBody() {
+        return body;
+    }
+}